@@ -0,0 +1,165 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import model.RosterSnapshot;
+import model.Student;
+import model.StudentManager;
+
+/**
+ * Bounds recovery time by periodically writing the roster to a {@link RosterFile} checkpoint and
+ * dropping the log segments it covers. Startup then loads the checkpoint and replays only the log tail.
+ * <p>
+ * A checkpoint rotates the log, takes the manager's current {@link RosterSnapshot} (a short read lock
+ * to copy references) and writes it in the background, so writers are never held up by the file I/O.
+ * If the process dies half way, the previous checkpoint and the untouched segments still recover.
+ */
+public class Checkpointer implements Closeable {
+    public static final String CHECKPOINT_FILE = "roster.bin";
+    public static final String LOG_DIRECTORY = "wal";
+    public static final long DEFAULT_INTERVAL_SECONDS = 30;
+    public static final long DEFAULT_MIN_MUTATIONS = 1_000;
+
+    private final StudentManager manager;
+    private final WriteAheadLog log;
+    private final Path checkpointPath;
+    private final long minMutations;
+    private final ScheduledExecutorService scheduler;
+    private volatile long checkpointVersion;
+    private boolean closed;
+
+    private Checkpointer(StudentManager manager, WriteAheadLog log, Path checkpointPath,
+                         long checkpointVersion, long intervalSeconds, long minMutations) {
+        this.manager = manager;
+        this.log = log;
+        this.checkpointPath = checkpointPath;
+        this.checkpointVersion = checkpointVersion;
+        this.minMutations = minMutations;
+        if (intervalSeconds > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "roster-checkpointer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::checkpointIfDue, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * Opens the persisted roster with the default schedule.
+     * @see #open(Path, StudentManager, WriteAheadLog.Durability, long, long)
+     */
+    public static Checkpointer open(Path directory, StudentManager manager, WriteAheadLog.Durability durability) throws IOException {
+        return open(directory, manager, durability, DEFAULT_INTERVAL_SECONDS, DEFAULT_MIN_MUTATIONS);
+    }
+
+    /**
+     * Restores the latest checkpoint into an empty manager, replays the log written since, attaches
+     * a new log to the manager and starts checkpointing in the background.
+     * @param directory Holds the checkpoint file and the log directory; created if missing
+     * @param manager An empty manager to restore into
+     * @param durability How hard each mutation waits for the disk
+     * @param intervalSeconds How often to check whether a checkpoint is due; 0 for manual checkpoints only
+     * @param minMutations Mutations since the last checkpoint before a scheduled check writes a new one
+     * @return The checkpointer, which owns the log; close it on shutdown
+     * @throws IOException If the checkpoint or the log cannot be read, or the log cannot be created
+     */
+    public static Checkpointer open(Path directory, StudentManager manager, WriteAheadLog.Durability durability,
+                                    long intervalSeconds, long minMutations) throws IOException {
+        Files.createDirectories(directory);
+        Path checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        long checkpointVersion = 0;
+        if (Files.exists(checkpointPath)) {
+            checkpointVersion = restore(checkpointPath, manager);
+        }
+        WriteAheadLog log = WriteAheadLog.recover(directory.resolve(LOG_DIRECTORY), manager, durability);
+        return new Checkpointer(manager, log, checkpointPath, checkpointVersion, intervalSeconds, minMutations);
+    }
+
+    // Loads the checkpoint into the manager; returns the version it was taken at
+    private static long restore(Path checkpointPath, StudentManager manager) throws IOException {
+        RosterFile.Mapped mapped = RosterFile.map(checkpointPath);
+        List<Student> students = new ArrayList<>(mapped.getCount());
+        for (int i = 0; i < mapped.getCount(); i++) {
+            students.add(mapped.toStudent(i));
+        }
+        manager.restore(students, mapped.getSequence());
+        return mapped.getSequence();
+    }
+
+    /**
+     * Writes a checkpoint of the current roster and deletes the log segments it makes redundant.
+     * @return The version the checkpoint was taken at
+     * @throws IOException If the log cannot be rotated or the checkpoint cannot be written
+     */
+    public synchronized long checkpoint() throws IOException {
+        // Rotate first so the segments before the boundary are closed and can be dropped as a whole
+        log.rotate();
+        RosterSnapshot snapshot = manager.getSnapshot();
+        if (snapshot.getVersion() > checkpointVersion) {
+            RosterFile.write(checkpointPath, snapshot.getStudents(), snapshot.getVersion());
+            checkpointVersion = snapshot.getVersion();
+        }
+        log.truncateThrough(checkpointVersion);
+        return checkpointVersion;
+    }
+
+    /** Version covered by the last checkpoint written or loaded. */
+    public long getCheckpointVersion() {
+        return checkpointVersion;
+    }
+
+    public WriteAheadLog getLog() {
+        return log;
+    }
+
+    /**
+     * Stops the schedule, writes a final checkpoint if anything changed, then closes the log.
+     * @throws IOException If the final checkpoint or closing the log fails
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (manager.getVersion() > checkpointVersion) {
+                checkpoint();
+            }
+        } finally {
+            log.close();
+        }
+    }
+
+    private void checkpointIfDue() {
+        if (manager.getVersion() - checkpointVersion < minMutations) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // Keep logging; the next scheduled check retries
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import model.Rank;
+import model.ScoreCountingSort;
+import model.Student;
+import model.StudentIdCodec;
+
+/**
+ * Compact binary roster file.
+ * <pre>
+ * header   32 bytes  magic, format version, flags, record count, sequence, name table offset
+ * records  16 bytes  ID code, score in hundredths, rank ordinal, name offset and length
+ * names    UTF-8     all names back to back, addressed by the records
+ * </pre>
+ * Files are written sequentially to a temporary sibling and atomically moved into place,
+ * and read through a single memory mapping without per-record parsing.
+ */
+public final class RosterFile {
+    public static final int MAGIC = 0x524F5354; // "ROST"
+    public static final short FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 16;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 12;
+    private static final int NAMES_OFFSET = 20;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private RosterFile() {
+    }
+
+    /**
+     * Writes a roster file.
+     * @param path Destination; replaced atomically once the new file is complete
+     * @param students The students to write; iterated twice (records, then names), so it must not change meanwhile
+     * @param sequence Caller-defined sequence stored in the header (e.g. the roster version)
+     * @throws IOException If writing fails or the source yields an invalid ID
+     */
+    public static void write(Path path, Collection<Student> students, long sequence) throws IOException {
+        int count = students.size();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            putHeader(buffer, count, sequence);
+
+            // Records: name offsets are known from the encoded lengths, so names can follow in a second pass
+            int written = 0;
+            int nameOffset = 0;
+            for (Iterator<Student> it = students.iterator(); it.hasNext() && written < count; written++) {
+                Student student = it.next();
+                int code = StudentIdCodec.encode(student.getId());
+                if (code == StudentIdCodec.INVALID) {
+                    throw new IOException("Invalid student ID in roster: " + student.getId());
+                }
+                // Lossless for managed students, whose scores are already rounded to hundredths
+                int hundredths = ScoreCountingSort.toHundredths(student.getScore());
+                int nameLength = student.getName().getBytes(StandardCharsets.UTF_8).length;
+                if (buffer.remaining() < RECORD_SIZE) {
+                    drain(channel, buffer);
+                }
+                putRecord(buffer, code, hundredths, nameOffset, nameLength);
+                nameOffset += nameLength;
+            }
+            if (written != count) {
+                throw new IOException("Roster source yielded " + written + " students, expected " + count);
+            }
+
+            int namesWritten = 0;
+            for (Iterator<Student> it = students.iterator(); it.hasNext() && namesWritten < count; namesWritten++) {
+                byte[] name = it.next().getName().getBytes(StandardCharsets.UTF_8);
+                for (int offset = 0; offset < name.length; ) {
+                    if (!buffer.hasRemaining()) {
+                        drain(channel, buffer);
+                    }
+                    int chunk = Math.min(buffer.remaining(), name.length - offset);
+                    buffer.put(name, offset, chunk);
+                    offset += chunk;
+                }
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a roster file for reading.
+     * @param path The file to map
+     * @return A read-only view over the mapping
+     * @throws IOException If the file cannot be read or is not a valid roster file
+     */
+    public static Mapped map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a roster file (size " + size + "): " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new Mapped(buffer, path);
+        }
+    }
+
+    // Header for a file of count records; buffer must be little-endian
+    static void putHeader(ByteBuffer buffer, int count, long sequence) {
+        buffer.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0)
+              .putInt(count).putLong(sequence).putLong(HEADER_SIZE + (long) count * RECORD_SIZE).putInt(0);
+    }
+
+    // One record; nameOffset is relative to the start of the name table
+    static void putRecord(ByteBuffer buffer, int code, int hundredths, int nameOffset, int nameLength) {
+        buffer.putInt(code).putShort((short) hundredths)
+              .put((byte) Rank.fromScore(hundredths / 100.0).ordinal()).put((byte) 0)
+              .putInt(nameOffset).putInt(nameLength);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Read-only view over a mapped roster file. Fields are read straight from the mapping;
+     * only {@link #getName(int)} and {@link #toStudent(int)} allocate.
+     */
+    public static final class Mapped {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final long sequence;
+        private final int namesOffset;
+
+        private Mapped(ByteBuffer buffer, Path path) throws IOException {
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a roster file (bad magic): " + path);
+            }
+            short version = buffer.getShort(VERSION_OFFSET);
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported roster format version " + version + ": " + path);
+            }
+            this.buffer = buffer;
+            this.count = buffer.getInt(COUNT_OFFSET);
+            this.sequence = buffer.getLong(SEQUENCE_OFFSET);
+            long names = buffer.getLong(NAMES_OFFSET);
+            if (count < 0 || names != HEADER_SIZE + (long) count * RECORD_SIZE || names > buffer.capacity()) {
+                throw new IOException("Corrupt roster header: " + path);
+            }
+            this.namesOffset = (int) names;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /** The sequence stored by the writer. */
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getIdCode(int index) {
+            return buffer.getInt(recordOffset(index));
+        }
+
+        public int getScoreHundredths(int index) {
+            return buffer.getShort(recordOffset(index) + 4);
+        }
+
+        public String getName(int index) {
+            int record = recordOffset(index);
+            byte[] bytes = new byte[buffer.getInt(record + 12)];
+            buffer.get(namesOffset + buffer.getInt(record + 8), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public Student toStudent(int index) {
+            return new Student(StudentIdCodec.decode(getIdCode(index)), getName(index), getScoreHundredths(index) / 100.0);
+        }
+
+        private int recordOffset(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+            }
+            return HEADER_SIZE + index * RECORD_SIZE;
+        }
+    }
+}
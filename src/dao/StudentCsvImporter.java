@@ -0,0 +1,347 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.Student;
+import model.StudentIdCodec;
+import model.StudentManager;
+
+/**
+ * Bulk loader for {@code id,name,score} CSV files.
+ * <p>
+ * The file is cut into fixed-size byte ranges that are read with positional {@link FileChannel} reads
+ * and parsed on a worker pool. A range owns the lines that start inside it, so workers never need to
+ * coordinate. Parsed batches are handed to {@link StudentManager#addStudents(java.util.Collection, boolean)}
+ * in file order, so the first occurrence of a duplicate ID wins, and listeners are notified once at the end.
+ * Only a bounded number of ranges is in flight, so memory stays flat however large the file is.
+ * <p>
+ * Names may be quoted ({@code "Doe, John"}, with {@code ""} for a literal quote), but may not span lines:
+ * ranges split on line breaks without tracking quotes. A first line whose ID column reads {@code id} is
+ * treated as a header. Rows with a malformed ID, an empty name or a score outside [0, 10] are counted as
+ * invalid and skipped; scores are rounded to hundredths, the precision the roster keeps.
+ */
+public class StudentCsvImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 4 << 20;
+    // Longest line a range may read past its end to finish
+    public static final int MAX_LINE_LENGTH = 64 << 10;
+
+    /** Receives progress on the importing thread after each batch is inserted. */
+    public interface ProgressListener {
+        void onProgress(long bytesDone, long totalBytes, int imported);
+    }
+
+    /** Row counts for a finished import. */
+    public static final class Result {
+        private final long rows;
+        private final int imported;
+        private final long invalid;
+
+        Result(long rows, int imported, long invalid) {
+            this.rows = rows;
+            this.imported = imported;
+            this.invalid = invalid;
+        }
+
+        /** Data rows read, excluding a header and blank lines. */
+        public long getRows() {
+            return rows;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /** Valid rows skipped because the ID was already in the roster or earlier in the file. */
+        public long getDuplicates() {
+            return rows - invalid - imported;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows: " + imported + " imported, " + getDuplicates() + " duplicates, " + invalid + " invalid";
+        }
+    }
+
+    private final int threads;
+    private final int chunkSize;
+
+    public StudentCsvImporter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param threads Parser threads
+     * @param chunkSize Bytes per range; each in-flight range holds a buffer of this size plus {@link #MAX_LINE_LENGTH}
+     */
+    public StudentCsvImporter(int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("threads and chunkSize must be positive");
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports a CSV file into the manager.
+     * @param path The file to read
+     * @param manager The manager to add students to
+     * @param listener Progress callback, or null
+     * @return Row counts
+     * @throws IOException If the file cannot be read or a line is longer than {@link #MAX_LINE_LENGTH}
+     */
+    public Result importFile(Path path, StudentManager manager, ProgressListener listener) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "csv-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long rows = 0;
+        long invalid = 0;
+        int imported = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            long nextStart = 0;
+            // Keep every worker busy plus one range queued each, in file order
+            while (nextStart < size || !inFlight.isEmpty()) {
+                while (nextStart < size && inFlight.size() < threads * 2) {
+                    long start = nextStart;
+                    long end = Math.min(size, start + chunkSize);
+                    inFlight.add(pool.submit(() -> parseRange(channel, start, end, size)));
+                    nextStart = end;
+                }
+                Chunk chunk = await(inFlight.poll());
+                rows += chunk.rows;
+                invalid += chunk.invalid;
+                imported += manager.addStudents(chunk.students, false);
+                if (listener != null) {
+                    listener.onProgress(chunk.end, size, imported);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            // Also after a failure part way, so views pick up the batches that did go in
+            if (imported > 0) {
+                manager.notifyDataChangeListeners();
+            }
+        }
+        return new Result(rows, imported, invalid);
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("CSV import failed", e.getCause());
+        }
+    }
+
+    private static final class Chunk {
+        final long end;
+        final List<Student> students = new ArrayList<>();
+        long rows;
+        long invalid;
+
+        Chunk(long end) {
+            this.end = end;
+        }
+    }
+
+    // Parses every line that starts in [start, end); the last one may run past end
+    private static Chunk parseRange(FileChannel channel, long start, long end, long size) throws IOException {
+        // One byte before the range tells whether the range begins on a line boundary
+        long readFrom = start == 0 ? 0 : start - 1;
+        int length = (int) Math.min(size - readFrom, end - readFrom + MAX_LINE_LENGTH);
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, readFrom + buffer.position()) < 0) {
+                break;
+            }
+        }
+        int limit = buffer.position();
+        int ownedEnd = (int) (end - readFrom);
+
+        int pos = 0;
+        if (start > 0) {
+            // Skip the tail of a line owned by the previous range
+            while (pos < limit && bytes[pos] != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+        Chunk chunk = new Chunk(end);
+        boolean firstLine = start == 0;
+        while (pos < ownedEnd && pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == limit && readFrom + limit < size) {
+                throw new IOException("Line at byte " + (readFrom + pos) + " is longer than " + MAX_LINE_LENGTH + " bytes");
+            }
+            parseLine(bytes, pos, lineEnd, firstLine, chunk);
+            firstLine = false;
+            pos = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    private static void parseLine(byte[] bytes, int from, int to, boolean mayBeHeader, Chunk chunk) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        if (mayBeHeader && from + 3 <= to && bytes[from] == (byte) 0xEF && bytes[from + 1] == (byte) 0xBB
+                && bytes[from + 2] == (byte) 0xBF) {
+            from += 3; // UTF-8 byte order mark
+        }
+        if (isBlank(bytes, from, to)) {
+            return;
+        }
+
+        // ID column
+        int idEnd = indexOf(bytes, from, to, (byte) ',');
+        int idStart = skipSpaces(bytes, from, idEnd);
+        int idStop = trimSpaces(bytes, idStart, idEnd);
+        if (mayBeHeader && idStop - idStart == 2 && (bytes[idStart] | 0x20) == 'i' && (bytes[idStart + 1] | 0x20) == 'd') {
+            return;
+        }
+        chunk.rows++;
+        int code = StudentIdCodec.encode(bytes, idStart, idStop - idStart);
+        if (code == StudentIdCodec.INVALID || idEnd == to) {
+            chunk.invalid++;
+            return;
+        }
+
+        // Name column, optionally quoted
+        int nameStart = skipSpaces(bytes, idEnd + 1, to);
+        String name;
+        int nameEnd;
+        if (nameStart < to && bytes[nameStart] == '"') {
+            byte[] unquoted = new byte[to - nameStart];
+            int count = 0;
+            int i = nameStart + 1;
+            boolean closed = false;
+            while (i < to) {
+                if (bytes[i] == '"') {
+                    if (i + 1 < to && bytes[i + 1] == '"') {
+                        unquoted[count++] = '"';
+                        i += 2;
+                        continue;
+                    }
+                    closed = true;
+                    i++;
+                    break;
+                }
+                unquoted[count++] = bytes[i++];
+            }
+            nameEnd = indexOf(bytes, i, to, (byte) ',');
+            if (!closed || !isBlank(bytes, i, nameEnd)) {
+                chunk.invalid++;
+                return;
+            }
+            name = new String(unquoted, 0, count, StandardCharsets.UTF_8).strip();
+        } else {
+            nameEnd = indexOf(bytes, nameStart, to, (byte) ',');
+            name = new String(bytes, nameStart, trimSpaces(bytes, nameStart, nameEnd) - nameStart, StandardCharsets.UTF_8);
+        }
+        if (name.isEmpty() || nameEnd == to) {
+            chunk.invalid++;
+            return;
+        }
+
+        // Score column: the rest of the line
+        int scoreStart = skipSpaces(bytes, nameEnd + 1, to);
+        double score = parseScore(bytes, scoreStart, trimSpaces(bytes, scoreStart, to));
+        if (!(score >= 0 && score <= 10)) {
+            chunk.invalid++;
+            return;
+        }
+        chunk.students.add(new Student(StudentIdCodec.decode(code), name, StudentManager.roundScore(score)));
+    }
+
+    // Plain decimals ("8", "8.5", "8.25") without allocation; anything else goes through Double.parseDouble
+    private static double parseScore(byte[] bytes, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1;
+        boolean seenPoint = false;
+        boolean plain = to - from <= 12;
+        for (int i = from; i < to && plain; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (seenPoint) {
+                    fraction = fraction * 10 + (b - '0');
+                    scale *= 10;
+                } else {
+                    whole = whole * 10 + (b - '0');
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                plain = false;
+            }
+        }
+        if (plain && (to - from > 1 || !seenPoint)) {
+            // Both operands are exact, so the single rounding matches Double.parseDouble
+            return (double) (whole * scale + fraction) / scale;
+        }
+        try {
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte target) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == target) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimSpaces(byte[] bytes, int from, int to) {
+        while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        return skipSpaces(bytes, from, to) == to;
+    }
+}
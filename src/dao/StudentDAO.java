@@ -1,19 +1,28 @@
 package dao;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import model.Student;
+import model.StudentIdCodec;
 
 public class StudentDAO {
     private List<Student> students;
+    private Map<String, Student> studentsById; // ID index for O(1) lookups
     
     public StudentDAO() {
         students = new ArrayList<>();
+        studentsById = new HashMap<>();
     }
     
     private boolean isValidStudentId(String id) {
-        return id != null && id.matches("BC\\d{5}");
+        return StudentIdCodec.isValid(id);
     }
     
     public boolean addStudent(Student student) {
@@ -28,6 +37,7 @@ public class StudentDAO {
             return false;
         }
         
+        studentsById.put(student.getId(), student);
         return students.add(student);
     }
     
@@ -36,9 +46,13 @@ public class StudentDAO {
             return false;
         }
         
+        if (!studentsById.containsKey(student.getId())) {
+            return false;
+        }
         for (int i = 0; i < students.size(); i++) {
             if (students.get(i).getId().equals(student.getId())) {
                 students.set(i, student);
+                studentsById.put(student.getId(), student);
                 return true;
             }
         }
@@ -46,14 +60,58 @@ public class StudentDAO {
     }
     
     public boolean deleteStudent(String id) {
+        if (studentsById.remove(id) == null) {
+            return false;
+        }
         return students.removeIf(s -> s.getId().equals(id));
     }
     
     public Student findStudentById(String id) {
-        return students.stream()
-                      .filter(s -> s.getId().equals(id))
-                      .findFirst()
-                      .orElse(null);
+        return studentsById.get(id);
+    }
+    
+    /**
+     * Saves all students to a binary roster file.
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        RosterFile.write(path, students, 0L);
+    }
+    
+    /**
+     * Replaces the current students with the contents of a binary roster file.
+     * The file is memory-mapped and read field by field; only the list and ID index are built.
+     * @param path The file to load
+     * @return The number of students loaded
+     * @throws IOException If the file cannot be read or is not a valid roster file
+     */
+    public int load(Path path) throws IOException {
+        RosterFile.Mapped roster = RosterFile.map(path);
+        int count = roster.getCount();
+        List<Student> loaded = new ArrayList<>(count);
+        Map<String, Student> index = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+        for (int i = 0; i < count; i++) {
+            Student student = roster.toStudent(i);
+            if (index.putIfAbsent(student.getId(), student) == null) {
+                loaded.add(student);
+            }
+        }
+        students = loaded;
+        studentsById = index;
+        return loaded.size();
+    }
+    
+    /**
+     * Streams the students, in stored order, to a channel.
+     * @param format The output format
+     * @param filter Which students to write, or null for all
+     * @param channel Where to write; left open
+     * @return The number of students written
+     * @throws IOException If writing fails
+     */
+    public long export(StudentExporter.Format format, Predicate<Student> filter, WritableByteChannel channel) throws IOException {
+        return new StudentExporter(format).export(students, filter, channel);
     }
     
     public List<Student> getAllStudents() {
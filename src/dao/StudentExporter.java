@@ -0,0 +1,426 @@
+package dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import model.RosterSnapshot;
+import model.ScoreCountingSort;
+import model.Student;
+import model.StudentIdCodec;
+import model.StudentManager;
+import model.StudentOrder;
+
+/**
+ * Streams students to a channel as CSV, JSON Lines or a {@link RosterFile}.
+ * <p>
+ * Records are encoded straight into one reusable buffer, which is written out whenever it fills, so memory
+ * stays constant whatever the roster size: no student list is copied and no per-row strings are built
+ * (scores with more than two decimals are the exception). An exporter is not thread-safe; use one per thread.
+ */
+public class StudentExporter {
+
+    public enum Format {
+        // id,name,score with a header line; names are quoted when needed and may not contain line breaks
+        CSV,
+        // One JSON object per line: id, name, score, rank
+        JSON_LINES,
+        // The RosterFile layout, readable by RosterFile.map and StudentDAO.load
+        BINARY
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Worst case UTF-8 bytes per UTF-16 char, plus CSV/JSON escaping
+    private static final int MAX_BYTES_PER_CHAR = 6;
+    private static final byte[] CSV_HEADER = "id,name,score\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private WritableByteChannel out;
+
+    public StudentExporter(Format format) {
+        this.format = format;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Exports the manager's students.
+     * @param manager The roster to export
+     * @param order The order to write students in; insertion order exports a consistent snapshot
+     * @param filter Which students to write, or null for all
+     * @param channel Where to write; left open
+     * @return The number of students written
+     * @throws IOException If writing fails, or a sorted binary export raced with an edit (the header
+     *                     count must match the records, so the output would be inconsistent)
+     */
+    public long export(StudentManager manager, StudentOrder order, Predicate<Student> filter,
+                       WritableByteChannel channel) throws IOException {
+        if (order == StudentOrder.INSERTION) {
+            // Pin one snapshot so the passes of a binary export agree
+            RosterSnapshot snapshot = manager.getSnapshot();
+            return export(action -> {
+                snapshot.getStudents().forEach(action);
+                return snapshot.getVersion();
+            }, filter, channel);
+        }
+        return export(action -> manager.forEachStudent(order, action), filter, channel);
+    }
+
+    /**
+     * Exports the manager's students to a file, replacing it only once the export is complete. Students are
+     * written to a temporary sibling that is moved over the file on success, so a failure part way (a disk
+     * error, a name CSV cannot hold) leaves any existing file as it was.
+     * @param manager The roster to export
+     * @param order The order to write students in; insertion order exports a consistent snapshot
+     * @param filter Which students to write, or null for all
+     * @param path The file to create or replace
+     * @return The number of students written
+     * @throws IOException If writing fails; the temporary file is removed
+     */
+    public long export(StudentManager manager, StudentOrder order, Predicate<Student> filter, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            long written;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = export(manager, order, filter, channel);
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Exports a collection in its iteration order; the collection must not change meanwhile.
+     * @param students The students to export
+     * @param filter Which students to write, or null for all
+     * @param channel Where to write; left open
+     * @return The number of students written
+     * @throws IOException If writing fails
+     */
+    public long export(Collection<Student> students, Predicate<Student> filter, WritableByteChannel channel) throws IOException {
+        return export(action -> {
+            students.forEach(action);
+            return 0L;
+        }, filter, channel);
+    }
+
+    // A repeatable walk over the source; returns the roster version it saw, or -1 if it changed meanwhile
+    private interface Walk {
+        long forEach(Consumer<Student> action);
+    }
+
+    private long export(Walk walk, Predicate<Student> filter, WritableByteChannel channel) throws IOException {
+        Predicate<Student> accept = filter != null ? filter : _ -> true;
+        out = channel;
+        buffer.clear();
+        try {
+            long written = switch (format) {
+                case CSV -> {
+                    ensure(CSV_HEADER.length);
+                    buffer.put(CSV_HEADER);
+                    yield writeRows(walk, accept, this::putCsv);
+                }
+                case JSON_LINES -> writeRows(walk, accept, this::putJson);
+                case BINARY -> writeBinary(walk, accept);
+            };
+            drain();
+            return written;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out = null;
+        }
+    }
+
+    private long writeRows(Walk walk, Predicate<Student> accept, Consumer<Student> encoder) {
+        long[] count = {0};
+        walk.forEach(student -> {
+            if (accept.test(student)) {
+                encoder.accept(student);
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    // Header and records first, names after; three passes over the same walk
+    private long writeBinary(Walk walk, Predicate<Student> accept) throws IOException {
+        long[] count = {0};
+        long version = walk.forEach(student -> {
+            if (accept.test(student)) {
+                count[0]++;
+            }
+        });
+        if (count[0] > (Integer.MAX_VALUE - RosterFile.HEADER_SIZE) / RosterFile.RECORD_SIZE) {
+            throw new IOException("Too many students for a roster file: " + count[0]);
+        }
+        ensure(RosterFile.HEADER_SIZE);
+        RosterFile.putHeader(buffer, (int) count[0], Math.max(0, version));
+
+        long[] records = {0};
+        int[] nameOffset = {0};
+        long recordsVersion = walk.forEach(student -> {
+            if (accept.test(student) && records[0] < count[0]) {
+                int nameLength = utf8Length(student.getName());
+                ensure(RosterFile.RECORD_SIZE);
+                RosterFile.putRecord(buffer, StudentIdCodec.encode(student.getId()),
+                                     ScoreCountingSort.toHundredths(student.getScore()), nameOffset[0], nameLength);
+                nameOffset[0] += nameLength;
+                records[0]++;
+            }
+        });
+
+        long[] names = {0};
+        long namesVersion = walk.forEach(student -> {
+            if (accept.test(student) && names[0] < count[0]) {
+                putUtf8(student.getName());
+                names[0]++;
+            }
+        });
+        if (version < 0 || recordsVersion != version || namesVersion != version || records[0] != count[0]) {
+            throw new IOException("Roster changed during a sorted binary export; export again or use insertion order");
+        }
+        return count[0];
+    }
+
+    private void putCsv(Student student) {
+        putId(student);
+        putByte((byte) ',');
+        String name = student.getName();
+        if (name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            // StudentCsvImporter splits records on line breaks before it looks at quotes
+            throw new UncheckedIOException(new IOException("Name of " + student.getId()
+                    + " contains a line break, which CSV import cannot read back; export as JSON Lines or binary"));
+        }
+        if (!needsCsvQuotes(name)) {
+            putUtf8(name);
+        } else if (2 + name.length() * MAX_BYTES_PER_CHAR > BUFFER_SIZE) {
+            // Longer than the buffer; escape into a string and let putUtf8 write it past the buffer
+            putUtf8('"' + name.replace("\"", "\"\"") + '"');
+        } else {
+            ensure(2 + name.length() * MAX_BYTES_PER_CHAR);
+            buffer.put((byte) '"');
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '"') {
+                    buffer.put((byte) '"');
+                }
+                i = putChar(name, i);
+            }
+            buffer.put((byte) '"');
+        }
+        putByte((byte) ',');
+        putScore(student.getScore());
+        putByte((byte) '\n');
+    }
+
+    private void putJson(Student student) {
+        putAscii("{\"id\":\"");
+        putId(student);
+        putAscii("\",\"name\":\"");
+        putJsonString(student.getName());
+        putAscii("\",\"score\":");
+        putScore(student.getScore());
+        putAscii(",\"rank\":\"");
+        putJsonString(student.getRank());
+        putAscii("\"}\n");
+    }
+
+    private void putJsonString(String value) {
+        if (value.length() * MAX_BYTES_PER_CHAR > BUFFER_SIZE) {
+            putUtf8(jsonEscaped(value));
+            return;
+        }
+        ensure(value.length() * MAX_BYTES_PER_CHAR);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.put((byte) '\\').put((byte) c);
+            } else if (c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                      .put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            } else {
+                i = putChar(value, i);
+            }
+        }
+    }
+
+    // The escaping putJsonString does, as a string, for values too long for the buffer
+    private static String jsonEscaped(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append("\\u00").append((char) HEX[c >> 4]).append((char) HEX[c & 0xF]);
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // IDs are BC + five digits, always seven ASCII bytes
+    private void putId(Student student) {
+        ensure(8);
+        int code = StudentIdCodec.encode(student.getId());
+        if (code == StudentIdCodec.INVALID) {
+            putAscii(student.getId());
+            return;
+        }
+        buffer.put((byte) 'B').put((byte) 'C');
+        for (int divisor = 10_000; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + code / divisor % 10));
+        }
+    }
+
+    // Two-decimal scores (the normal case) are written as digits; anything else through Double.toString
+    private void putScore(double score) {
+        ensure(32);
+        int hundredths = ScoreCountingSort.toHundredths(score);
+        if (hundredths / 100.0 != score) {
+            putAscii(Double.toString(score));
+            return;
+        }
+        putDigits(hundredths / 100);
+        buffer.put((byte) '.');
+        int fraction = hundredths % 100;
+        buffer.put((byte) ('0' + fraction / 10));
+        if (fraction % 10 != 0) {
+            buffer.put((byte) ('0' + fraction % 10));
+        }
+    }
+
+    private void putDigits(int value) {
+        if (value >= 10) {
+            putDigits(value / 10);
+        }
+        buffer.put((byte) ('0' + value % 10));
+    }
+
+    private void putAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private void putUtf8(String value) {
+        if (value.length() * MAX_BYTES_PER_CHAR > BUFFER_SIZE) {
+            // Longer than the buffer; rare enough to encode in one go
+            ByteBuffer encoded = ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+            drain();
+            write(encoded);
+            return;
+        }
+        ensure(value.length() * MAX_BYTES_PER_CHAR);
+        for (int i = 0; i < value.length(); i++) {
+            i = putChar(value, i);
+        }
+    }
+
+    // Encodes the char at i (two for a surrogate pair) and returns the index of the last char consumed
+    private int putChar(String value, int i) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                  .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?'); // Unpaired surrogate, as String.getBytes would
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        }
+        return i;
+    }
+
+    // Same byte count as putUtf8, without encoding
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static boolean needsCsvQuotes(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == '"') {
+                return true;
+            }
+        }
+        return !name.isEmpty() && (name.charAt(0) == ' ' || name.charAt(name.length() - 1) == ' ');
+    }
+
+    private void putByte(byte value) {
+        ensure(1);
+        buffer.put(value);
+    }
+
+    private void ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            drain();
+            if (bytes > buffer.capacity()) {
+                throw new UncheckedIOException(new IOException("Field too long to export: up to " + bytes + " bytes"));
+            }
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer source) {
+        try {
+            while (source.hasRemaining()) {
+                out.write(source);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import model.Mutation;
+import model.MutationLog;
+import model.ScoreCountingSort;
+import model.StudentIdCodec;
+import model.StudentManager;
+
+/**
+ * Append-only log of roster mutations, split into segment files named after their first sequence.
+ * <pre>
+ * record   int payload length, int CRC32 of the payload, payload
+ * payload  long sequence, byte type, int ID code, short score in hundredths, short name length, UTF-8 name
+ * </pre>
+ * Appends only encode into a memory buffer; a background flusher writes the buffer out and, depending
+ * on the {@link Durability}, forces it to disk. Writers waiting on the same flush share one fsync
+ * (group commit). Replay stops at the first torn or corrupt record of a segment, and applies a batch
+ * from {@link #appendBatch} only if all of its records made it.
+ */
+public class WriteAheadLog implements MutationLog, Closeable {
+
+    public enum Durability {
+        // Written by the flusher in the background and never forced; a crash may lose recent edits
+        NONE,
+        // Each mutation waits for the next group flush + fsync, shared with concurrent writers
+        GROUP,
+        // Each mutation flushes and forces immediately (concurrent writers still share the fsync)
+        SYNC
+    }
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int PAYLOAD_FIXED_SIZE = 8 + 1 + 4 + 2 + 2;
+    private static final int MAX_NAME_BYTES = Short.MAX_VALUE;
+    private static final long BACKGROUND_FLUSH_MICROS = 50_000;
+    // Set in the type byte of every record of a batch except the last
+    private static final int BATCH_CONTINUES = 0x40;
+
+    private final Path directory;
+    private final Durability durability;
+    // Both only change under flushLock
+    private FileChannel channel;
+    private long segmentStart;
+
+    // Guards the pending buffer and the sequence bookkeeping
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition durableAdvanced = lock.newCondition();
+    private ByteBuffer pending = newBuffer(1 << 16);
+    private ByteBuffer spare = newBuffer(1 << 16);
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean closed;
+    private IOException failure;
+
+    // Serializes channel writes so flushes land in sequence order
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private final CRC32 crc = new CRC32();
+
+    private WriteAheadLog(Path directory, Durability durability, long nextSequence) throws IOException {
+        this.directory = directory;
+        this.durability = durability;
+        this.appendedSequence = nextSequence - 1;
+        this.durableSequence = nextSequence - 1;
+        this.channel = openSegment(nextSequence);
+        this.segmentStart = nextSequence;
+        // SYNC writers flush for themselves; the other levels batch through a background flusher
+        if (durability == Durability.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::runFlusher, "wal-flusher");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    /**
+     * Replays the log in the directory into the manager, then attaches a new log to it.
+     * @param directory Where segments live; created if missing
+     * @param manager The manager to recover and log for
+     * @param durability How hard each mutation waits for the disk
+     * @return The attached log; close it on shutdown
+     * @throws IOException If the directory or a segment cannot be read or created, or the log has a gap
+     */
+    public static WriteAheadLog recover(Path directory, StudentManager manager, Durability durability) throws IOException {
+        Files.createDirectories(directory);
+        replay(directory, manager);
+        WriteAheadLog log = new WriteAheadLog(directory, durability, manager.getVersion() + 1);
+        manager.setMutationLog(log);
+        return log;
+    }
+
+    /**
+     * Applies every logged mutation newer than the manager's version, in sequence order. Replay stops at
+     * the first missing sequence, for example after a corrupt record in the middle of the log, leaving the
+     * manager at the last version before it.
+     * @param directory The segment directory
+     * @param manager The manager to replay into
+     * @return The number of mutations applied
+     * @throws IOException If a segment cannot be read, or records are missing before later ones
+     */
+    public static int replay(Path directory, StudentManager manager) throws IOException {
+        int applied = 0;
+        for (Path segment : listSegments(directory)) {
+            applied += replaySegment(segment, manager);
+        }
+        return applied;
+    }
+
+    public void append(long sequence, Mutation mutation) {
+        byte[] name = encodeName(mutation);
+        lock.lock();
+        try {
+            checkUsable();
+            putRecord(sequence, mutation, name, false);
+            appendedSequence = sequence;
+            if (durability == Durability.GROUP) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a batch in one go. Every record but the last is flagged as continued, and replay applies
+     * a batch only once its last record is read, so a batch torn by a crash is dropped as a whole.
+     */
+    @Override
+    public void appendBatch(long firstSequence, List<Mutation> mutations) {
+        byte[][] names = new byte[mutations.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = encodeName(mutations.get(i));
+        }
+        lock.lock();
+        try {
+            checkUsable();
+            for (int i = 0; i < names.length; i++) {
+                putRecord(firstSequence + i, mutations.get(i), names[i], i < names.length - 1);
+            }
+            if (names.length > 0) {
+                appendedSequence = firstSequence + names.length - 1;
+                if (durability == Durability.GROUP) {
+                    flushRequested.signal();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encodeName(Mutation mutation) {
+        byte[] name = mutation.getName() == null ? new byte[0] : mutation.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name too long to log: " + name.length + " bytes");
+        }
+        return name;
+    }
+
+    // Caller holds lock
+    private void putRecord(long sequence, Mutation mutation, byte[] name, boolean batchContinues) {
+        int payloadSize = PAYLOAD_FIXED_SIZE + name.length;
+        if (pending.remaining() < RECORD_HEADER_SIZE + payloadSize) {
+            pending = grow(pending, RECORD_HEADER_SIZE + payloadSize);
+        }
+        int start = pending.position();
+        int type = mutation.getType().ordinal() | (batchContinues ? BATCH_CONTINUES : 0);
+        pending.putInt(payloadSize).putInt(0)
+               .putLong(sequence)
+               .put((byte) type)
+               .putInt(StudentIdCodec.encode(mutation.getId()))
+               // Lossless: the manager keeps scores rounded to hundredths (StudentManager.roundScore)
+               .putShort((short) ScoreCountingSort.toHundredths(mutation.getScore()))
+               .putShort((short) name.length)
+               .put(name);
+        crc.reset();
+        crc.update(pending.array(), start + RECORD_HEADER_SIZE, payloadSize);
+        pending.putInt(start + 4, (int) crc.getValue());
+    }
+
+    public void awaitDurable(long sequence) {
+        switch (durability) {
+            case NONE -> {
+                // Nothing to wait for
+            }
+            case SYNC -> {
+                if (getDurableSequence() < sequence) {
+                    flush(true);
+                }
+                checkDurable(sequence);
+            }
+            case GROUP -> {
+                lock.lock();
+                try {
+                    while (durableSequence < sequence && failure == null && !closed) {
+                        flushRequested.signal();
+                        durableAdvanced.awaitUninterruptibly();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                checkDurable(sequence);
+            }
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /** Highest sequence known to be written (and forced, unless durability is NONE). */
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one at the next sequence. Everything appended so far
+     * is written and forced into the old segment first, so no record straddles the boundary.
+     * @return The first sequence of the new segment; every earlier sequence lives in older segments
+     * @throws IOException If flushing the old segment or creating the new one fails
+     */
+    public long rotate() throws IOException {
+        flushLock.lock();
+        try {
+            flush(true);
+            long nextSequence;
+            lock.lock();
+            try {
+                checkUsable();
+                // Holding flushLock, nothing else can write; later appends wait in the pending buffer for the new segment
+                nextSequence = durableSequence + 1;
+            } finally {
+                lock.unlock();
+            }
+            if (nextSequence == segmentStart) {
+                return segmentStart; // Current segment is still empty
+            }
+            FileChannel next = openSegment(nextSequence);
+            channel.close();
+            channel = next;
+            segmentStart = nextSequence;
+            return nextSequence;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have sequences at or below the given one, e.g. because a
+     * checkpoint covers them. The current segment is never deleted.
+     * @param sequence The highest sequence that no longer needs to be replayed
+     * @return The number of segments deleted
+     * @throws IOException If a segment cannot be deleted
+     */
+    public int truncateThrough(long sequence) throws IOException {
+        flushLock.lock();
+        try {
+            List<Path> segments = listSegments(directory);
+            int deleted = 0;
+            // A segment ends just before the next one starts; the last one is still being written
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstSequence(segments.get(i + 1)) - 1 > sequence) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+                deleted++;
+            }
+            return deleted;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes out everything appended so far and forces it to disk, whatever the durability level.
+     * @throws UncheckedIOException If the write fails
+     */
+    public void sync() {
+        flush(true);
+        checkDurable(getAppendedSequence());
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushRequested.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush(true);
+        flushLock.lock();
+        try {
+            channel.close();
+        } finally {
+            flushLock.unlock();
+        }
+        lock.lock();
+        try {
+            durableAdvanced.signalAll();
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getAppendedSequence() {
+        lock.lock();
+        try {
+            return appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        long windowNanos = TimeUnit.MICROSECONDS.toNanos(BACKGROUND_FLUSH_MICROS);
+        while (true) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (durability == Durability.NONE) {
+                    // Periodic write-behind; nobody waits on it
+                    flushRequested.awaitNanos(windowNanos);
+                } else if (appendedSequence == durableSequence) {
+                    flushRequested.await();
+                }
+                if (closed) {
+                    return;
+                }
+                if (appendedSequence == durableSequence) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            // No artificial delay: whatever is appended while this fsync runs forms the next group
+            flush(durability == Durability.GROUP);
+        }
+    }
+
+    // Writes the pending buffer and optionally forces it; concurrent callers queue on flushLock
+    private void flush(boolean force) {
+        flushLock.lock();
+        try {
+            ByteBuffer batch;
+            long batchSequence;
+            lock.lock();
+            try {
+                if (failure != null || !channel.isOpen()) {
+                    return;
+                }
+                batch = pending;
+                batchSequence = appendedSequence;
+                pending = spare.clear();
+                spare = batch;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    durableAdvanced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            lock.lock();
+            try {
+                durableSequence = Math.max(durableSequence, batchSequence);
+                durableAdvanced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+    }
+
+    private void checkDurable(long sequence) {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new UncheckedIOException("Write-ahead log failed", failure);
+            }
+            if (durableSequence < sequence && closed) {
+                throw new IllegalStateException("Write-ahead log closed before sequence " + sequence + " was durable");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        // A segment with this name can only hold records that never became valid, so it is safe to truncate
+        return FileChannel.open(segmentPath(directory, firstSequence), StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> {
+                     String name = file.getFileName().toString();
+                     return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                 })
+                 .sorted() // Zero-padded first sequences sort numerically
+                 .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static int replaySegment(Path segment, StudentManager manager) throws IOException {
+        int applied = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = newBuffer((int) Math.min(Integer.MAX_VALUE - 8, Math.max(RECORD_HEADER_SIZE, in.size())));
+            while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                // Read the whole segment; segments are bounded by rotation
+            }
+            buffer.flip();
+            CRC32 checksum = new CRC32();
+            List<Long> batchSequences = new ArrayList<>();
+            List<Mutation> batch = new ArrayList<>();
+            while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+                int payloadSize = buffer.getInt();
+                int expectedCrc = buffer.getInt();
+                if (payloadSize < PAYLOAD_FIXED_SIZE || payloadSize > buffer.remaining()) {
+                    break; // Torn write at the tail
+                }
+                checksum.reset();
+                checksum.update(buffer.array(), buffer.position(), payloadSize);
+                if ((int) checksum.getValue() != expectedCrc) {
+                    break; // Corrupt record: nothing after it in this segment can be trusted
+                }
+                long sequence = buffer.getLong();
+                int typeByte = buffer.get();
+                Mutation.Type type = Mutation.Type.values()[typeByte & ~BATCH_CONTINUES];
+                String id = StudentIdCodec.decode(buffer.getInt());
+                double score = buffer.getShort() / 100.0;
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                batchSequences.add(sequence);
+                batch.add(Mutation.of(type, id, new String(name, StandardCharsets.UTF_8), score));
+                if ((typeByte & BATCH_CONTINUES) != 0) {
+                    continue; // Applied with the rest of its batch, or not at all
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        if (manager.replay(batchSequences.get(i), batch.get(i))) {
+                            applied++;
+                        }
+                    } catch (IllegalStateException e) {
+                        throw new StreamCorruptedException(segment.getFileName() + ": " + e.getMessage()
+                                                           + "; records from there on were not applied");
+                    }
+                }
+                batchSequences.clear();
+                batch.clear();
+            }
+        }
+        return applied;
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer grown = newBuffer(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
@@ -0,0 +1,355 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typo-tolerant lookup of name parts: finds the distinct lower-cased name parts within a few edits of a
+ * query term. Students are then found through the {@link NameIndex} postings of the matching parts.
+ * <p>
+ * Each part is split into trigrams after padding both ends ({@code jon} gives {@code _jo}, {@code jon} and
+ * {@code on_}, with _ standing for the padding), and every trigram keeps a bitmap of the parts containing
+ * it. One edit changes at most four of a term's trigrams (a swap of neighbours), so a part within d edits
+ * shares at least {@code trigrams - 4d} of them with the query; counting shared trigrams narrows the
+ * vocabulary down to a few candidates, which are then checked with a bounded edit distance. Terms too short
+ * for the count to rule anything out are checked against every part of a similar length instead.
+ * <p>
+ * The index is per distinct part with reference counts, so adding, renaming or deleting a student touches
+ * only the trigrams of parts that appear or disappear. The trigram postings are held to a memory budget:
+ * over it, the trigrams shared by the most parts, which narrow the search least, are dropped and queries
+ * count around them. Not thread-safe; the manager guards it with its lock.
+ */
+public final class FuzzyNameIndex {
+    /** Budget for the trigram postings unless set otherwise. */
+    public static final long DEFAULT_MEMORY_BUDGET = 8L << 20;
+
+    private static final char PAD = '\0';
+    private static final int EDIT_TRIGRAMS = 4;     // Trigrams one edit can change
+    private static final int MAX_LENGTH_BUCKET = 32; // Longer parts share the last length bucket
+    private static final int GRAM_OVERHEAD = 96;     // Map entry, boxed key and bitmap per trigram, in bytes
+    private static final int POSTING_BYTES = 2;      // Per part in an array chunk of a bitmap
+
+    /** A name part and its edit distance from the query term. */
+    public record Match(String term, int distance) {
+    }
+
+    // Vocabulary: ids are reused once a part's last student is gone
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private String[] terms = new String[64];
+    private int[] references = new int[64];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int nextId;
+
+    private final Map<Integer, StudentBitmap> grams = new HashMap<>(); // Trigram to ids of the parts containing it
+    private final Set<Integer> droppedGrams = new HashSet<>();         // Shed to stay in budget; never indexed
+    private final StudentBitmap[] byLength = new StudentBitmap[MAX_LENGTH_BUCKET + 1];
+    private long gramBytes;
+    private long memoryBudget;
+
+    public FuzzyNameIndex() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+
+    public FuzzyNameIndex(long memoryBudget) {
+        setMemoryBudget(memoryBudget);
+    }
+
+    /** Edits allowed for a query term: none up to 2 letters, one up to 5, two beyond. */
+    public static int maxDistance(String term) {
+        return term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2;
+    }
+
+    // Updates
+
+    /** Indexes the parts of one more student's name. */
+    public void add(String name) {
+        for (String part : StudentManager.nameParts(name)) {
+            Integer id = termIds.get(part);
+            if (id != null) {
+                references[id]++;
+                continue;
+            }
+            int newId = allocate(part);
+            termIds.put(part, newId);
+            lengthBucket(part.length(), true).add(newId);
+            for (int gram : gramsOf(part)) {
+                if (!droppedGrams.contains(gram)) {
+                    StudentBitmap postings = grams.get(gram);
+                    if (postings == null) {
+                        postings = new StudentBitmap();
+                        grams.put(gram, postings);
+                        gramBytes += GRAM_OVERHEAD;
+                    }
+                    postings.add(newId);
+                    gramBytes += POSTING_BYTES;
+                }
+            }
+        }
+        if (gramBytes > memoryBudget) {
+            shed();
+        }
+    }
+
+    /** Removes the parts of a name added before; parts no other student has leave the index. */
+    public void remove(String name) {
+        for (String part : StudentManager.nameParts(name)) {
+            Integer id = termIds.get(part);
+            if (id == null || --references[id] > 0) {
+                continue;
+            }
+            termIds.remove(part);
+            lengthBucket(part.length(), true).remove(id);
+            for (int gram : gramsOf(part)) {
+                StudentBitmap postings = grams.get(gram);
+                if (postings != null && postings.remove(id)) {
+                    gramBytes -= POSTING_BYTES;
+                    if (postings.isEmpty()) {
+                        grams.remove(gram);
+                        gramBytes -= GRAM_OVERHEAD;
+                    }
+                }
+            }
+            release(id);
+        }
+    }
+
+    public void clear() {
+        termIds.clear();
+        Arrays.fill(terms, null);
+        Arrays.fill(references, 0);
+        freeCount = 0;
+        nextId = 0;
+        grams.clear();
+        droppedGrams.clear();
+        Arrays.fill(byLength, null);
+        gramBytes = 0;
+    }
+
+    private int allocate(String part) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            id = nextId++;
+            if (id == terms.length) {
+                terms = Arrays.copyOf(terms, id * 2);
+                references = Arrays.copyOf(references, id * 2);
+            }
+        }
+        terms[id] = part;
+        references[id] = 1;
+        return id;
+    }
+
+    private void release(int id) {
+        terms[id] = null;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    private StudentBitmap lengthBucket(int length, boolean create) {
+        int bucket = Math.min(length, MAX_LENGTH_BUCKET);
+        if (byLength[bucket] == null && create) {
+            byLength[bucket] = new StudentBitmap();
+        }
+        return byLength[bucket];
+    }
+
+    // Drops the trigrams with the longest postings until a quarter of the budget is free again
+    private void shed() {
+        List<Map.Entry<Integer, StudentBitmap>> entries = new ArrayList<>(grams.entrySet());
+        entries.sort((a, b) -> Integer.compare(b.getValue().cardinality(), a.getValue().cardinality()));
+        long target = memoryBudget - memoryBudget / 4;
+        for (Map.Entry<Integer, StudentBitmap> entry : entries) {
+            if (gramBytes <= target) {
+                break;
+            }
+            gramBytes -= GRAM_OVERHEAD + (long) entry.getValue().cardinality() * POSTING_BYTES;
+            grams.remove(entry.getKey());
+            droppedGrams.add(entry.getKey());
+        }
+    }
+
+    /**
+     * Caps the memory of the trigram postings; the vocabulary itself is not counted. A smaller budget makes
+     * queries on common trigrams check more candidates. Re-indexes every part, so shed trigrams come back
+     * if the new budget has room for them.
+     * @throws IllegalArgumentException If the budget is negative
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative: " + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        grams.clear();
+        droppedGrams.clear();
+        gramBytes = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (terms[id] != null) {
+                for (int gram : gramsOf(terms[id])) {
+                    grams.computeIfAbsent(gram, _ -> new StudentBitmap()).add(id);
+                }
+            }
+        }
+        for (StudentBitmap postings : grams.values()) {
+            gramBytes += GRAM_OVERHEAD + (long) postings.cardinality() * POSTING_BYTES;
+        }
+        if (gramBytes > memoryBudget) {
+            shed();
+        }
+    }
+
+    // Queries
+
+    /**
+     * The indexed parts within maxDistance edits of the term (insertions, deletions, substitutions and
+     * swaps of neighbouring letters), in no particular order.
+     * @param term A lower-cased name part
+     */
+    public List<Match> matches(String term, int maxDistance) {
+        List<Match> result = new ArrayList<>();
+        int[] termGrams = gramsOf(term);
+        int counted = 0;
+        for (int gram : termGrams) {
+            if (!droppedGrams.contains(gram)) {
+                counted++;
+            }
+        }
+        // Shared trigrams a match must have; shed ones cannot be counted
+        int needed = termGrams.length - EDIT_TRIGRAMS * maxDistance - (termGrams.length - counted);
+        if (needed <= 0) {
+            for (int length = Math.max(0, term.length() - maxDistance); length <= term.length() + maxDistance; length++) {
+                StudentBitmap ids = lengthBucket(length, false);
+                if (ids != null) {
+                    ids.forEach(id -> verify(term, terms[id], maxDistance, result));
+                }
+                if (length >= MAX_LENGTH_BUCKET) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        int[] shared = new int[nextId];
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (int gram : termGrams) {
+            StudentBitmap postings = grams.get(gram);
+            if (postings == null) {
+                continue;
+            }
+            for (var ids = postings.iterator(); ids.hasNext(); ) {
+                int id = ids.nextInt();
+                if (shared[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            int id = touched[i];
+            if (shared[id] >= needed && Math.abs(terms[id].length() - term.length()) <= maxDistance) {
+                verify(term, terms[id], maxDistance, result);
+            }
+        }
+        return result;
+    }
+
+    private static void verify(String term, String candidate, int maxDistance, List<Match> result) {
+        int distance = distance(term, candidate, maxDistance);
+        if (distance <= maxDistance) {
+            result.add(new Match(candidate, distance));
+        }
+    }
+
+    /**
+     * Edit distance counting a swap of neighbouring letters as one edit (optimal string alignment),
+     * giving up early once it must exceed max.
+     * @return The distance, or max + 1 if it is larger than max
+     */
+    public static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        int[] beforePrevious = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    // Distinct trigram keys of the padded part; keys may collide, which only adds candidates to verify
+    private static int[] gramsOf(String part) {
+        String padded = PAD + part + PAD;
+        int[] keys = new int[padded.length() - 2];
+        int count = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            int key = (padded.charAt(i) * 31 + padded.charAt(i + 1)) * 31 + padded.charAt(i + 2);
+            boolean seen = false;
+            for (int j = 0; j < count && !seen; j++) {
+                seen = keys[j] == key;
+            }
+            if (!seen) {
+                keys[count++] = key;
+            }
+        }
+        return count == keys.length ? keys : Arrays.copyOf(keys, count);
+    }
+
+    public int getTermCount() {
+        return termIds.size();
+    }
+
+    public int getGramCount() {
+        return grams.size();
+    }
+
+    public int getDroppedGramCount() {
+        return droppedGrams.size();
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /** Estimated bytes held by the trigram postings, the part the budget governs. */
+    public long getEstimatedBytes() {
+        return gramBytes;
+    }
+}
@@ -0,0 +1,184 @@
+package model;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Introspective sort: quicksort with median-of-three (ninther) pivot selection and three-way
+ * (Bentley-McIlroy) partitioning, an insertion-sort cutoff for small ranges and a heapsort
+ * fallback once the recursion depth exceeds 2*log2(n).
+ * Worst case is O(n log n), equal keys are handled in linear time and the stack depth
+ * is bounded by O(log n) because only the smaller partition is recursed into.
+ */
+public class IntroSortEngine implements SortEngine {
+    // Ranges at or below this size are finished with insertion sort
+    private static final int INSERTION_SORT_THRESHOLD = 24;
+    // Ranges above this size pick the pivot with Tukey's ninther
+    private static final int NINTHER_THRESHOLD = 128;
+
+    @Override
+    public <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        Object[] array = list.toArray();
+        sort(array, 0, array.length, comparator);
+
+        // Write back through the iterator so any List implementation works in O(n)
+        ListIterator<T> iterator = list.listIterator();
+        for (Object element : array) {
+            iterator.next();
+            iterator.set(cast(element));
+        }
+    }
+
+    /**
+     * Sorts the range [from, to) of an array in place.
+     * @param array The array to sort
+     * @param from The first index (inclusive)
+     * @param to The last index (exclusive)
+     * @param comparator The ordering to apply
+     */
+    public <T> void sort(Object[] array, int from, int to, Comparator<? super T> comparator) {
+        int size = to - from;
+        if (size < 2) {
+            return;
+        }
+        int depthLimit = 2 * (31 - Integer.numberOfLeadingZeros(size));
+        introSort(array, from, to, depthLimit, comparator);
+    }
+
+    @Override
+    public String getName() {
+        return "Introsort";
+    }
+
+    private <T> void introSort(Object[] a, int low, int high, int depthLimit, Comparator<? super T> c) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(a, low, high, c);
+                return;
+            }
+            depthLimit--;
+
+            // Median-of-three, or Tukey's ninther (median of three medians) for large ranges
+            int hi = high - 1;
+            int mid = low + ((high - low) >>> 1);
+            int pivotIndex;
+            if (high - low > NINTHER_THRESHOLD) {
+                int eighth = (high - low) >>> 3;
+                pivotIndex = medianOfThree(a,
+                        medianOfThree(a, low, low + eighth, low + 2 * eighth, c),
+                        medianOfThree(a, mid - eighth, mid, mid + eighth, c),
+                        medianOfThree(a, hi - 2 * eighth, hi - eighth, hi, c), c);
+            } else {
+                pivotIndex = medianOfThree(a, low, mid, hi, c);
+            }
+            swap(a, low, pivotIndex);
+            T pivot = cast(a[low]);
+
+            // Bentley-McIlroy three-way partition: keys equal to the pivot are parked at both
+            // ends while scanning, then swapped into the middle so they are never revisited
+            int i = low;
+            int j = hi + 1;
+            int p = low;
+            int q = hi + 1;
+            while (true) {
+                while (c.compare(cast(a[++i]), pivot) < 0) {
+                    if (i == hi) break;
+                }
+                while (c.compare(pivot, cast(a[--j])) < 0) {
+                    if (j == low) break;
+                }
+                if (i == j && c.compare(cast(a[i]), pivot) == 0) {
+                    swap(a, ++p, i);
+                }
+                if (i >= j) break;
+                swap(a, i, j);
+                if (c.compare(cast(a[i]), pivot) == 0) swap(a, ++p, i);
+                if (c.compare(cast(a[j]), pivot) == 0) swap(a, --q, j);
+            }
+            i = j + 1;
+            for (int k = low; k <= p; k++) {
+                swap(a, k, j--);
+            }
+            for (int k = hi; k >= q; k--) {
+                swap(a, k, i++);
+            }
+
+            // Now [low, j] < pivot, (j, i) == pivot, [i, hi] > pivot.
+            // Recurse into the smaller side, loop on the larger one
+            if (j + 1 - low < high - i) {
+                introSort(a, low, j + 1, depthLimit, c);
+                low = i;
+            } else {
+                introSort(a, i, high, depthLimit, c);
+                high = j + 1;
+            }
+        }
+        insertionSort(a, low, high, c);
+    }
+
+    private <T> int medianOfThree(Object[] a, int i, int j, int k, Comparator<? super T> c) {
+        T x = cast(a[i]);
+        T y = cast(a[j]);
+        T z = cast(a[k]);
+        if (c.compare(x, y) < 0) {
+            if (c.compare(y, z) < 0) return j;
+            return c.compare(x, z) < 0 ? k : i;
+        }
+        if (c.compare(x, z) < 0) return i;
+        return c.compare(y, z) < 0 ? k : j;
+    }
+
+    private <T> void insertionSort(Object[] a, int low, int high, Comparator<? super T> c) {
+        for (int i = low + 1; i < high; i++) {
+            Object current = a[i];
+            int j = i - 1;
+            while (j >= low && c.compare(cast(a[j]), cast(current)) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = current;
+        }
+    }
+
+    private <T> void heapSort(Object[] a, int low, int high, Comparator<? super T> c) {
+        int size = high - low;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(a, low, i, size, c);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(a, low, low + end);
+            siftDown(a, low, 0, end, c);
+        }
+    }
+
+    private <T> void siftDown(Object[] a, int offset, int index, int size, Comparator<? super T> c) {
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && c.compare(cast(a[offset + left]), cast(a[offset + largest])) > 0) {
+                largest = left;
+            }
+            if (right < size && c.compare(cast(a[offset + right]), cast(a[offset + largest])) > 0) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(a, offset + index, offset + largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(Object[] a, int i, int j) {
+        Object temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object element) {
+        return (T) element;
+    }
+}
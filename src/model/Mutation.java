@@ -0,0 +1,67 @@
+package model;
+
+/**
+ * One roster change as recorded in the mutation log: an add, an update or a delete of a student.
+ * Deletes carry only the ID.
+ */
+public final class Mutation {
+    public enum Type {
+        ADD, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final String id;
+    private final String name;
+    private final double score;
+
+    private Mutation(Type type, String id, String name, double score) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.score = score;
+    }
+
+    public static Mutation add(Student student) {
+        return new Mutation(Type.ADD, student.getId(), student.getName(), student.getScore());
+    }
+
+    public static Mutation update(Student student) {
+        return new Mutation(Type.UPDATE, student.getId(), student.getName(), student.getScore());
+    }
+
+    public static Mutation delete(String id) {
+        return new Mutation(Type.DELETE, id, null, 0.0);
+    }
+
+    public static Mutation of(Type type, String id, String name, double score) {
+        return type == Type.DELETE ? delete(id) : new Mutation(type, id, name, score);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** The new name; null for deletes. */
+    public String getName() {
+        return name;
+    }
+
+    /** The new score; 0 for deletes. */
+    public double getScore() {
+        return score;
+    }
+
+    /** The student this mutation writes; null for deletes. */
+    public Student toStudent() {
+        return type == Type.DELETE ? null : new Student(id, name, score);
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.DELETE ? "DELETE " + id : type + " " + id + " " + name + " " + score;
+    }
+}
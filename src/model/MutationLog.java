@@ -0,0 +1,36 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Durable record of roster mutations, written ahead of the in-memory change.
+ * StudentManager appends while holding its write lock, so appends arrive in sequence order
+ * and must be cheap (buffering only); waiting for durability happens after the lock is released.
+ */
+public interface MutationLog {
+
+    /**
+     * Records a mutation. Called before the mutation is applied; if this throws, it is not applied.
+     * @param sequence The roster version the mutation produces
+     * @param mutation The change to record
+     */
+    void append(long sequence, Mutation mutation);
+
+    /**
+     * Records the mutations of an atomic batch, which take consecutive sequences. Implementations that
+     * can should make the batch all-or-nothing on recovery; either way, if this throws, nothing is applied.
+     * @param firstSequence The roster version the first mutation produces
+     * @param mutations The batch, in order
+     */
+    default void appendBatch(long firstSequence, List<Mutation> mutations) {
+        for (int i = 0; i < mutations.size(); i++) {
+            append(firstSequence + i, mutations.get(i));
+        }
+    }
+
+    /**
+     * Blocks until every mutation up to the given sequence is as durable as the log is configured to make it.
+     * @param sequence The sequence to wait for
+     */
+    void awaitDurable(long sequence);
+}
@@ -0,0 +1,418 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Name-part index keyed by student ID code ({@link StudentIdCodec}) rather than by student object.
+ * <p>
+ * The bulk of it is frozen: the distinct lower-cased name parts in one sorted array, and for each part
+ * an int posting per student that packs the score and the ID code, sorted best score first. A prefix is
+ * a contiguous run of parts found by binary search, and the best k students for a prefix come from
+ * merging the heads of those runs. Changes since the freeze go to a small overlay that overrides the
+ * frozen postings of the students it holds; once the overlay grows past a fraction of the frozen index
+ * the owner rebuilds the frozen part from a snapshot, off the writer's thread, and {@link #install}s it.
+ * <p>
+ * Not thread-safe: the owner serializes changes and keeps readers out while it makes them.
+ */
+public final class NameIndex {
+    // A posting is (MAX_HUNDREDTHS - hundredths) << CODE_BITS | code, so ascending order is best score, then ID
+    private static final int CODE_BITS = 17;
+    private static final int CODE_MASK = (1 << CODE_BITS) - 1;
+    private static final int MAX_HUNDREDTHS = ScoreCountingSort.BUCKET_COUNT - 1;
+
+    // The overlay may hold this many students, or one in OVERLAY_FRACTION of the frozen ones, before a rebuild
+    private static final int MIN_OVERLAY_LIMIT = 1024;
+    private static final int OVERLAY_FRACTION = 8;
+
+    /** An immutable frozen index; build it with {@link #freeze} without holding any lock. */
+    static final class Frozen {
+        private final String[] terms;  // Sorted, distinct
+        private final int[] starts;    // Postings of terms[t] are postings[starts[t]] until starts[t + 1]
+        private final int[] postings;
+        private final int studentCount;
+        private final long version;    // Covers every change made before this roster version
+
+        private Frozen(String[] terms, int[] starts, int[] postings, int studentCount, long version) {
+            this.terms = terms;
+            this.starts = starts;
+            this.postings = postings;
+            this.studentCount = studentCount;
+            this.version = version;
+        }
+
+        long getVersion() {
+            return version;
+        }
+    }
+
+    // A student changed since the freeze; name is null once it was removed
+    private static final class Change {
+        String name;
+        long stamp;
+    }
+
+    private Frozen frozen = freeze(List.of(), 0);
+    private final Map<Integer, Change> overlay = new HashMap<>();
+    private final BitSet overlaid = new BitSet(); // Codes in the overlay, checked per frozen posting
+    private final NavigableMap<String, Set<Integer>> overlayTerms = new TreeMap<>();
+
+    /** Builds an index over these students, e.g. for a one-off benchmark. */
+    public static NameIndex of(Collection<Student> students) {
+        NameIndex index = new NameIndex();
+        index.frozen = freeze(students, 0);
+        return index;
+    }
+
+    /**
+     * Builds the frozen part from a consistent view of the roster. Runs without touching any index.
+     * @param students The whole roster at the version
+     * @param version The roster version the students were read at
+     */
+    static Frozen freeze(Collection<Student> students, long version) {
+        // Number the distinct parts as they come, remembering a (term, posting) pair per part
+        Map<String, Integer> termIds = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] pairTerms = new int[students.size() * 3 + 16];
+        int[] pairPostings = new int[pairTerms.length];
+        int pairCount = 0;
+        for (Student student : students) {
+            int posting = posting(StudentIdCodec.encode(student.getId()), student.getScore());
+            for (String part : StudentManager.nameParts(student.getName())) {
+                Integer termId = termIds.get(part);
+                if (termId == null) {
+                    termId = distinct.size();
+                    termIds.put(part, termId);
+                    distinct.add(part);
+                }
+                if (pairCount == pairTerms.length) {
+                    pairTerms = Arrays.copyOf(pairTerms, pairCount * 2);
+                    pairPostings = Arrays.copyOf(pairPostings, pairCount * 2);
+                }
+                pairTerms[pairCount] = termId;
+                pairPostings[pairCount++] = posting;
+            }
+        }
+
+        // Sort the distinct parts once, then bucket the pairs by sorted position (a counting sort)
+        String[] terms = distinct.toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] rank = new int[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            rank[termIds.get(terms[t])] = t;
+        }
+        int[] starts = new int[terms.length + 1];
+        for (int i = 0; i < pairCount; i++) {
+            starts[rank[pairTerms[i]] + 1]++;
+        }
+        for (int t = 0; t < terms.length; t++) {
+            starts[t + 1] += starts[t];
+        }
+        int[] postings = new int[pairCount];
+        int[] next = Arrays.copyOf(starts, terms.length);
+        for (int i = 0; i < pairCount; i++) {
+            postings[next[rank[pairTerms[i]]]++] = pairPostings[i];
+        }
+
+        // Sort each term's postings and drop repeats ("Anh Anh" lists the part twice)
+        int written = 0;
+        for (int t = 0; t < terms.length; t++) {
+            int from = starts[t];
+            int to = starts[t + 1];
+            Arrays.sort(postings, from, to);
+            starts[t] = written;
+            for (int i = from; i < to; i++) {
+                if (i == from || postings[i] != postings[i - 1]) {
+                    postings[written++] = postings[i];
+                }
+            }
+        }
+        starts[terms.length] = written;
+        return new Frozen(terms, starts, written == postings.length ? postings : Arrays.copyOf(postings, written),
+                          students.size(), version);
+    }
+
+    // Package-private so other best-score-first orders can share the key
+    static int posting(int code, double score) {
+        return (MAX_HUNDREDTHS - ScoreCountingSort.toHundredths(score)) << CODE_BITS | code;
+    }
+
+    static int codeOf(int posting) {
+        return posting & CODE_MASK;
+    }
+
+    // Changes: the stamp is the roster version the change was made on top of
+
+    void put(int code, String name, long stamp) {
+        Change change = unindex(code);
+        change.name = name;
+        change.stamp = stamp;
+        for (String part : StudentManager.nameParts(name)) {
+            overlayTerms.computeIfAbsent(part, _ -> new HashSet<>()).add(code);
+        }
+    }
+
+    void remove(int code, long stamp) {
+        Change change = unindex(code);
+        change.name = null;
+        change.stamp = stamp;
+    }
+
+    // The code's overlay entry with its current parts taken out of overlayTerms
+    private Change unindex(int code) {
+        Change change = overlay.get(code);
+        if (change == null) {
+            change = new Change();
+            overlay.put(code, change);
+            overlaid.set(code);
+        } else if (change.name != null) {
+            for (String part : StudentManager.nameParts(change.name)) {
+                Set<Integer> codes = overlayTerms.get(part);
+                if (codes != null && codes.remove(code) && codes.isEmpty()) {
+                    overlayTerms.remove(part);
+                }
+            }
+        }
+        return change;
+    }
+
+    /** True once the overlay is large enough that a rebuild would pay off. */
+    boolean needsCompaction() {
+        return overlay.size() > Math.max(MIN_OVERLAY_LIMIT, frozen.studentCount / OVERLAY_FRACTION);
+    }
+
+    /**
+     * Replaces the frozen part with one built from a snapshot, keeping the changes made after it.
+     * @return false if the index already covers a later version
+     */
+    boolean install(Frozen rebuilt) {
+        if (rebuilt.version <= frozen.version) {
+            return false;
+        }
+        frozen = rebuilt;
+        List<Map.Entry<Integer, Change>> newer = new ArrayList<>();
+        for (Map.Entry<Integer, Change> entry : overlay.entrySet()) {
+            if (entry.getValue().stamp >= rebuilt.version) {
+                newer.add(entry);
+            }
+        }
+        overlay.clear();
+        overlaid.clear();
+        overlayTerms.clear();
+        for (Map.Entry<Integer, Change> entry : newer) {
+            Change change = entry.getValue();
+            if (change.name != null) {
+                put(entry.getKey(), change.name, change.stamp);
+            } else {
+                remove(entry.getKey(), change.stamp);
+            }
+        }
+        return true;
+    }
+
+    /** Replaces the whole index with one built from the complete roster; the overlay is dropped. */
+    void reset(Frozen rebuilt) {
+        frozen = rebuilt;
+        overlay.clear();
+        overlaid.clear();
+        overlayTerms.clear();
+    }
+
+    // Queries
+
+    /** Passes the code of every student with this exact name part. */
+    public void forEachExact(String term, IntConsumer action) {
+        Frozen index = frozen;
+        int t = Arrays.binarySearch(index.terms, term);
+        if (t >= 0) {
+            emitPostings(index, t, action);
+        }
+        Set<Integer> codes = overlayTerms.get(term);
+        if (codes != null) {
+            codes.forEach(action::accept);
+        }
+    }
+
+    /** Passes the code of every student with a name part starting with the prefix; a code may come more than once. */
+    public void forEachPrefix(String prefix, IntConsumer action) {
+        Frozen index = frozen;
+        for (int t = firstTerm(index, prefix); t < index.terms.length && index.terms[t].startsWith(prefix); t++) {
+            emitPostings(index, t, action);
+        }
+        for (Set<Integer> codes : overlayRange(prefix).values()) {
+            codes.forEach(action::accept);
+        }
+    }
+
+    /** Postings under the prefix, counted without listing them; an upper bound, as a student may be counted more than once. */
+    public int estimatePrefix(String prefix) {
+        Frozen index = frozen;
+        int count = index.starts[firstTerm(index, prefix + Character.MAX_VALUE)] - index.starts[firstTerm(index, prefix)];
+        for (Set<Integer> codes : overlayRange(prefix).values()) {
+            count += codes.size();
+        }
+        return count;
+    }
+
+    public StudentBitmap exactMatches(String term) {
+        StudentBitmap matches = new StudentBitmap();
+        forEachExact(term, matches::add);
+        return matches;
+    }
+
+    public StudentBitmap prefixMatches(String prefix) {
+        StudentBitmap matches = new StudentBitmap();
+        forEachPrefix(prefix, matches::add);
+        return matches;
+    }
+
+    private void emitPostings(Frozen index, int t, IntConsumer action) {
+        for (int i = index.starts[t]; i < index.starts[t + 1]; i++) {
+            int code = index.postings[i] & CODE_MASK;
+            if (!overlaid.get(code)) {
+                action.accept(code);
+            }
+        }
+    }
+
+    /**
+     * The k students with the highest score among those with a name part starting with the prefix, ties by ID.
+     * @param resolver Maps a code to the current student; must find every indexed code
+     * @param filter Further condition on the students, or null; rejected ones do not count towards k
+     */
+    public List<Student> top(String prefix, int k, IntFunction<Student> resolver, Predicate<Student> filter) {
+        List<Student> result = new ArrayList<>(Math.min(k, 64));
+        if (k <= 0) {
+            return result;
+        }
+        // Overlay candidates, best first; there are few of them
+        Set<Integer> changedCodes = new HashSet<>();
+        for (Set<Integer> codes : overlayRange(prefix).values()) {
+            changedCodes.addAll(codes);
+        }
+        int[] changed = new int[changedCodes.size()];
+        int changedCount = 0;
+        for (int code : changedCodes) {
+            changed[changedCount++] = posting(code, resolver.apply(code).getScore());
+        }
+        Arrays.sort(changed);
+
+        // Merge the heads of the frozen runs in the prefix range through a min-heap of term positions
+        Frozen index = frozen;
+        int firstTerm = firstTerm(index, prefix);
+        int lastTerm = firstTerm;
+        while (lastTerm < index.terms.length && index.terms[lastTerm].startsWith(prefix)) {
+            lastTerm++;
+        }
+        int[] heap = new int[lastTerm - firstTerm]; // Positions in postings
+        int[] ends = new int[heap.length];
+        int heapSize = 0;
+        for (int t = firstTerm; t < lastTerm; t++) {
+            if (index.starts[t] < index.starts[t + 1]) {
+                heap[heapSize] = index.starts[t];
+                ends[heapSize] = index.starts[t + 1];
+                heapSize++;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(index.postings, heap, ends, heapSize, i);
+        }
+
+        int nextChanged = 0;
+        int lastPosting = -1;
+        while (result.size() < k) {
+            // Skip frozen postings overridden by the overlay, and repeats (a student matching through several parts)
+            while (heapSize > 0) {
+                int head = index.postings[heap[0]];
+                if (head != lastPosting && !overlaid.get(head & CODE_MASK)) {
+                    break;
+                }
+                heapSize = advanceHead(index.postings, heap, ends, heapSize);
+            }
+            int chosen;
+            if (nextChanged < changedCount && (heapSize == 0 || changed[nextChanged] < index.postings[heap[0]])) {
+                chosen = changed[nextChanged++];
+            } else if (heapSize > 0) {
+                chosen = index.postings[heap[0]];
+                heapSize = advanceHead(index.postings, heap, ends, heapSize);
+            } else {
+                break;
+            }
+            lastPosting = chosen;
+            Student student = resolver.apply(chosen & CODE_MASK);
+            if (filter == null || filter.test(student)) {
+                result.add(student);
+            }
+        }
+        return result;
+    }
+
+    // Moves the head run to its next posting, dropping the run when it is used up; returns the new heap size
+    private static int advanceHead(int[] postings, int[] heap, int[] ends, int size) {
+        if (++heap[0] == ends[0]) {
+            size--;
+            heap[0] = heap[size];
+            ends[0] = ends[size];
+        }
+        siftDown(postings, heap, ends, size, 0);
+        return size;
+    }
+
+    private static void siftDown(int[] postings, int[] heap, int[] ends, int size, int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && postings[heap[left]] < postings[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && postings[heap[right]] < postings[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            int position = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = position;
+            int end = ends[i];
+            ends[i] = ends[smallest];
+            ends[smallest] = end;
+            i = smallest;
+        }
+    }
+
+    private NavigableMap<String, Set<Integer>> overlayRange(String prefix) {
+        return overlayTerms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // First term not below the prefix
+    private static int firstTerm(Frozen index, String prefix) {
+        int t = Arrays.binarySearch(index.terms, prefix);
+        return t >= 0 ? t : -t - 1;
+    }
+
+    public int getTermCount() {
+        return frozen.terms.length + overlayTerms.size();
+    }
+
+    public int getOverlaySize() {
+        return overlay.size();
+    }
+
+    public long getFrozenVersion() {
+        return frozen.version;
+    }
+}
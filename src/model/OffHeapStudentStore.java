@@ -0,0 +1,405 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Student storage kept outside the Java heap in direct buffers, so the garbage collector never
+ * traces the records and pause times do not grow with the roster.
+ * Records are fixed 16-byte slots (ID code, score in hundredths, rank, name offset and length);
+ * names live as UTF-8 in a separate region, and the ID-to-slot table is off-heap as well.
+ * Deleted slots form a free list threaded through the slots themselves. Only a few small
+ * fixed-size arrays (score histogram, rank counters) live on the heap.
+ * <p>
+ * Like {@link StudentStore}, this is a layout for the GC pause comparison in the performance panel, not
+ * the application's roster; StudentManager does not delegate to it.
+ */
+public class OffHeapStudentStore implements StudentStorage {
+    // Record layout
+    private static final int RECORD_SIZE = 16;
+    private static final int ID_OFFSET = 0;            // int: ID code, EMPTY when the slot is free
+    private static final int SCORE_OFFSET = 4;         // short: score in hundredths
+    private static final int RANK_OFFSET = 6;          // byte: Rank ordinal
+    private static final int NAME_OFFSET = 8;          // int: name start in the name region (next free slot when free)
+    private static final int NAME_LENGTH_OFFSET = 12;  // int: name length in bytes
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_NAMES_TO_COMPACT = 1 << 16;
+    private static final Rank[] RANKS = Rank.values();
+
+    private ByteBuffer records;
+    private ByteBuffer names;
+    private final ByteBuffer slotById;
+
+    private int slotCount;
+    private int freeHead = EMPTY;
+    private int size;
+    private int namesUsed;
+    private int namesLive;
+
+    private final int[] histogram = new int[ScoreCountingSort.BUCKET_COUNT];
+    private final int[] rankCounts = new int[RANKS.length];
+    private long scoreSumHundredths;
+    private long version;
+
+    private final StampedLock lock = new StampedLock();
+
+    public OffHeapStudentStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public OffHeapStudentStore(int initialCapacity) {
+        int capacity = Math.max(INITIAL_CAPACITY, initialCapacity);
+        records = allocate((long) capacity * RECORD_SIZE);
+        names = allocate((long) capacity * 16);
+        slotById = allocate((long) (StudentIdCodec.MAX_ID + 1) * Integer.BYTES);
+        for (int code = 0; code <= StudentIdCodec.MAX_ID; code++) {
+            slotById.putInt(code * Integer.BYTES, EMPTY);
+        }
+    }
+
+    /**
+     * Flyweight over one record. A view is only meaningful until the store is next modified;
+     * use {@link #toStudent()} to keep a detached copy.
+     */
+    public final class View {
+        private int slot = EMPTY;
+
+        private View() {
+        }
+
+        public int getIdCode() {
+            return idAt(slot);
+        }
+
+        public String getId() {
+            return StudentIdCodec.decode(idAt(slot));
+        }
+
+        public String getName() {
+            return nameAt(slot);
+        }
+
+        public int getScoreHundredths() {
+            return scoreAt(slot);
+        }
+
+        public double getScore() {
+            return scoreAt(slot) / 100.0;
+        }
+
+        public Rank getRank() {
+            return RANKS[records.get(slot * RECORD_SIZE + RANK_OFFSET)];
+        }
+
+        public Student toStudent() {
+            return new Student(getId(), getName(), getScore());
+        }
+    }
+
+    public boolean addStudent(Student student) {
+        int code = StudentIdCodec.encode(student.getId());
+        if (code == StudentIdCodec.INVALID) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (slotFor(code) != EMPTY) {
+                return false;
+            }
+            int slot = allocateSlot();
+            records.putInt(slot * RECORD_SIZE + ID_OFFSET, code);
+            records.putInt(slot * RECORD_SIZE + NAME_OFFSET, 0);
+            records.putInt(slot * RECORD_SIZE + NAME_LENGTH_OFFSET, 0);
+            slotById.putInt(code * Integer.BYTES, slot);
+            writeName(slot, student.getName());
+            writeScore(slot, student.getScore());
+            size++;
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean updateStudent(Student student) {
+        int code = StudentIdCodec.encode(student.getId());
+        long stamp = lock.writeLock();
+        try {
+            int slot = code == StudentIdCodec.INVALID ? EMPTY : slotFor(code);
+            if (slot == EMPTY) {
+                return false;
+            }
+            clearScore(slot);
+            writeName(slot, student.getName());
+            writeScore(slot, student.getScore());
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean deleteStudent(String id) {
+        int code = StudentIdCodec.encode(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = code == StudentIdCodec.INVALID ? EMPTY : slotFor(code);
+            if (slot == EMPTY) {
+                return false;
+            }
+            clearScore(slot);
+            int base = slot * RECORD_SIZE;
+            namesLive -= records.getInt(base + NAME_LENGTH_OFFSET);
+            records.putInt(base + ID_OFFSET, EMPTY);
+            records.putInt(base + NAME_LENGTH_OFFSET, 0);
+            records.putInt(base + NAME_OFFSET, freeHead);
+            freeHead = slot;
+            slotById.putInt(code * Integer.BYTES, EMPTY);
+            size--;
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Student findStudentById(String id) {
+        int code = StudentIdCodec.encode(id);
+        if (code == StudentIdCodec.INVALID) {
+            return null;
+        }
+        long stamp = lock.readLock();
+        try {
+            int slot = slotFor(code);
+            return slot == EMPTY ? null : new Student(StudentIdCodec.decode(code), nameAt(slot), scoreAt(slot) / 100.0);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs the action for the student with the given ID without materializing a Student.
+     * @param id The ID to look up
+     * @param action Receives a flyweight view, valid only during the call
+     * @return false if no student has that ID
+     */
+    public boolean withStudent(String id, Consumer<View> action) {
+        int code = StudentIdCodec.encode(id);
+        if (code == StudentIdCodec.INVALID) {
+            return false;
+        }
+        long stamp = lock.readLock();
+        try {
+            int slot = slotFor(code);
+            if (slot == EMPTY) {
+                return false;
+            }
+            View view = new View();
+            view.slot = slot;
+            action.accept(view);
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getStudentCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits students in score order (ties by ID) through a single reused view.
+     * Ordering is a counting sort that reads scores straight from the record region.
+     * @param descending true for highest score first
+     * @param limit Maximum number of students to visit
+     * @param action Receives the flyweight view; must not modify the store
+     */
+    public void forEachByScore(boolean descending, int limit, Consumer<View> action) {
+        long stamp = lock.readLock();
+        try {
+            int[] start = new int[histogram.length];
+            int position = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                int key = descending ? histogram.length - 1 - i : i;
+                start[key] = position;
+                position += histogram[key];
+            }
+            // Walking the ID table in code order keeps ties ordered by ID
+            int[] order = new int[size];
+            for (int code = 0; code <= StudentIdCodec.MAX_ID; code++) {
+                int slot = slotById.getInt(code * Integer.BYTES);
+                if (slot != EMPTY) {
+                    order[start[scoreAt(slot)]++] = slot;
+                }
+            }
+            View view = new View();
+            for (int i = 0, n = Math.min(Math.max(0, limit), order.length); i < n; i++) {
+                view.slot = order[i];
+                action.accept(view);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Student> getTopStudents(int n) {
+        List<Student> result = new ArrayList<>(Math.max(0, Math.min(n, getStudentCount())));
+        forEachByScore(true, n, view -> result.add(view.toStudent()));
+        return result;
+    }
+
+    public List<Student> getSortedStudentsByScore() {
+        return getTopStudents(Integer.MAX_VALUE);
+    }
+
+    public ScoreStatistics getStatistics() {
+        long stamp = lock.readLock();
+        try {
+            int lowest = 0;
+            while (lowest < histogram.length - 1 && histogram[lowest] == 0) {
+                lowest++;
+            }
+            int highest = histogram.length - 1;
+            while (highest > 0 && histogram[highest] == 0) {
+                highest--;
+            }
+            int passCount = size - rankCounts[Rank.FAIL.ordinal()];
+            return new ScoreStatistics(version, size, scoreSumHundredths, lowest, highest, passCount, rankCounts);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Direct (off-heap) memory reserved by the record, name and ID regions, in bytes.
+     * @return The reserved size in bytes
+     */
+    public long getOffHeapBytes() {
+        long stamp = lock.readLock();
+        try {
+            return (long) records.capacity() + names.capacity() + slotById.capacity();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap region too large: " + bytes + " bytes");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private int slotFor(int code) {
+        return slotById.getInt(code * Integer.BYTES);
+    }
+
+    private int idAt(int slot) {
+        return records.getInt(slot * RECORD_SIZE + ID_OFFSET);
+    }
+
+    private int scoreAt(int slot) {
+        return records.getShort(slot * RECORD_SIZE + SCORE_OFFSET);
+    }
+
+    private String nameAt(int slot) {
+        int base = slot * RECORD_SIZE;
+        byte[] bytes = new byte[records.getInt(base + NAME_LENGTH_OFFSET)];
+        names.get(records.getInt(base + NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeScore(int slot, double score) {
+        int hundredths = ScoreCountingSort.toHundredths(score);
+        Rank rank = Rank.fromScore(hundredths / 100.0);
+        int base = slot * RECORD_SIZE;
+        records.putShort(base + SCORE_OFFSET, (short) hundredths);
+        records.put(base + RANK_OFFSET, (byte) rank.ordinal());
+        histogram[hundredths]++;
+        rankCounts[rank.ordinal()]++;
+        scoreSumHundredths += hundredths;
+    }
+
+    private void clearScore(int slot) {
+        int base = slot * RECORD_SIZE;
+        int hundredths = records.getShort(base + SCORE_OFFSET);
+        histogram[hundredths]--;
+        rankCounts[records.get(base + RANK_OFFSET)]--;
+        scoreSumHundredths -= hundredths;
+    }
+
+    private void writeName(int slot, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int base = slot * RECORD_SIZE;
+        int oldLength = records.getInt(base + NAME_LENGTH_OFFSET);
+        namesLive -= oldLength;
+        if (bytes.length == 0) {
+            // Nothing to store; the offset may still hold a free-list link from a recycled slot
+            records.putInt(base + NAME_OFFSET, 0);
+        } else if (bytes.length <= oldLength) {
+            // Overwrite in place; the unused tail becomes garbage until the next compaction
+            names.put(records.getInt(base + NAME_OFFSET), bytes);
+        } else {
+            records.putInt(base + NAME_LENGTH_OFFSET, 0);
+            if (namesUsed + bytes.length > names.capacity()) {
+                compactNames(bytes.length);
+            }
+            names.put(namesUsed, bytes);
+            records.putInt(base + NAME_OFFSET, namesUsed);
+            namesUsed += bytes.length;
+        }
+        records.putInt(base + NAME_LENGTH_OFFSET, bytes.length);
+        namesLive += bytes.length;
+    }
+
+    // Packs live names into a fresh region: same size when enough garbage is reclaimed, otherwise doubled
+    private void compactNames(int needed) {
+        int garbage = namesUsed - namesLive;
+        boolean reclaims = garbage >= MIN_NAMES_TO_COMPACT && garbage >= namesLive / 2
+                           && namesLive + needed <= names.capacity();
+        ByteBuffer target = allocate(reclaims ? names.capacity() : Math.max(2L * names.capacity(), (long) namesLive + needed));
+        int offset = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int base = slot * RECORD_SIZE;
+            if (records.getInt(base + ID_OFFSET) != EMPTY) {
+                int length = records.getInt(base + NAME_LENGTH_OFFSET);
+                target.put(offset, names, records.getInt(base + NAME_OFFSET), length);
+                records.putInt(base + NAME_OFFSET, offset);
+                offset += length;
+            }
+        }
+        names = target;
+        namesUsed = offset;
+    }
+
+    private int allocateSlot() {
+        if (freeHead != EMPTY) {
+            int slot = freeHead;
+            freeHead = records.getInt(slot * RECORD_SIZE + NAME_OFFSET);
+            return slot;
+        }
+        if ((long) (slotCount + 1) * RECORD_SIZE > records.capacity()) {
+            ByteBuffer grown = allocate(2L * records.capacity());
+            grown.put(0, records, 0, slotCount * RECORD_SIZE);
+            records = grown;
+        }
+        return slotCount++;
+    }
+}
@@ -0,0 +1,219 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parallel merge sort on a ForkJoinPool.
+ * The range is split recursively until it fits a leaf, leaves are sorted with the JDK's
+ * stable merge sort, and sorted halves are merged in parallel by splitting the larger run at
+ * its midpoint and binary-searching the matching position in the other run. Leaves and merges
+ * are both stable, so equal elements keep their list order for any comparator.
+ */
+public class ParallelMergeSortEngine implements SortEngine {
+    // Ranges at or below this size are sorted (or merged) sequentially
+    public static final int DEFAULT_LEAF_SIZE = 8192;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int leafSize;
+
+    /**
+     * Creates an engine that runs on the common pool.
+     */
+    public ParallelMergeSortEngine() {
+        this(ForkJoinPool.commonPool(), false, DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * Creates an engine with a dedicated pool of the given parallelism.
+     * Call {@link #shutdown()} when the engine is no longer needed.
+     * @param parallelism The number of worker threads
+     */
+    public ParallelMergeSortEngine(int parallelism) {
+        this(new ForkJoinPool(parallelism), true, DEFAULT_LEAF_SIZE);
+    }
+
+    private ParallelMergeSortEngine(ForkJoinPool pool, boolean ownsPool, int leafSize) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    public <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        Object[] array = list.toArray();
+        if (array.length <= leafSize) {
+            sortLeaf(array, 0, array.length, comparator);
+        } else {
+            pool.invoke(new SortTask<T>(array, new Object[array.length], 0, array.length, comparator));
+        }
+
+        ListIterator<T> iterator = list.listIterator();
+        for (Object element : array) {
+            iterator.next();
+            iterator.set(cast(element));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "Parallel Merge Sort (" + getParallelism() + " threads)";
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Releases the worker threads of a dedicated pool. Has no effect on the common pool.
+     */
+    public void shutdown() {
+        if (ownsPool) {
+            pool.shutdown();
+        }
+    }
+
+    // Sorts array[low, high), using buffer[low, high) as merge scratch space
+    private final class SortTask<T> extends RecursiveAction {
+        private final Object[] array;
+        private final Object[] buffer;
+        private final int low;
+        private final int high;
+        private final Comparator<? super T> comparator;
+
+        SortTask(Object[] array, Object[] buffer, int low, int high, Comparator<? super T> comparator) {
+            this.array = array;
+            this.buffer = buffer;
+            this.low = low;
+            this.high = high;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low <= leafSize) {
+                sortLeaf(array, low, high, comparator);
+                return;
+            }
+
+            int mid = (low + high) >>> 1;
+            invokeAll(new SortTask<T>(array, buffer, low, mid, comparator),
+                      new SortTask<T>(array, buffer, mid, high, comparator));
+
+            // Halves already in order: nothing to merge
+            if (comparator.compare(cast(array[mid - 1]), cast(array[mid])) <= 0) {
+                return;
+            }
+
+            new MergeTask<T>(array, low, mid, mid, high, buffer, low, comparator).invoke();
+            System.arraycopy(buffer, low, array, low, high - low);
+        }
+    }
+
+    // Merges source[low1, high1) and source[low2, high2) into target starting at offset
+    private final class MergeTask<T> extends RecursiveAction {
+        private final Object[] source;
+        private final int low1;
+        private final int high1;
+        private final int low2;
+        private final int high2;
+        private final Object[] target;
+        private final int offset;
+        private final Comparator<? super T> comparator;
+
+        MergeTask(Object[] source, int low1, int high1, int low2, int high2,
+                  Object[] target, int offset, Comparator<? super T> comparator) {
+            this.source = source;
+            this.low1 = low1;
+            this.high1 = high1;
+            this.low2 = low2;
+            this.high2 = high2;
+            this.target = target;
+            this.offset = offset;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int length1 = high1 - low1;
+            int length2 = high2 - low2;
+            if (length1 + length2 <= leafSize) {
+                mergeSequential();
+                return;
+            }
+
+            // Split the larger run in half and find where its midpoint falls in the other run.
+            // Left elements win ties, which keeps the merge stable.
+            int split1;
+            int split2;
+            if (length1 >= length2) {
+                split1 = (low1 + high1) >>> 1;
+                split2 = lowerBound(source, low2, high2, cast(source[split1]));
+            } else {
+                split2 = (low2 + high2) >>> 1;
+                split1 = upperBound(source, low1, high1, cast(source[split2]));
+            }
+            int splitOffset = offset + (split1 - low1) + (split2 - low2);
+
+            invokeAll(new MergeTask<T>(source, low1, split1, low2, split2, target, offset, comparator),
+                      new MergeTask<T>(source, split1, high1, split2, high2, target, splitOffset, comparator));
+        }
+
+        private void mergeSequential() {
+            int i = low1;
+            int j = low2;
+            int k = offset;
+            while (i < high1 && j < high2) {
+                if (comparator.compare(cast(source[j]), cast(source[i])) < 0) {
+                    target[k++] = source[j++];
+                } else {
+                    target[k++] = source[i++];
+                }
+            }
+            System.arraycopy(source, i, target, k, high1 - i);
+            System.arraycopy(source, j, target, k + (high1 - i), high2 - j);
+        }
+
+        // First index in [low, high) whose element is not less than key
+        private int lowerBound(Object[] a, int low, int high, T key) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(cast(a[mid]), key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index in [low, high) whose element is greater than key
+        private int upperBound(Object[] a, int low, int high, T key) {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(cast(a[mid]), key) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    // Stable, unlike introsort, so ties come out in list order as in the merges
+    @SuppressWarnings("unchecked")
+    private static <T> void sortLeaf(Object[] array, int low, int high, Comparator<? super T> comparator) {
+        Arrays.sort(array, low, high, (Comparator<Object>) comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object element) {
+        return (T) element;
+    }
+}
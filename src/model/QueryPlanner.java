@@ -0,0 +1,433 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import model.StudentQuery.All;
+import model.StudentQuery.Any;
+import model.StudentQuery.Criterion;
+import model.StudentQuery.IdPrefix;
+import model.StudentQuery.NamePrefix;
+import model.StudentQuery.RankIs;
+import model.StudentQuery.ScoreRange;
+
+/**
+ * Plans and runs a {@link StudentQuery} over the manager's indices. Used under the manager's read lock.
+ * <p>
+ * Every leaf criterion has an index that can count its matches cheaply and list them as a bitmap of ID codes.
+ * For an AND the planner starts from the most selective criterion, intersects the postings of the next ones
+ * while that costs less than checking each remaining candidate, and checks the rest per student. A limit is
+ * pushed down: rather than listing every match, the plan may walk an ordered index and stop after k hits,
+ * merge the best postings of a name prefix, or keep the best k in a heap, whichever the estimates make
+ * cheapest. Costs are in rough units of one student visited; {@link Plan#toString()} shows the choice.
+ */
+final class QueryPlanner {
+    /** The index reads a plan needs; the manager implements them over its own indices. */
+    interface Indexes {
+        int size();
+
+        /** Matches of a leaf criterion, exact or a close upper bound, without listing them. */
+        int estimate(Criterion leaf);
+
+        /** Matches of a leaf criterion as a new bitmap. */
+        StudentBitmap postings(Criterion leaf);
+
+        Student student(int code);
+
+        /** Visits students in the order, score orders only within the key range, until the visitor returns false. */
+        void walk(StudentOrder order, int fromKey, int toKey, Predicate<Student> visitor);
+
+        /** The best k students by score, ties by ID, among those with a name part starting with the prefix that pass the filter. */
+        List<Student> topByScore(String prefix, int k, Predicate<Student> filter);
+    }
+
+    // Relative costs per student, measured against listing one name posting
+    private static final double POSTING_COST = 1.0;       // Listing a name or ID match into a bitmap
+    private static final double SCORE_POSTING_COST = 4.0; // Score buckets hold students, so each is encoded back to its code
+    private static final double RANK_POSTING_COST = 0.1;  // Rank postings are bitmaps already; copying goes a word at a time
+    private static final double CHECK_COST = 3.0;         // Resolving a code to its student and testing it
+    private static final double WALK_COST = 5.0;          // Visiting a student of an ordered index and testing it
+    private static final double SORT_COST = 1.0;          // Per student per comparison level of a sort or heap
+
+    private static final Comparator<Student> BY_ID = Comparator.comparing(Student::getId);
+    private static final Comparator<Student> BY_SCORE_DESCENDING =
+            Comparator.comparingInt((Student student) -> -ScoreCountingSort.toHundredths(student.getScore())).thenComparing(BY_ID);
+    private static final Comparator<Student> BY_SCORE_ASCENDING =
+            Comparator.comparingInt((Student student) -> ScoreCountingSort.toHundredths(student.getScore())).thenComparing(BY_ID);
+
+    private final Indexes indexes;
+    private final int size;
+
+    QueryPlanner(Indexes indexes) {
+        this.indexes = indexes;
+        this.size = indexes.size();
+    }
+
+    /** Comparator matching the order the indices walk in: scores compare in hundredths, ties by ID. */
+    static Comparator<Student> comparator(StudentOrder order) {
+        return switch (order) {
+            case SCORE_DESCENDING -> BY_SCORE_DESCENDING;
+            case SCORE_ASCENDING -> BY_SCORE_ASCENDING;
+            case NAME_ASCENDING -> StudentManager.NAME_ASCENDING;
+            case NAME_DESCENDING -> StudentManager.NAME_ASCENDING.reversed();
+            default -> BY_ID;
+        };
+    }
+
+    // Candidate generation: postings intersected, then criteria checked per candidate
+
+    private final class Source {
+        final List<Criterion> intersected = new ArrayList<>(); // Most selective first
+        final List<Criterion> checked = new ArrayList<>();
+        double candidates; // After the intersection
+        double matches;    // After the checks
+        double cost;       // Of listing and intersecting, not checking
+
+        double exactCost() {
+            return cost + (checked.isEmpty() ? 0 : candidates * CHECK_COST);
+        }
+
+        // The exact matches as a bitmap
+        StudentBitmap run() {
+            StudentBitmap result = intersect();
+            if (checked.isEmpty()) {
+                return result;
+            }
+            StudentBitmap kept = new StudentBitmap();
+            Predicate<Student> check = checkAll();
+            result.forEach(code -> {
+                if (check.test(indexes.student(code))) {
+                    kept.add(code);
+                }
+            });
+            return kept;
+        }
+
+        StudentBitmap intersect() {
+            StudentBitmap result = null;
+            for (Criterion criterion : intersected) {
+                StudentBitmap postings = postings(criterion);
+                result = result == null ? postings : result.and(postings);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        Predicate<Student> checkAll() {
+            List<Criterion> criteria = List.copyOf(checked);
+            return student -> {
+                for (Criterion criterion : criteria) {
+                    if (!criterion.test(student)) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+        }
+
+        @Override
+        public String toString() {
+            List<String> steps = new ArrayList<>();
+            for (Criterion criterion : intersected) {
+                steps.add(describe(criterion) + "(~" + Math.round(estimate(criterion)) + ")");
+            }
+            String text = "postings " + String.join(" AND ", steps);
+            if (!checked.isEmpty()) {
+                List<String> checks = new ArrayList<>();
+                for (Criterion criterion : checked) {
+                    checks.add(describe(criterion));
+                }
+                text += "; check " + String.join(" AND ", checks) + " on ~" + Math.round(candidates);
+            }
+            return text;
+        }
+    }
+
+    private static String describe(Criterion criterion) {
+        return criterion instanceof All || criterion instanceof Any ? "(" + criterion + ")" : criterion.toString();
+    }
+
+    // Estimated matches, assuming the criteria of an AND are independent
+    double estimate(Criterion criterion) {
+        return switch (criterion) {
+            case All all -> {
+                double matches = size;
+                for (Criterion child : all.criteria()) {
+                    matches *= size == 0 ? 0 : estimate(child) / size;
+                }
+                yield matches;
+            }
+            case Any any -> {
+                double matches = 0;
+                for (Criterion child : any.criteria()) {
+                    matches += estimate(child);
+                }
+                yield Math.min(size, matches);
+            }
+            default -> indexes.estimate(criterion);
+        };
+    }
+
+    // Cost of listing the exact matches of a criterion as a bitmap
+    private double postingsCost(Criterion criterion) {
+        return switch (criterion) {
+            case RankIs _ -> estimate(criterion) * RANK_POSTING_COST;
+            case ScoreRange _ -> estimate(criterion) * SCORE_POSTING_COST;
+            case All all -> source(all).exactCost();
+            case Any any -> {
+                double cost = 0;
+                for (Criterion child : any.criteria()) {
+                    cost += postingsCost(child);
+                }
+                yield cost;
+            }
+            default -> estimate(criterion) * POSTING_COST;
+        };
+    }
+
+    private StudentBitmap postings(Criterion criterion) {
+        return switch (criterion) {
+            case All all -> source(all).run();
+            case Any any -> {
+                StudentBitmap union = new StudentBitmap();
+                for (Criterion child : any.criteria()) {
+                    union = union.or(postings(child));
+                }
+                yield union;
+            }
+            default -> indexes.postings(criterion);
+        };
+    }
+
+    private Source source(Criterion criterion) {
+        Source source = new Source();
+        if (!(criterion instanceof All all)) {
+            source.intersected.add(criterion);
+            source.candidates = source.matches = estimate(criterion);
+            source.cost = postingsCost(criterion);
+            return source;
+        }
+        List<Criterion> children = new ArrayList<>(all.criteria());
+        children.sort(Comparator.comparingDouble(this::estimate));
+        double candidates = size;
+        for (Criterion child : children) {
+            double selectivity = size == 0 ? 0 : estimate(child) / size;
+            double listCost = postingsCost(child) + (source.intersected.isEmpty() ? 0 : candidates / 16);
+            if (source.intersected.isEmpty() || listCost < candidates * CHECK_COST) {
+                source.intersected.add(child);
+                source.cost += listCost;
+                candidates *= selectivity;
+            } else {
+                source.checked.add(child);
+            }
+        }
+        source.candidates = candidates;
+        source.matches = estimate(criterion);
+        return source;
+    }
+
+    /** A chosen way to run a query. */
+    abstract static class Plan {
+        final double cost;
+
+        Plan(double cost) {
+            this.cost = cost;
+        }
+
+        abstract List<Student> run();
+    }
+
+    /** Plans the query, comparing listing postings against the limit-aware strategies. */
+    Plan plan(StudentQuery query) {
+        Criterion criterion = query.getCriterion();
+        if (criterion instanceof All all && all.criteria().isEmpty()) {
+            criterion = null;
+        }
+        StudentOrder order = query.getOrder() != null ? query.getOrder() : StudentOrder.ID;
+        int limit = query.getLimit();
+        if (limit == 0) {
+            return new Plan(0) {
+                @Override
+                List<Student> run() {
+                    return new ArrayList<>();
+                }
+
+                @Override
+                public String toString() {
+                    return "nothing (limit 0)";
+                }
+            };
+        }
+
+        Plan best = walkPlan(criterion, order, limit);
+        if (criterion != null) {
+            Plan postings = postingsPlan(criterion, order, limit);
+            if (postings.cost < best.cost) {
+                best = postings;
+            }
+            if (order == StudentOrder.SCORE_DESCENDING && limit != Integer.MAX_VALUE) {
+                Plan top = nameTopPlan(criterion, limit);
+                if (top != null && top.cost < best.cost) {
+                    best = top;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Walks an ordered index, testing every student, until the limit is reached
+    private Plan walkPlan(Criterion criterion, StudentOrder order, int limit) {
+        int fromKey = 0;
+        int toKey = ScoreCountingSort.BUCKET_COUNT - 1;
+        double walked = size;
+        ScoreRange range = order == StudentOrder.SCORE_DESCENDING || order == StudentOrder.SCORE_ASCENDING
+                ? scoreRangeOf(criterion) : null;
+        if (range != null) {
+            fromKey = range.fromKey();
+            toKey = range.toKey();
+            walked = estimate(range);
+        }
+        double matches = criterion == null ? size : estimate(criterion);
+        double visited = limit == Integer.MAX_VALUE || matches <= limit ? walked : Math.min(walked, limit * walked / matches);
+        int from = fromKey;
+        int to = toKey;
+        Predicate<Student> test = criterion == null ? _ -> true : criterion::test;
+        String where = range != null ? " over " + range : "";
+        return new Plan(visited * WALK_COST) {
+            @Override
+            List<Student> run() {
+                List<Student> result = new ArrayList<>();
+                indexes.walk(order, from, to, student -> {
+                    if (test.test(student)) {
+                        result.add(student);
+                    }
+                    return result.size() < limit;
+                });
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                return "walk " + order + where + (criterion != null ? "; test " + describe(criterion) : "")
+                       + (limit != Integer.MAX_VALUE ? "; stop at " + limit : "") + " (cost ~" + Math.round(cost) + ")";
+            }
+        };
+    }
+
+    // The score range an ordered walk can be restricted to: the criterion itself or a term of its AND
+    private static ScoreRange scoreRangeOf(Criterion criterion) {
+        if (criterion instanceof ScoreRange range) {
+            return range;
+        }
+        if (criterion instanceof All all) {
+            for (Criterion child : all.criteria()) {
+                if (child instanceof ScoreRange range) {
+                    return range;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Lists the matches through the postings, then orders them: bitmaps are already in ID order, so an ID-ordered
+    // limit stops early; any other order keeps the best k in a heap, or sorts everything without a limit
+    private Plan postingsPlan(Criterion criterion, StudentOrder order, int limit) {
+        Source source = source(criterion);
+        double matches = Math.max(1, source.matches);
+        boolean idOrder = order == StudentOrder.ID;
+        double resolved = idOrder && limit < matches ? source.candidates * limit / matches : source.candidates;
+        double orderCost = idOrder ? 0 : matches * SORT_COST * log2(Math.min(limit, matches) + 1);
+        Comparator<Student> comparator = comparator(order);
+        return new Plan(source.cost + resolved * CHECK_COST + orderCost) {
+            @Override
+            List<Student> run() {
+                StudentBitmap candidates = source.intersect();
+                Predicate<Student> check = source.checkAll();
+                if (idOrder) {
+                    List<Student> result = new ArrayList<>();
+                    for (var codes = candidates.iterator(); codes.hasNext() && result.size() < limit; ) {
+                        Student student = indexes.student(codes.nextInt());
+                        if (check.test(student)) {
+                            result.add(student);
+                        }
+                    }
+                    return result;
+                }
+                if (limit == Integer.MAX_VALUE) {
+                    List<Student> result = new ArrayList<>(candidates.cardinality());
+                    candidates.forEach(code -> {
+                        Student student = indexes.student(code);
+                        if (check.test(student)) {
+                            result.add(student);
+                        }
+                    });
+                    result.sort(comparator);
+                    return result;
+                }
+                // The worst of the best k on top, so each better candidate replaces it
+                PriorityQueue<Student> best = new PriorityQueue<>(limit + 1, comparator.reversed());
+                candidates.forEach(code -> {
+                    Student student = indexes.student(code);
+                    if (check.test(student)) {
+                        best.add(student);
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                });
+                List<Student> result = new ArrayList<>(best);
+                result.sort(comparator);
+                return result;
+            }
+
+            @Override
+            public String toString() {
+                String output = idOrder ? "in ID order" : limit == Integer.MAX_VALUE ? "sort " + order : "heap top " + limit + " " + order;
+                return source + "; " + output + (idOrder && limit != Integer.MAX_VALUE ? ", stop at " + limit : "")
+                       + " (cost ~" + Math.round(cost) + ")";
+            }
+        };
+    }
+
+    // Best-first merge over a name prefix's postings, which are ordered by score, checking the other criteria
+    private Plan nameTopPlan(Criterion criterion, int limit) {
+        NamePrefix driver = null;
+        if (criterion instanceof NamePrefix name) {
+            driver = name;
+        } else if (criterion instanceof All all) {
+            for (Criterion child : all.criteria()) {
+                if (child instanceof NamePrefix name && (driver == null || estimate(name) < estimate(driver))) {
+                    driver = name;
+                }
+            }
+        }
+        if (driver == null) {
+            return null;
+        }
+        double postings = estimate(driver);
+        double matches = Math.max(1, estimate(criterion));
+        double visited = matches <= limit ? postings : Math.min(postings, limit * postings / matches);
+        String prefix = driver.prefix();
+        NamePrefix merged = driver;
+        return new Plan(visited * CHECK_COST) {
+            @Override
+            List<Student> run() {
+                return indexes.topByScore(prefix, limit, criterion == merged ? null : criterion::test);
+            }
+
+            @Override
+            public String toString() {
+                return "top " + limit + " by score from " + merged + " postings"
+                       + (criterion != merged ? "; test " + describe(criterion) : "") + " (cost ~" + Math.round(cost) + ")";
+            }
+        };
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
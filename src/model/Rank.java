@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Rank bands, lowest first. A student's rank is the highest band whose minimum score they reach.
+ */
+public enum Rank {
+    FAIL("Fail", 0.0),
+    MEDIUM("Medium", 5.0),
+    GOOD("Good", 6.5),
+    VERY_GOOD("Very Good", 7.5),
+    EXCELLENT("Excellent", 9.0);
+
+    private static final Rank[] VALUES = values();
+
+    private final String label;
+    private final double minScore;
+
+    Rank(String label, double minScore) {
+        this.label = label;
+        this.minScore = minScore;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getMinScore() {
+        return minScore;
+    }
+
+    public static Rank fromScore(double score) {
+        for (int i = VALUES.length - 1; i > 0; i--) {
+            if (score >= VALUES[i].minScore) {
+                return VALUES[i];
+            }
+        }
+        return FAIL;
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Immutable, versioned view of the roster published by {@link StudentManager}.
+ * A snapshot never changes after construction, so any thread may read it without locking,
+ * and two snapshots with the same version describe the same roster.
+ */
+public final class RosterSnapshot {
+    public static final int TOP_STUDENT_COUNT = 10;
+
+    private final List<Student> students;
+    private final List<Student> topStudents;
+    private final ScoreStatistics statistics;
+
+    RosterSnapshot(Student[] students, List<Student> topStudents, ScoreStatistics statistics) {
+        this.students = Collections.unmodifiableList(Arrays.asList(students));
+        this.topStudents = Collections.unmodifiableList(topStudents);
+        this.statistics = statistics;
+    }
+
+    /** Version of the roster this snapshot was taken at; it grows by one per mutation. */
+    public long getVersion() {
+        return statistics.getVersion();
+    }
+
+    /** All students in insertion order (read-only). */
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    /** The best {@link #TOP_STUDENT_COUNT} students by score, ties by ID (read-only). */
+    public List<Student> getTopStudents() {
+        return topStudents;
+    }
+
+    /** Aggregates (count, average, min/max, pass count, rank histogram) at this version. */
+    public ScoreStatistics getStatistics() {
+        return statistics;
+    }
+}
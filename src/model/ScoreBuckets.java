@@ -0,0 +1,203 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Incrementally maintained counting-sort index: one bucket per hundredth of a point,
+ * each bucket ordered by student ID. Reading the roster in score order is a walk over the
+ * occupied buckets, O(n + 1001), with no sorting at read time; a score range is a walk over
+ * the occupied buckets between its bounds.
+ */
+class ScoreBuckets {
+    private static final Comparator<Student> BY_ID = Comparator.comparing(Student::getId);
+
+    private final TreeSet<Student>[] buckets;
+    private final BitSet occupied = new BitSet(ScoreCountingSort.BUCKET_COUNT);
+    private int size;
+    // Kept by the writers so lowestKey/highestKey are plain field reads, safe under an optimistic read
+    // (scanning the BitSet while a writer shrinks it can throw); -1 when empty
+    private int lowestKey = -1;
+    private int highestKey = -1;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ScoreBuckets() {
+        buckets = new TreeSet[ScoreCountingSort.BUCKET_COUNT];
+    }
+
+    void add(Student student) {
+        int key = ScoreCountingSort.toHundredths(student.getScore());
+        TreeSet<Student> bucket = buckets[key];
+        if (bucket == null) {
+            bucket = new TreeSet<>(BY_ID);
+            buckets[key] = bucket;
+        }
+        if (bucket.add(student)) {
+            occupied.set(key);
+            size++;
+            if (lowestKey < 0 || key < lowestKey) {
+                lowestKey = key;
+            }
+            if (key > highestKey) {
+                highestKey = key;
+            }
+        }
+    }
+
+    void remove(Student student) {
+        int key = ScoreCountingSort.toHundredths(student.getScore());
+        TreeSet<Student> bucket = buckets[key];
+        if (bucket != null && bucket.remove(student)) {
+            size--;
+            if (bucket.isEmpty()) {
+                occupied.clear(key);
+                if (key == lowestKey) {
+                    lowestKey = occupied.nextSetBit(key);
+                }
+                if (key == highestKey) {
+                    highestKey = occupied.previousSetBit(key);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        for (int key = occupied.nextSetBit(0); key >= 0; key = occupied.nextSetBit(key + 1)) {
+            buckets[key].clear();
+        }
+        occupied.clear();
+        size = 0;
+        lowestKey = -1;
+        highestKey = -1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Lowest occupied key in hundredths, or -1 when empty
+    int lowestKey() {
+        return lowestKey;
+    }
+
+    // Highest occupied key in hundredths, or -1 when empty
+    int highestKey() {
+        return highestKey;
+    }
+
+    // Key of the student at the given position in ascending score order, O(buckets); -1 when out of range
+    int keyAt(int position) {
+        if (position < 0 || position >= size) {
+            return -1;
+        }
+        int seen = 0;
+        for (int key = occupied.nextSetBit(0); key >= 0; key = occupied.nextSetBit(key + 1)) {
+            seen += buckets[key].size();
+            if (seen > position) {
+                return key;
+            }
+        }
+        return -1;
+    }
+
+    // Returns up to limit students, highest score first (ties by ID)
+    List<Student> descending(int limit) {
+        List<Student> result = new ArrayList<>(Math.min(limit, size));
+        for (int key = occupied.previousSetBit(ScoreCountingSort.BUCKET_COUNT - 1);
+             key >= 0 && result.size() < limit;
+             key = occupied.previousSetBit(key - 1)) {
+            for (Student student : buckets[key]) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                result.add(student);
+            }
+        }
+        return result;
+    }
+
+    // Students with keys from fromKey to toKey inclusive, O(occupied buckets in the range)
+    int count(int fromKey, int toKey) {
+        int count = 0;
+        for (int key = occupied.nextSetBit(Math.max(0, fromKey)); key >= 0 && key <= toKey; key = occupied.nextSetBit(key + 1)) {
+            count += buckets[key].size();
+        }
+        return count;
+    }
+
+    // Visits students with keys from fromKey to toKey inclusive, lowest score first (ties by ID)
+    void forEach(int fromKey, int toKey, Consumer<Student> action) {
+        for (int key = occupied.nextSetBit(Math.max(0, fromKey)); key >= 0 && key <= toKey; key = occupied.nextSetBit(key + 1)) {
+            buckets[key].forEach(action);
+        }
+    }
+
+    // Visits students with keys from fromKey to toKey inclusive in score order, ties by ID, until the visitor returns false
+    void forEachWhile(int fromKey, int toKey, boolean descending, Predicate<Student> visitor) {
+        if (fromKey > toKey) {
+            return;
+        }
+        int key = descending ? occupied.previousSetBit(Math.min(toKey, ScoreCountingSort.BUCKET_COUNT - 1)) : occupied.nextSetBit(Math.max(0, fromKey));
+        while (key >= 0 && key >= fromKey && key <= toKey) {
+            for (Student student : buckets[key]) {
+                if (!visitor.test(student)) {
+                    return;
+                }
+            }
+            key = descending ? occupied.previousSetBit(key - 1) : occupied.nextSetBit(key + 1);
+        }
+    }
+
+    // Fills page with the students that follow after (exclusive; null to start) in score order, ties by ID
+    int page(Student after, boolean descending, Student[] page) {
+        return page(after, descending, 0, ScoreCountingSort.BUCKET_COUNT - 1, page);
+    }
+
+    // As above, restricted to keys from fromKey to toKey inclusive
+    int page(Student after, boolean descending, int fromKey, int toKey, Student[] page) {
+        if (fromKey > toKey) {
+            return 0;
+        }
+        int count = 0;
+        int key;
+        if (after == null) {
+            key = descending ? occupied.previousSetBit(toKey) : occupied.nextSetBit(fromKey);
+        } else {
+            key = ScoreCountingSort.toHundredths(after.getScore());
+            TreeSet<Student> bucket = buckets[key];
+            if (bucket != null) {
+                for (Student student : bucket.tailSet(after, false)) {
+                    if (count == page.length) {
+                        return count;
+                    }
+                    page[count++] = student;
+                }
+            }
+            key = descending ? occupied.previousSetBit(key - 1) : occupied.nextSetBit(key + 1);
+        }
+        while (key >= fromKey && key <= toKey && count < page.length) {
+            for (Student student : buckets[key]) {
+                if (count == page.length) {
+                    return count;
+                }
+                page[count++] = student;
+            }
+            key = descending ? occupied.previousSetBit(key - 1) : occupied.nextSetBit(key + 1);
+        }
+        return count;
+    }
+
+    // Returns all students, lowest score first (ties by ID)
+    List<Student> ascending() {
+        List<Student> result = new ArrayList<>(size);
+        for (int key = occupied.nextSetBit(0); key >= 0; key = occupied.nextSetBit(key + 1)) {
+            result.addAll(buckets[key]);
+        }
+        return result;
+    }
+}
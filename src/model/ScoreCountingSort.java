@@ -0,0 +1,113 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Counting sort over student scores.
+ * Scores are limited to [0, 10] with two decimals, so there are at most 1001 distinct keys
+ * (hundredths). Sorting is a histogram pass plus a placement pass, O(n + 1001), instead of
+ * O(n log n) comparisons. Students with the same score are ordered by ID: two radix passes over
+ * the 17-bit {@link StudentIdCodec} codes put the input in ID order first, and the score pass is stable.
+ */
+public final class ScoreCountingSort {
+    // Number of distinct keys: 0.00, 0.01, ..., 10.00
+    public static final int BUCKET_COUNT = 1001;
+
+    private static final Comparator<Student> BY_ID = Comparator.comparing(Student::getId);
+    // Digit width of the ID passes: two passes cover the 17 bits of a code
+    private static final int RADIX_BITS = 9;
+
+    private ScoreCountingSort() {
+    }
+
+    /**
+     * Converts a score to its bucket key in hundredths, clamped to [0, 1000].
+     * @param score The score to convert
+     * @return The score in hundredths
+     */
+    public static int toHundredths(double score) {
+        long hundredths = Math.round(score * 100);
+        if (hundredths < 0) return 0;
+        if (hundredths >= BUCKET_COUNT) return BUCKET_COUNT - 1;
+        return (int) hundredths;
+    }
+
+    /**
+     * Sorts the given list in place by score.
+     * @param list The students to sort
+     * @param descending true for highest score first
+     */
+    public static void sort(List<Student> list, boolean descending) {
+        int size = list.size();
+        if (size < 2) {
+            return;
+        }
+        Student[] source = byId(list.toArray(new Student[0]));
+
+        // Histogram pass
+        int[] keys = new int[size];
+        int[] counts = new int[BUCKET_COUNT + 1];
+        for (int i = 0; i < size; i++) {
+            int key = toHundredths(source[i].getScore());
+            if (descending) {
+                key = BUCKET_COUNT - 1 - key;
+            }
+            keys[i] = key;
+            counts[key + 1]++;
+        }
+
+        // Prefix sums give the first slot of every bucket
+        for (int key = 0; key < BUCKET_COUNT; key++) {
+            counts[key + 1] += counts[key];
+        }
+
+        // Placement pass; stable, so ties keep the ID order
+        Student[] sorted = new Student[size];
+        for (int i = 0; i < size; i++) {
+            sorted[counts[keys[i]]++] = source[i];
+        }
+
+        ListIterator<Student> iterator = list.listIterator();
+        for (Student student : sorted) {
+            iterator.next();
+            iterator.set(student);
+        }
+    }
+
+    // The students in ID order: LSD radix over the codes, 9 low bits then 8 high bits, O(n + 512).
+    // IDs the codec cannot encode never reach the manager; if one does, fall back to a comparison sort
+    private static Student[] byId(Student[] students) {
+        int[] codes = new int[students.length];
+        for (int i = 0; i < students.length; i++) {
+            codes[i] = StudentIdCodec.encode(students[i].getId());
+            if (codes[i] < 0) {
+                Arrays.sort(students, BY_ID);
+                return students;
+            }
+        }
+        Student[] low = new Student[students.length];
+        int[] lowCodes = new int[students.length];
+        radixPass(students, codes, low, lowCodes, 0);
+        radixPass(low, lowCodes, students, codes, RADIX_BITS);
+        return students;
+    }
+
+    // Stable counting pass on the RADIX_BITS-wide digit at shift
+    private static void radixPass(Student[] from, int[] fromCodes, Student[] to, int[] toCodes, int shift) {
+        int[] starts = new int[(1 << RADIX_BITS) + 1];
+        for (int code : fromCodes) {
+            starts[((code >>> shift) & ((1 << RADIX_BITS) - 1)) + 1]++;
+        }
+        for (int digit = 0; digit < 1 << RADIX_BITS; digit++) {
+            starts[digit + 1] += starts[digit];
+        }
+        for (int i = 0; i < from.length; i++) {
+            int at = starts[(fromCodes[i] >>> shift) & ((1 << RADIX_BITS) - 1)]++;
+            to[at] = from[i];
+            toCodes[at] = fromCodes[i];
+        }
+    }
+}
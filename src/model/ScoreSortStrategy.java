@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * How StudentManager orders students by score.
+ */
+public enum ScoreSortStrategy {
+    // Comparison sort through the configured SortEngine, O(n log n)
+    COMPARISON,
+    // Bucket by hundredths of a point, O(n + 1001)
+    COUNTING,
+    // Counting sort once the population reaches StudentManager.COUNTING_SORT_THRESHOLD
+    AUTO
+}
@@ -0,0 +1,73 @@
+package model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable summary of the roster's scores, read from counters that StudentManager maintains
+ * on every add/update/delete. Building one costs O(1) regardless of the roster size.
+ */
+public final class ScoreStatistics {
+    private final long version;
+    private final int studentCount;
+    private final long scoreSumHundredths;
+    private final int lowestHundredths;
+    private final int highestHundredths;
+    private final int passCount;
+    private final int[] rankCounts;
+
+    ScoreStatistics(long version, int studentCount, long scoreSumHundredths,
+                    int lowestHundredths, int highestHundredths, int passCount, int[] rankCounts) {
+        this.version = version;
+        this.studentCount = studentCount;
+        this.scoreSumHundredths = scoreSumHundredths;
+        this.lowestHundredths = lowestHundredths;
+        this.highestHundredths = highestHundredths;
+        this.passCount = passCount;
+        this.rankCounts = rankCounts.clone();
+    }
+
+    /** Roster version these statistics were read at. */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    /** Average score, exact to the hundredth. */
+    public double getAverageScore() {
+        return studentCount == 0 ? 0.0 : scoreSumHundredths / 100.0 / studentCount;
+    }
+
+    public double getHighestScore() {
+        return studentCount == 0 ? 0.0 : highestHundredths / 100.0;
+    }
+
+    public double getLowestScore() {
+        return studentCount == 0 ? 0.0 : lowestHundredths / 100.0;
+    }
+
+    public int getPassCount() {
+        return passCount;
+    }
+
+    public double getPassRate() {
+        return studentCount == 0 ? 0 : (double) passCount / studentCount * 100;
+    }
+
+    public int getRankCount(Rank rank) {
+        return rankCounts[rank.ordinal()];
+    }
+
+    /** Student count per rank label, best rank first. */
+    public Map<String, Integer> getRankDistribution() {
+        Map<String, Integer> distribution = new LinkedHashMap<>();
+        Rank[] ranks = Rank.values();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            distribution.put(ranks[i].getLabel(), rankCounts[i]);
+        }
+        return distribution;
+    }
+}
@@ -0,0 +1,25 @@
+package model;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A pluggable in-place sorting strategy.
+ * StudentManager delegates every comparison sort it performs to the configured engine,
+ * so alternative algorithms can be swapped in and benchmarked without touching callers.
+ */
+public interface SortEngine {
+
+    /**
+     * Sorts the given list in place.
+     * @param list The list to sort
+     * @param comparator The ordering to apply
+     */
+    <T> void sort(List<T> list, Comparator<? super T> comparator);
+
+    /**
+     * Returns a short display name for this engine.
+     * @return The engine name
+     */
+    String getName();
+}
@@ -42,18 +42,12 @@ public class Student {
         return rank;
     }
 
+    public Rank getRankLevel() {
+        return Rank.fromScore(score);
+    }
+
     private void calculateRank() {
-        if (score < 5.0) {
-            rank = "Fail";
-        } else if (score < 6.5) {
-            rank = "Medium";
-        } else if (score < 7.5) {
-            rank = "Good";
-        } else if (score < 9.0) {
-            rank = "Very Good";
-        } else {
-            rank = "Excellent";
-        }
+        rank = Rank.fromScore(score).getLabel();
     }
 
     @Override
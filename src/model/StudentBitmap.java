@@ -0,0 +1,435 @@
+package model;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of student ID codes ({@link StudentIdCodec}), laid out like a Roaring bitmap.
+ * <p>
+ * Codes are split into chunks of 65536 by their high 16 bits. A chunk holding up to
+ * {@value #ARRAY_MAX} codes keeps them as a sorted {@code char[]} (2 bytes each); a fuller one switches
+ * to a plain 8 KB bitmap. A set of students costs at most a bit or two bytes per member, against the
+ * 40-odd bytes of a {@code HashSet} entry, and {@link #and}, {@link #or} and {@link #andNot} work a
+ * machine word or a merge step at a time. The set operations return new bitmaps and leave their
+ * operands unchanged. Not thread-safe.
+ */
+public final class StudentBitmap {
+    static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1 << 10; // 65536 bits per bitmap chunk
+
+    private char[] keys = new char[2];       // High 16 bits of each chunk, ascending
+    private Object[] chunks = new Object[2]; // char[] sorted values (with the size in sizes) or long[WORDS]
+    private int[] sizes = new int[2];        // Codes per chunk
+    private int chunkCount;
+
+    public StudentBitmap() {
+    }
+
+    public static StudentBitmap of(int... codes) {
+        StudentBitmap bitmap = new StudentBitmap();
+        for (int code : codes) {
+            bitmap.add(code);
+        }
+        return bitmap;
+    }
+
+    /** @return true if the code was not already present */
+    public boolean add(int code) {
+        int chunk = findChunk((char) (code >>> 16));
+        char low = (char) code;
+        if (chunk < 0) {
+            chunk = -chunk - 1;
+            insertChunk(chunk, (char) (code >>> 16), new char[4], 0);
+        }
+        if (chunks[chunk] instanceof long[] words) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            words[low >>> 6] |= bit;
+        } else {
+            char[] values = (char[]) chunks[chunk];
+            int size = sizes[chunk];
+            int at = Arrays.binarySearch(values, 0, size, low);
+            if (at >= 0) {
+                return false;
+            }
+            at = -at - 1;
+            if (size == ARRAY_MAX) {
+                long[] words = toWords(values, size);
+                words[low >>> 6] |= 1L << low;
+                chunks[chunk] = words;
+            } else {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size * 2));
+                    chunks[chunk] = values;
+                }
+                System.arraycopy(values, at, values, at + 1, size - at);
+                values[at] = low;
+            }
+        }
+        sizes[chunk]++;
+        return true;
+    }
+
+    /** @return true if the code was present */
+    public boolean remove(int code) {
+        int chunk = findChunk((char) (code >>> 16));
+        if (chunk < 0) {
+            return false;
+        }
+        char low = (char) code;
+        if (chunks[chunk] instanceof long[] words) {
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            words[low >>> 6] &= ~bit;
+            if (--sizes[chunk] <= ARRAY_MAX) {
+                chunks[chunk] = toValues(words, sizes[chunk]);
+            }
+        } else {
+            char[] values = (char[]) chunks[chunk];
+            int at = Arrays.binarySearch(values, 0, sizes[chunk], low);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(values, at + 1, values, at, sizes[chunk] - at - 1);
+            sizes[chunk]--;
+        }
+        if (sizes[chunk] == 0) {
+            removeChunk(chunk);
+        }
+        return true;
+    }
+
+    public boolean contains(int code) {
+        int chunk = findChunk((char) (code >>> 16));
+        if (chunk < 0) {
+            return false;
+        }
+        char low = (char) code;
+        if (chunks[chunk] instanceof long[] words) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+        return Arrays.binarySearch((char[]) chunks[chunk], 0, sizes[chunk], low) >= 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            total += sizes[chunk];
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+
+    public StudentBitmap copy() {
+        StudentBitmap copy = new StudentBitmap();
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            Object data = chunks[chunk] instanceof long[] words ? words.clone()
+                    : Arrays.copyOf((char[]) chunks[chunk], sizes[chunk]);
+            copy.appendChunk(keys[chunk], data, sizes[chunk]);
+        }
+        return copy;
+    }
+
+    /** Codes in both bitmaps. */
+    public StudentBitmap and(StudentBitmap other) {
+        StudentBitmap result = new StudentBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount && j < other.chunkCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendCombined(keys[i], chunks[i], sizes[i], other.chunks[j], other.sizes[j], AND);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Codes in either bitmap. */
+    public StudentBitmap or(StudentBitmap other) {
+        StudentBitmap result = new StudentBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            if (j == other.chunkCount || (i < chunkCount && keys[i] < other.keys[j])) {
+                result.appendCombined(keys[i], chunks[i], sizes[i], EMPTY, 0, OR);
+                i++;
+            } else if (i == chunkCount || keys[i] > other.keys[j]) {
+                result.appendCombined(other.keys[j], other.chunks[j], other.sizes[j], EMPTY, 0, OR);
+                j++;
+            } else {
+                result.appendCombined(keys[i], chunks[i], sizes[i], other.chunks[j], other.sizes[j], OR);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** Codes in this bitmap but not the other. */
+    public StudentBitmap andNot(StudentBitmap other) {
+        StudentBitmap result = new StudentBitmap();
+        int j = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            while (j < other.chunkCount && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.chunkCount && other.keys[j] == keys[i]) {
+                result.appendCombined(keys[i], chunks[i], sizes[i], other.chunks[j], other.sizes[j], AND_NOT);
+            } else {
+                result.appendCombined(keys[i], chunks[i], sizes[i], EMPTY, 0, OR);
+            }
+        }
+        return result;
+    }
+
+    // Chunk-level set operations; arrays are merged, anything involving a bitmap goes word by word
+    private static final int AND = 0;
+    private static final int OR = 1;
+    private static final int AND_NOT = 2;
+    private static final char[] EMPTY = new char[0];
+
+    private void appendCombined(char key, Object left, int leftSize, Object right, int rightSize, int operation) {
+        if (left instanceof char[] a && right instanceof char[] b) {
+            char[] merged = new char[operation == OR ? leftSize + rightSize : leftSize];
+            int size = merge(a, leftSize, b, rightSize, merged, operation);
+            if (size > ARRAY_MAX) {
+                appendChunk(key, toWords(merged, size), size);
+            } else if (size > 0) {
+                appendChunk(key, merged, size);
+            }
+            return;
+        }
+        if (operation == AND && left instanceof char[] a) {
+            appendFiltered(key, a, leftSize, (long[]) right, true);
+            return;
+        }
+        if (operation == AND && right instanceof char[] b) {
+            appendFiltered(key, b, rightSize, (long[]) left, true);
+            return;
+        }
+        if (operation == AND_NOT && left instanceof char[] a) {
+            appendFiltered(key, a, leftSize, (long[]) right, false);
+            return;
+        }
+        long[] words = left instanceof long[] w ? w.clone() : toWords((char[]) left, leftSize);
+        long[] other = right instanceof long[] w ? w : toWords((char[]) right, rightSize);
+        int size = 0;
+        for (int k = 0; k < WORDS; k++) {
+            words[k] = switch (operation) {
+                case AND -> words[k] & other[k];
+                case OR -> words[k] | other[k];
+                default -> words[k] & ~other[k];
+            };
+            size += Long.bitCount(words[k]);
+        }
+        if (size > ARRAY_MAX) {
+            appendChunk(key, words, size);
+        } else if (size > 0) {
+            appendChunk(key, toValues(words, size), size);
+        }
+    }
+
+    // Keeps the array's values that are (or, with keep false, are not) set in the bitmap
+    private void appendFiltered(char key, char[] values, int size, long[] words, boolean keep) {
+        char[] kept = new char[size];
+        int count = 0;
+        for (int k = 0; k < size; k++) {
+            char value = values[k];
+            if (((words[value >>> 6] & 1L << value) != 0) == keep) {
+                kept[count++] = value;
+            }
+        }
+        if (count > 0) {
+            appendChunk(key, kept, count);
+        }
+    }
+
+    private static int merge(char[] a, int aSize, char[] b, int bSize, char[] out, int operation) {
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < aSize && j < bSize) {
+            if (a[i] < b[j]) {
+                if (operation != AND) {
+                    out[size++] = a[i];
+                }
+                i++;
+            } else if (a[i] > b[j]) {
+                if (operation == OR) {
+                    out[size++] = b[j];
+                }
+                j++;
+            } else {
+                if (operation != AND_NOT) {
+                    out[size++] = a[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        if (operation != AND) {
+            while (i < aSize) {
+                out[size++] = a[i++];
+            }
+        }
+        if (operation == OR) {
+            while (j < bSize) {
+                out[size++] = b[j++];
+            }
+        }
+        return size;
+    }
+
+    private static long[] toWords(char[] values, int size) {
+        long[] words = new long[WORDS];
+        for (int k = 0; k < size; k++) {
+            words[values[k] >>> 6] |= 1L << values[k];
+        }
+        return words;
+    }
+
+    private static char[] toValues(long[] words, int size) {
+        char[] values = new char[Math.max(size, 4)];
+        int count = 0;
+        for (int k = 0; k < WORDS; k++) {
+            long word = words[k];
+            while (word != 0) {
+                values[count++] = (char) (k << 6 | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    // Chunk directory
+
+    private int findChunk(char key) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else if (keys[mid] > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insertChunk(int at, char key, Object data, int size) {
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            sizes = Arrays.copyOf(sizes, chunkCount * 2);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunkCount - at);
+        System.arraycopy(chunks, at, chunks, at + 1, chunkCount - at);
+        System.arraycopy(sizes, at, sizes, at + 1, chunkCount - at);
+        keys[at] = key;
+        chunks[at] = data;
+        sizes[at] = size;
+        chunkCount++;
+    }
+
+    private void appendChunk(char key, Object data, int size) {
+        insertChunk(chunkCount, key, data, size);
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(keys, at + 1, keys, at, chunkCount - at - 1);
+        System.arraycopy(chunks, at + 1, chunks, at, chunkCount - at - 1);
+        System.arraycopy(sizes, at + 1, sizes, at, chunkCount - at - 1);
+        chunks[--chunkCount] = null;
+    }
+
+    // Iteration, in ascending code order
+
+    public void forEach(IntConsumer action) {
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int high = keys[chunk] << 16;
+            if (chunks[chunk] instanceof long[] words) {
+                for (int k = 0; k < WORDS; k++) {
+                    long word = words[k];
+                    while (word != 0) {
+                        action.accept(high | k << 6 | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) chunks[chunk];
+                for (int k = 0; k < sizes[chunk]; k++) {
+                    action.accept(high | values[k]);
+                }
+            }
+        }
+    }
+
+    /** Walks the codes without copying them; the bitmap must not change meanwhile. */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk;
+            private int position; // Index into the array, or the next bit to look at in the bitmap
+            private int next = advance();
+
+            private int advance() {
+                for (; chunk < chunkCount; chunk++, position = 0) {
+                    int high = keys[chunk] << 16;
+                    if (chunks[chunk] instanceof long[] words) {
+                        for (int k = position >>> 6; k < WORDS; k++) {
+                            long word = k == position >>> 6 ? words[k] & -1L << position : words[k];
+                            if (word != 0) {
+                                int bit = k << 6 | Long.numberOfTrailingZeros(word);
+                                position = bit + 1;
+                                if (position == WORDS << 6) {
+                                    chunk++;
+                                    position = 0;
+                                }
+                                return high | bit;
+                            }
+                        }
+                    } else if (position < sizes[chunk]) {
+                        int value = ((char[]) chunks[chunk])[position++];
+                        if (position == sizes[chunk]) {
+                            chunk++;
+                            position = 0;
+                        }
+                        return high | value;
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+}
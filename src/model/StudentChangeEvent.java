@@ -0,0 +1,98 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Net change between two roster versions, delivered to {@link StudentChangeListener}s.
+ * Students that were added and deleted again inside one batch do not appear. A reset event carries no
+ * details and means "reload everything"; it is sent when the change is not tracked per student.
+ */
+public final class StudentChangeEvent {
+    private final long fromVersion;
+    private final long toVersion;
+    private final List<Student> added;
+    private final List<Student> updated;
+    private final List<Student> previous;
+    private final List<Student> removed;
+    private final boolean reset;
+
+    StudentChangeEvent(long fromVersion, long toVersion, List<Student> added, List<Student> updated,
+                       List<Student> previous, List<Student> removed, boolean reset) {
+        if (updated.size() != previous.size()) {
+            throw new IllegalArgumentException("Every updated student needs its previous value");
+        }
+        this.fromVersion = fromVersion;
+        this.toVersion = toVersion;
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.previous = Collections.unmodifiableList(previous);
+        this.removed = Collections.unmodifiableList(removed);
+        this.reset = reset;
+    }
+
+    static StudentChangeEvent added(long fromVersion, long toVersion, List<Student> added) {
+        return new StudentChangeEvent(fromVersion, toVersion, added, List.of(), List.of(), List.of(), false);
+    }
+
+    static StudentChangeEvent updated(long fromVersion, Student before, Student after) {
+        return new StudentChangeEvent(fromVersion, fromVersion + 1, List.of(), List.of(after), List.of(before), List.of(), false);
+    }
+
+    static StudentChangeEvent removed(long fromVersion, Student student) {
+        return new StudentChangeEvent(fromVersion, fromVersion + 1, List.of(), List.of(), List.of(), List.of(student), false);
+    }
+
+    static StudentChangeEvent reset(long fromVersion, long toVersion) {
+        return new StudentChangeEvent(fromVersion, toVersion, List.of(), List.of(), List.of(), List.of(), true);
+    }
+
+    /** Roster version before the change. */
+    public long getFromVersion() {
+        return fromVersion;
+    }
+
+    /** Roster version after the change. */
+    public long getToVersion() {
+        return toVersion;
+    }
+
+    /** Students that are new in this change, in insertion order. */
+    public List<Student> getAdded() {
+        return added;
+    }
+
+    /** The new values of students that existed before and still exist. */
+    public List<Student> getUpdated() {
+        return updated;
+    }
+
+    /** The values before the change of the students in {@link #getUpdated()}, at the same positions (old score, name). */
+    public List<Student> getPrevious() {
+        return previous;
+    }
+
+    /** The last values of students that were deleted. */
+    public List<Student> getRemoved() {
+        return removed;
+    }
+
+    /** True if the change is not described per student and listeners should reload. */
+    public boolean isReset() {
+        return reset;
+    }
+
+    public int getChangeCount() {
+        return added.size() + updated.size() + removed.size();
+    }
+
+    public boolean isEmpty() {
+        return !reset && getChangeCount() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentChangeEvent[" + fromVersion + " -> " + toVersion + (reset ? ", reset" :
+               ", +" + added.size() + " ~" + updated.size() + " -" + removed.size()) + "]";
+    }
+}
@@ -0,0 +1,9 @@
+package model;
+
+/**
+ * Receives the net change of each roster mutation or batch from StudentManager.
+ * Called on the mutating thread, after the write lock is released.
+ */
+public interface StudentChangeListener {
+    void studentsChanged(StudentChangeEvent event);
+}
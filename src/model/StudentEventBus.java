@@ -0,0 +1,224 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers {@link StudentChangeEvent}s off the writer's thread, coalescing bursts.
+ * <p>
+ * Events from the manager are merged per student ID into one pending change and delivered at most once
+ * per frame on a dedicated thread: a student updated a hundred times shows up once, with its first old
+ * value and its last new value, and one that was added and removed in between does not show up at all.
+ * Subscribers given an executor (for example {@code SwingUtilities::invokeLater}) are run there, and the
+ * bus waits for them before taking the next frame, so a slow subscriber makes events coarser instead of
+ * piling up. Once too many students are pending, the details are dropped and a reset event is sent.
+ * <p>
+ * The manager fires events after releasing its lock, so concurrent writers can deliver them out of order.
+ * Merging goes by version, not arrival: the oldest before and the newest after win. A frame whose events
+ * leave a version out waits one more frame for it, then goes out as a reset.
+ */
+public class StudentEventBus implements StudentChangeListener, AutoCloseable {
+    public static final long FRAME_MILLIS = 16;
+    public static final int MAX_PENDING_CHANGES = 10_000;
+
+    private static final class Pending {
+        Student before; // null if the student did not exist at beforeVersion
+        Student after;  // null if the student no longer exists at afterVersion
+        long beforeVersion;
+        long afterVersion;
+
+        Pending(Student before, Student after, long beforeVersion, long afterVersion) {
+            this.before = before;
+            this.after = after;
+            this.beforeVersion = beforeVersion;
+            this.afterVersion = afterVersion;
+        }
+    }
+
+    private record Subscription(StudentChangeListener listener, Executor executor) {
+    }
+
+    private final StudentManager manager;
+    private final ScheduledExecutorService dispatcher;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private long pendingFrom = -1;
+    private long pendingTo;
+    private long pendingVersions; // Versions the pending events cover; short of pendingTo - pendingFrom on a gap
+    private boolean pendingReset;
+    private boolean heldForGap;
+    private boolean flushScheduled;
+    private boolean closed;
+
+    /** Creates a bus and subscribes it to the manager; {@link #close()} unsubscribes it. */
+    public StudentEventBus(StudentManager manager) {
+        this.manager = manager;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "student-event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        manager.addStudentChangeListener(this);
+    }
+
+    /** Delivers events on the bus thread; the listener must not block for long. */
+    public void subscribe(StudentChangeListener listener) {
+        subscriptions.add(new Subscription(listener, null));
+    }
+
+    /**
+     * Delivers events through an executor, one at a time; the bus waits for each delivery to finish.
+     * @param listener The listener
+     * @param executor Where to run it, e.g. {@code SwingUtilities::invokeLater}
+     */
+    public void subscribe(StudentChangeListener listener, Executor executor) {
+        subscriptions.add(new Subscription(listener, executor));
+    }
+
+    public void unsubscribe(StudentChangeListener listener) {
+        subscriptions.removeIf(subscription -> subscription.listener() == listener);
+    }
+
+    /** Merges a change from the manager into the pending frame; called on the writer's thread. */
+    @Override
+    public synchronized void studentsChanged(StudentChangeEvent event) {
+        if (closed) {
+            return;
+        }
+        pendingFrom = pendingFrom < 0 ? event.getFromVersion() : Math.min(pendingFrom, event.getFromVersion());
+        pendingTo = Math.max(pendingTo, event.getToVersion());
+        pendingVersions += event.getToVersion() - event.getFromVersion();
+        if (event.isReset() || pendingReset || pending.size() + event.getChangeCount() > MAX_PENDING_CHANGES) {
+            pendingReset = true;
+            pending.clear();
+        } else {
+            for (Student student : event.getAdded()) {
+                merge(event, null, student);
+            }
+            List<Student> updated = event.getUpdated();
+            for (int i = 0; i < updated.size(); i++) {
+                merge(event, event.getPrevious().get(i), updated.get(i));
+            }
+            for (Student student : event.getRemoved()) {
+                merge(event, student, null);
+            }
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            dispatcher.schedule(this::flush, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // The oldest before and the newest after win, by version rather than by arrival
+    private void merge(StudentChangeEvent event, Student before, Student after) {
+        String id = (after != null ? after : before).getId();
+        Pending existing = pending.get(id);
+        if (existing == null) {
+            pending.put(id, new Pending(before, after, event.getFromVersion(), event.getToVersion()));
+            return;
+        }
+        if (event.getToVersion() > existing.afterVersion) {
+            existing.after = after;
+            existing.afterVersion = event.getToVersion();
+        }
+        if (event.getFromVersion() < existing.beforeVersion) {
+            existing.before = before;
+            existing.beforeVersion = event.getFromVersion();
+        }
+    }
+
+    private void flush() {
+        StudentChangeEvent event;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            boolean gap = pendingFrom >= 0 && pendingVersions != pendingTo - pendingFrom;
+            if (gap && !heldForGap) {
+                // A writer between its unlock and its event; give it a frame to arrive
+                heldForGap = true;
+                dispatcher.schedule(this::flush, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (gap) {
+                pendingReset = true;
+            }
+            heldForGap = false;
+            flushScheduled = false;
+            event = takePending();
+        }
+        if (event == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            try {
+                if (subscription.executor() == null) {
+                    subscription.listener().studentsChanged(event);
+                } else {
+                    // Waiting here is the backpressure: new changes keep merging into the next frame
+                    CompletableFuture.runAsync(() -> subscription.listener().studentsChanged(event),
+                                               subscription.executor()).join();
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Builds the net event for everything pending and starts a new frame; null if nothing is pending
+    private StudentChangeEvent takePending() {
+        if (pendingFrom < 0) {
+            return null;
+        }
+        StudentChangeEvent event;
+        if (pendingReset) {
+            event = StudentChangeEvent.reset(pendingFrom, pendingTo);
+        } else {
+            List<Student> added = new ArrayList<>();
+            List<Student> updated = new ArrayList<>();
+            List<Student> previous = new ArrayList<>();
+            List<Student> removed = new ArrayList<>();
+            for (Pending change : pending.values()) {
+                if (change.before == null) {
+                    if (change.after != null) {
+                        added.add(change.after);
+                    }
+                } else if (change.after == null) {
+                    removed.add(change.before);
+                } else {
+                    updated.add(change.after);
+                    previous.add(change.before);
+                }
+            }
+            event = new StudentChangeEvent(pendingFrom, pendingTo, added, updated, previous, removed, false);
+        }
+        pending.clear();
+        pendingFrom = -1;
+        pendingTo = 0;
+        pendingVersions = 0;
+        pendingReset = false;
+        return event;
+    }
+
+    /** Unsubscribes from the manager and stops delivering; pending changes are dropped. */
+    @Override
+    public void close() {
+        manager.removeStudentChangeListener(this);
+        synchronized (this) {
+            closed = true;
+            pending.clear();
+            pendingFrom = -1;
+        }
+        dispatcher.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+/**
+ * Packs student IDs of the form {@code BC} followed by five digits into an int (the numeric part)
+ * and back. Validation is a fixed-length character check, with no regex compilation or matching.
+ */
+public final class StudentIdCodec {
+    public static final int MAX_ID = 99_999;
+    public static final int INVALID = -1;
+
+    private static final int ID_LENGTH = 7;
+    private static final String PREFIX = "BC";
+
+    private StudentIdCodec() {
+    }
+
+    /**
+     * Encodes an ID to its numeric part.
+     * @param id The ID to encode, e.g. "BC00042"
+     * @return The numeric part (42), or {@link #INVALID} if the ID is malformed
+     */
+    public static int encode(String id) {
+        if (id == null || id.length() != ID_LENGTH || !id.startsWith(PREFIX)) {
+            return INVALID;
+        }
+        int value = 0;
+        for (int i = PREFIX.length(); i < ID_LENGTH; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Encodes an ID held as ASCII bytes, e.g. straight from a file buffer, without building a String.
+     * @param bytes The buffer holding the ID
+     * @param offset Where the ID starts
+     * @param length The ID length in bytes
+     * @return The numeric part, or {@link #INVALID} if the ID is malformed
+     */
+    public static int encode(byte[] bytes, int offset, int length) {
+        if (length != ID_LENGTH || bytes[offset] != 'B' || bytes[offset + 1] != 'C') {
+            return INVALID;
+        }
+        int value = 0;
+        for (int i = offset + PREFIX.length(); i < offset + ID_LENGTH; i++) {
+            byte b = bytes[i];
+            if (b < '0' || b > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a numeric part back to its ID string.
+     * @param code The numeric part, in [0, MAX_ID]
+     * @return The ID, e.g. "BC00042"
+     */
+    public static String decode(int code) {
+        if (code < 0 || code > MAX_ID) {
+            throw new IllegalArgumentException("Student ID code out of range: " + code);
+        }
+        char[] chars = {'B', 'C', '0', '0', '0', '0', '0'};
+        for (int i = ID_LENGTH - 1; code > 0; i--) {
+            chars[i] = (char) ('0' + code % 10);
+            code /= 10;
+        }
+        return new String(chars);
+    }
+
+    public static boolean isValid(String id) {
+        return encode(id) != INVALID;
+    }
+}
@@ -1,286 +1,1305 @@
 package model;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
-public class StudentManager {
+public class StudentManager implements StudentStorage {
     // Primary data structures
-    private final List<Student> students;               // ArrayList to store all students in order
-    private final Map<String, Student> studentMap;      // HashMap to find students by ID quickly
+    private final Map<String, Student> students;        // LinkedHashMap: insertion order, O(1) replace/remove by ID
+    private final Map<String, Student> studentMap;      // ConcurrentHashMap to find students by ID without locking
     
     // Search indices
-    private final Map<String, Set<Student>> nameIndex;  // Index for searching by name parts
-    private final Map<Double, Set<Student>> scoreIndex; // Index for searching by score
-    private final Map<String, Set<Student>> rankIndex;  // Index for searching by rank
+    private final NameIndex nameIndex;                  // Sorted name parts to ID codes, so a prefix is one range
+    private final Map<String, StudentBitmap> rankIndex;  // Lower-cased rank to ID codes
+    private final FuzzyNameIndex fuzzyNameIndex;         // Trigrams of the distinct name parts, for misspelled names
 
-    // Notification mechanism
-    private final List<Runnable> dataChangeListeners = new ArrayList<>();
+    // Ordered indices, maintained on every add/update/delete so sorted reads never sort
+    private final ScoreBuckets scoreOrder;              // Counting-sort buckets by score, ties by ID
+    private final NavigableSet<Student> nameOrder;      // Name (case-insensitive A-Z), ties by ID
+    private final NavigableMap<String, Student> idOrder; // ID (natural order)
+
+    // Read access to the indices above for query plans
+    private final QueryPlanner.Indexes plannerIndexes = new PlannerIndexes();
+
+    public static final Comparator<Student> SCORE_DESCENDING =
+            Comparator.comparingDouble(Student::getScore).reversed().thenComparing(Student::getId);
+    public static final Comparator<Student> SCORE_ASCENDING =
+            Comparator.comparingDouble(Student::getScore).thenComparing(Student::getId);
+    public static final Comparator<Student> NAME_ASCENDING =
+            Comparator.comparing(Student::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Student::getId);
+
+    /**
+     * The order the sorted getters and {@link #forEachStudent} return students in, as a comparator: scores
+     * compare in hundredths as the score index walks them, ties by ID. Insertion order has no comparator
+     * and gives ID order.
+     * @param order The walk order
+     * @return A comparator consistent with that walk
+     */
+    public static Comparator<Student> comparator(StudentOrder order) {
+        return QueryPlanner.comparator(order);
+    }
+
+    // Engine used for ad-hoc sorts of result sets (search results, imports)
+    private volatile SortEngine sortEngine = new IntroSortEngine();
+
+    // Comparison sorts switch to the fork/join engine from two leaves' worth of students, when it has more
+    // than one worker (the rule Arrays.parallelSort follows). On one worker it measures level with introsort
+    // from 10k to 100k students, so the switch costs nothing where it cannot help.
+    public static final int PARALLEL_SORT_THRESHOLD = 2 * ParallelMergeSortEngine.DEFAULT_LEAF_SIZE;
+    private volatile SortEngine parallelSortEngine = new ParallelMergeSortEngine();
+    private volatile boolean parallelSortEnabled = true;
+
+    // Score sorts of result sets switch to counting sort from this many students
+    public static final int COUNTING_SORT_THRESHOLD = 256;
+    private volatile ScoreSortStrategy scoreSortStrategy = ScoreSortStrategy.AUTO;
+
+    // Concurrency: writers are serialized by the write lock, index reads share the read lock,
+    // and scalar reads use optimistic stamps that never block. StampedLock is not reentrant,
+    // so no method may call another locking method while holding a stamp.
+    private final StampedLock lock = new StampedLock();
+
+    // Running aggregates, maintained with the indices so every statistic is O(1)
+    private long scoreSumHundredths;
+    private final int[] rankCounts = new int[Rank.values().length];
+
+    // Every mutation bumps the version; the snapshot for a version is built once on first read
+    private volatile long version;
+    private volatile RosterSnapshot snapshot;
+
+    // Students per read lock hold when walking an ordered index
+    private static final int WALK_PAGE_SIZE = 1024;
+
+    // Optional write-ahead log: appended under the write lock, awaited after it is released
+    private volatile MutationLog mutationLog;
+
+    // Notification mechanism (listeners run on the mutating thread, outside the lock; views
+    // subscribe through a StudentEventBus instead, which moves delivery off this thread)
+    private final List<StudentChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile long notifiedVersion;
+
+    // A batch touching more students than this fraction of the roster rebuilds the indices from scratch
+    private static final double BATCH_REBUILD_FRACTION = 0.5;
+
+    // Rebuilds frozen name indices off the writers' threads; one thread serves every manager
+    private static final ExecutorService NAME_INDEX_BUILDER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "name-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean nameIndexCompacting = new AtomicBoolean();
 
     public StudentManager() {
-        students = new ArrayList<>();
-        studentMap = new HashMap<>();
-        nameIndex = new HashMap<>();
-        scoreIndex = new HashMap<>();
+        students = new LinkedHashMap<>();
+        studentMap = new ConcurrentHashMap<>();
+        nameIndex = new NameIndex();
+        fuzzyNameIndex = new FuzzyNameIndex();
         rankIndex = new HashMap<>();
+        scoreOrder = new ScoreBuckets();
+        nameOrder = new TreeSet<>(NAME_ASCENDING);
+        idOrder = new TreeMap<>();
+        snapshot = buildSnapshot();
     }
 
-    public void addDataChangeListener(Runnable listener) {
-        dataChangeListeners.add(listener);
+    public void addStudentChangeListener(StudentChangeListener listener) {
+        changeListeners.add(listener);
     }
 
-    private void notifyDataChangeListeners() {
-        for (Runnable listener : dataChangeListeners) {
-            listener.run();
+    public void removeStudentChangeListener(StudentChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Tells listeners that the roster changed without describing how; they get a reset event.
+     * Used by loaders that insert several batches with notification deferred.
+     */
+    public void notifyDataChangeListeners() {
+        long current = version;
+        fireChange(StudentChangeEvent.reset(Math.min(notifiedVersion, current), current));
+    }
+
+    private void fireChange(StudentChangeEvent event) {
+        notifiedVersion = Math.max(notifiedVersion, event.getToVersion());
+        for (StudentChangeListener listener : changeListeners) {
+            listener.studentsChanged(event);
+        }
+    }
+
+    private <T> T readLocked(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
     public boolean addStudent(Student student) {
-        if (!isValidStudentId(student.getId()) || studentMap.containsKey(student.getId())) {
+        if (!isValidStudentId(student.getId())) {
             return false;
         }
-        
-        students.add(student);
+        student = withRoundedScore(student);
+
+        long sequence;
+        long stamp = lock.writeLock();
+        try {
+            if (studentMap.containsKey(student.getId())) {
+                return false;
+            }
+            sequence = logMutation(Mutation.add(student));
+            applyAdd(student);
+            version = sequence;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitDurable(sequence);
+        fireChange(StudentChangeEvent.added(sequence - 1, sequence, List.of(student)));
+        return true;
+    }
+
+    /**
+     * Adds many students under a single write lock acquisition and notifies listeners once.
+     * IDs that are invalid, already present, or repeated within the batch are skipped, as
+     * {@link #addStudent(Student)} would; earlier occurrences win.
+     * @param batch The students to add, in insertion order
+     * @return The number of students added
+     */
+    public int addStudents(Collection<Student> batch) {
+        return addStudents(batch, true);
+    }
+
+    /**
+     * Bulk add for loaders that insert several batches in a row.
+     * @param batch The students to add, in insertion order
+     * @param notifyListeners false to skip notification; the caller then calls
+     *                        {@link #notifyDataChangeListeners()} once after the last batch
+     * @return The number of students added
+     */
+    public int addStudents(Collection<Student> batch, boolean notifyListeners) {
+        List<Student> added = new ArrayList<>();
+        long fromVersion;
+        long sequence;
+        long stamp = lock.writeLock();
+        try {
+            fromVersion = version;
+            for (Student student : batch) {
+                if (!isValidStudentId(student.getId()) || studentMap.containsKey(student.getId())) {
+                    continue;
+                }
+                Student stored = withRoundedScore(student);
+                sequence = logMutation(Mutation.add(stored));
+                applyAdd(stored);
+                version = sequence;
+                added.add(stored);
+            }
+            sequence = version;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (!added.isEmpty()) {
+            awaitDurable(sequence);
+            if (notifyListeners) {
+                fireChange(StudentChangeEvent.added(fromVersion, sequence, added));
+            }
+        }
+        return added.size();
+    }
+
+    /**
+     * Applies a list of mutations atomically: all of them, or none if any one is invalid.
+     * Each mutation is checked against the roster as the earlier ones in the list leave it, so a batch
+     * may, for example, add a student and then update it. Indices are maintained once per affected student,
+     * from its state before and after the whole batch (or rebuilt outright when the batch touches most of
+     * the roster), and listeners receive one event with the net change.
+     * @param mutations The mutations, in order; each one consumes a version number
+     * @return The net change
+     * @throws IllegalArgumentException If a mutation is invalid; nothing is applied or logged
+     */
+    public StudentChangeEvent applyBatch(List<Mutation> mutations) {
+        StudentChangeEvent event;
+        long stamp = lock.writeLock();
+        try {
+            // ID -> value after the batch so far, in first-touch order; a null value means deleted
+            Map<String, Student> pending = new LinkedHashMap<>();
+            Student[] results = new Student[mutations.size()];
+            for (int i = 0; i < mutations.size(); i++) {
+                Mutation mutation = mutations.get(i);
+                String id = mutation.getId();
+                Student current = pending.containsKey(id) ? pending.get(id) : studentMap.get(id);
+                switch (mutation.getType()) {
+                    case ADD -> {
+                        if (!isValidStudentId(id)) {
+                            throw invalidMutation(i, mutation, "ID must be BC followed by five digits");
+                        }
+                        if (current != null) {
+                            throw invalidMutation(i, mutation, "ID already exists");
+                        }
+                    }
+                    case UPDATE, DELETE -> {
+                        if (current == null) {
+                            throw invalidMutation(i, mutation, "no such student");
+                        }
+                    }
+                }
+                if (mutation.getType() != Mutation.Type.DELETE && mutation.getName() == null) {
+                    throw invalidMutation(i, mutation, "name is missing");
+                }
+                results[i] = mutation.getType() == Mutation.Type.DELETE ? null : withRoundedScore(mutation.toStudent());
+                pending.put(id, results[i]);
+            }
+
+            long fromVersion = version;
+            if (mutations.isEmpty()) {
+                return StudentChangeEvent.added(fromVersion, fromVersion, List.of());
+            }
+            MutationLog log = mutationLog;
+            if (log != null) {
+                log.appendBatch(fromVersion + 1, mutations);
+            }
+
+            // Replaying the puts and removes in order leaves insertion order as one-by-one calls would
+            for (int i = 0; i < mutations.size(); i++) {
+                if (results[i] == null) {
+                    students.remove(mutations.get(i).getId());
+                } else {
+                    students.put(results[i].getId(), results[i]);
+                }
+            }
+
+            List<Student> added = new ArrayList<>();
+            List<Student> updated = new ArrayList<>();
+            List<Student> previous = new ArrayList<>();
+            List<Student> removed = new ArrayList<>();
+            boolean rebuild = pending.size() > students.size() * BATCH_REBUILD_FRACTION;
+            for (Map.Entry<String, Student> change : pending.entrySet()) {
+                Student before = studentMap.get(change.getKey());
+                Student after = change.getValue();
+                if (before == null && after == null) {
+                    continue; // Added and deleted inside the batch
+                }
+                if (!rebuild && before != null) {
+                    removeFromSearchIndices(before);
+                }
+                if (after != null) {
+                    studentMap.put(after.getId(), after);
+                    if (!rebuild) {
+                        updateSearchIndices(after);
+                    }
+                    if (before == null) {
+                        added.add(after);
+                    } else {
+                        updated.add(after);
+                        previous.add(before);
+                    }
+                } else {
+                    studentMap.remove(before.getId());
+                    removed.add(before);
+                }
+            }
+            if (rebuild) {
+                rebuildSearchIndices(fromVersion + mutations.size());
+            }
+            version = fromVersion + mutations.size();
+            event = new StudentChangeEvent(fromVersion, version, added, updated, previous, removed, false);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitDurable(event.getToVersion());
+        fireChange(event);
+        return event;
+    }
+
+    private static IllegalArgumentException invalidMutation(int index, Mutation mutation, String reason) {
+        return new IllegalArgumentException("Mutation " + index + " (" + mutation + "): " + reason);
+    }
+
+    // Writes the mutation ahead of applying it; caller holds the write lock. Returns the new version.
+    private long logMutation(Mutation mutation) {
+        long sequence = version + 1;
+        MutationLog log = mutationLog;
+        if (log != null) {
+            log.append(sequence, mutation);
+        }
+        return sequence;
+    }
+
+    private void awaitDurable(long sequence) {
+        MutationLog log = mutationLog;
+        if (log != null) {
+            log.awaitDurable(sequence);
+        }
+    }
+
+    // Appliers: caller holds the write lock and has checked that the change is valid
+    private void applyAdd(Student student) {
+        students.put(student.getId(), student);
         studentMap.put(student.getId(), student);
         updateSearchIndices(student);
-        notifyDataChangeListeners();
-        return true;
     }
 
-    private void updateSearchIndices(Student student) {
-        // Index by name parts
-        String[] nameParts = student.getName().toLowerCase().split("\\s+");
-        for (String part : nameParts) {
-            nameIndex.computeIfAbsent(part, _ -> new HashSet<>()).add(student);
+    private Student applyUpdate(Student existingStudent, Student student) {
+        // Replace rather than mutate, so students captured by published snapshots stay unchanged
+        Student updatedStudent = new Student(student.getId(), student.getName(), roundScore(student.getScore()));
+        removeFromSearchIndices(existingStudent);
+        students.put(updatedStudent.getId(), updatedStudent);
+        studentMap.put(updatedStudent.getId(), updatedStudent);
+        updateSearchIndices(updatedStudent);
+        return updatedStudent;
+    }
+
+    private void applyDelete(Student student) {
+        removeFromSearchIndices(student);
+        students.remove(student.getId());
+        studentMap.remove(student.getId());
+    }
+
+    /**
+     * Re-applies a logged mutation during recovery, without logging it again or notifying listeners.
+     * Mutations at or below the current version are skipped, so replaying overlapping logs is safe; a newer
+     * one must be the very next version, so records lost in between are caught rather than skipped over.
+     * @param sequence The version the mutation produced when it was logged
+     * @param mutation The mutation to apply
+     * @return true if the mutation was newer than the current state
+     * @throws IllegalStateException If the sequence is past the next version; nothing is applied
+     */
+    public boolean replay(long sequence, Mutation mutation) {
+        long stamp = lock.writeLock();
+        try {
+            if (sequence <= version) {
+                return false;
+            }
+            if (sequence != version + 1) {
+                throw new IllegalStateException("Replay gap: expected sequence " + (version + 1) + ", got " + sequence);
+            }
+            Student existingStudent = studentMap.get(mutation.getId());
+            switch (mutation.getType()) {
+                case ADD -> {
+                    if (existingStudent == null && isValidStudentId(mutation.getId())) {
+                        applyAdd(withRoundedScore(mutation.toStudent()));
+                    }
+                }
+                case UPDATE -> {
+                    if (existingStudent != null) {
+                        applyUpdate(existingStudent, mutation.toStudent());
+                    }
+                }
+                case DELETE -> {
+                    if (existingStudent != null) {
+                        applyDelete(existingStudent);
+                    }
+                }
+            }
+            version = sequence;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        // Index by score
-        scoreIndex.computeIfAbsent(student.getScore(), _ -> new HashSet<>()).add(student);
-        
-        // Index by rank
-        rankIndex.computeIfAbsent(student.getRank().toLowerCase(), _ -> new HashSet<>()).add(student);
     }
 
-    private void removeFromSearchIndices(Student student) {
-        // Remove from name index
-        String[] nameParts = student.getName().toLowerCase().split("\\s+");
-        for (String part : nameParts) {
-            Set<Student> studentSet = nameIndex.get(part);
-            if (studentSet != null) {
-                studentSet.remove(student);
-                if (studentSet.isEmpty()) {
-                    nameIndex.remove(part);
+    /**
+     * Loads a checkpointed roster into an empty manager, without logging it or notifying listeners.
+     * @param checkpoint The students captured by the checkpoint
+     * @param checkpointVersion The version the checkpoint was taken at; later log records replay on top of it
+     * @throws IllegalStateException If the manager already holds students or has seen mutations
+     */
+    public void restore(Collection<Student> checkpoint, long checkpointVersion) {
+        long stamp = lock.writeLock();
+        try {
+            if (version != 0 || !students.isEmpty()) {
+                throw new IllegalStateException("Can only restore into an empty roster (version " + version + ")");
+            }
+            for (Student student : checkpoint) {
+                if (isValidStudentId(student.getId()) && !studentMap.containsKey(student.getId())) {
+                    applyAdd(withRoundedScore(student));
                 }
             }
+            nameIndex.reset(NameIndex.freeze(students.values(), checkpointVersion));
+            version = checkpointVersion;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        // Remove from score index
-        Set<Student> scoreStudents = scoreIndex.get(student.getScore());
-        if (scoreStudents != null) {
-            scoreStudents.remove(student);
-            if (scoreStudents.isEmpty()) {
-                scoreIndex.remove(student.getScore());
+    }
+
+    public MutationLog getMutationLog() {
+        return mutationLog;
+    }
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
+    }
+
+    // Lower-cased, whitespace-separated name parts; hand-rolled because every indexed student goes through it
+    static List<String> nameParts(String name) {
+        String lower = name.toLowerCase();
+        List<String> parts = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            if (Character.isWhitespace(lower.charAt(i))) {
+                if (start >= 0) {
+                    parts.add(lower.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
             }
         }
+        if (start >= 0) {
+            parts.add(start == 0 ? lower : lower.substring(start));
+        }
+        return parts;
+    }
+
+    // Caller holds the write lock; recomputes every index and aggregate from the students map,
+    // which will be the roster at coveredVersion
+    private void rebuildSearchIndices(long coveredVersion) {
+        nameIndex.reset(NameIndex.freeze(students.values(), coveredVersion));
+        fuzzyNameIndex.clear();
+        rankIndex.clear();
+        scoreOrder.clear();
+        nameOrder.clear();
+        idOrder.clear();
+        scoreSumHundredths = 0;
+        Arrays.fill(rankCounts, 0);
+        for (Student student : students.values()) {
+            updateValueIndices(student);
+        }
+    }
+
+    private void updateSearchIndices(Student student) {
+        // Index by name parts; the change is stamped with the version it is made on top of
+        nameIndex.put(StudentIdCodec.encode(student.getId()), student.getName(), version);
+        scheduleNameIndexCompaction();
+        updateValueIndices(student);
+    }
+
+    // Every index but the name index
+    private void updateValueIndices(Student student) {
+        // Index by rank
+        int code = StudentIdCodec.encode(student.getId());
+        rankIndex.computeIfAbsent(student.getRank().toLowerCase(), _ -> new StudentBitmap()).add(code);
+
+        // Name parts for typo-tolerant search
+        fuzzyNameIndex.add(student.getName());
+
+        // Running aggregates
+        scoreSumHundredths += ScoreCountingSort.toHundredths(student.getScore());
+        rankCounts[student.getRankLevel().ordinal()]++;
+
+        // Ordered indices
+        scoreOrder.add(student);
+        nameOrder.add(student);
+        idOrder.put(student.getId(), student);
+    }
+
+    private void removeFromSearchIndices(Student student) {
+        int code = StudentIdCodec.encode(student.getId());
+
+        // Remove from name indices
+        nameIndex.remove(code, version);
+        fuzzyNameIndex.remove(student.getName());
         
         // Remove from rank index
-        Set<Student> rankStudents = rankIndex.get(student.getRank().toLowerCase());
+        StudentBitmap rankStudents = rankIndex.get(student.getRank().toLowerCase());
         if (rankStudents != null) {
-            rankStudents.remove(student);
+            rankStudents.remove(code);
             if (rankStudents.isEmpty()) {
                 rankIndex.remove(student.getRank().toLowerCase());
             }
         }
+
+        // Running aggregates
+        scoreSumHundredths -= ScoreCountingSort.toHundredths(student.getScore());
+        rankCounts[student.getRankLevel().ordinal()]--;
+
+        // Remove from ordered indices (must happen before the student's name/score change,
+        // otherwise the tree can no longer locate the entry)
+        scoreOrder.remove(student);
+        nameOrder.remove(student);
+        idOrder.remove(student.getId());
+    }
+
+    // Caller holds the write lock; at most one rebuild per manager is queued at a time
+    private void scheduleNameIndexCompaction() {
+        if (nameIndex.needsCompaction() && nameIndexCompacting.compareAndSet(false, true)) {
+            NAME_INDEX_BUILDER.execute(this::compactNameIndex);
+        }
+    }
+
+    // Freezes the name index from a snapshot without blocking writers, then swaps it in under the write lock;
+    // changes made after the snapshot stay in the overlay
+    private void compactNameIndex() {
+        try {
+            if (!readLocked(nameIndex::needsCompaction)) {
+                return; // A batch rebuild or restore got there first
+            }
+            RosterSnapshot current = getSnapshot();
+            NameIndex.Frozen rebuilt = NameIndex.freeze(current.getStudents(), current.getVersion());
+            long stamp = lock.writeLock();
+            try {
+                nameIndex.install(rebuilt);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            nameIndexCompacting.set(false);
+        }
+    }
+
+    // Caller holds the read or write lock
+    private Student studentForCode(int code) {
+        return studentMap.get(StudentIdCodec.decode(code));
+    }
+
+    // Caller holds the read or write lock
+    private Set<Student> studentsFor(StudentBitmap codes) {
+        Set<Student> result = new HashSet<>();
+        if (codes != null) {
+            codes.forEach(code -> result.add(studentForCode(code)));
+        }
+        return result;
     }
 
     public boolean updateStudent(Student student) {
-        Student existingStudent = studentMap.get(student.getId());
-        if (existingStudent == null) {
-            return false;
+        long sequence;
+        Student previousStudent;
+        Student updatedStudent;
+        long stamp = lock.writeLock();
+        try {
+            Student existingStudent = studentMap.get(student.getId());
+            if (existingStudent == null) {
+                return false;
+            }
+            
+            sequence = logMutation(Mutation.update(student));
+            previousStudent = existingStudent;
+            updatedStudent = applyUpdate(existingStudent, student);
+            version = sequence;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        removeFromSearchIndices(existingStudent);
-        
-        existingStudent.setName(student.getName());
-        existingStudent.setScore(student.getScore());
-        
-        updateSearchIndices(existingStudent);
-        notifyDataChangeListeners();
+        awaitDurable(sequence);
+        fireChange(StudentChangeEvent.updated(sequence - 1, previousStudent, updatedStudent));
         return true;
     }
 
     public boolean deleteStudent(String id) {
-        Student student = studentMap.get(id);
-        if (student == null) {
-            return false;
+        long sequence;
+        Student deletedStudent;
+        long stamp = lock.writeLock();
+        try {
+            Student student = studentMap.get(id);
+            if (student == null) {
+                return false;
+            }
+            
+            sequence = logMutation(Mutation.delete(id));
+            applyDelete(student);
+            version = sequence;
+            deletedStudent = student;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        
-        removeFromSearchIndices(student);
-        students.remove(student);
-        studentMap.remove(id);
-        notifyDataChangeListeners();
+        awaitDurable(sequence);
+        fireChange(StudentChangeEvent.removed(sequence - 1, deletedStudent));
         return true;
     }
 
-    // Quick Sort implementation for sorting students by score
-    public List<Student> getSortedStudentsByScore() {
-        List<Student> sortedList = new ArrayList<>(students);
-        quickSort(sortedList, 0, sortedList.size() - 1);
-        return sortedList;
-    }
-
-    private void quickSort(List<Student> list, int low, int high) {
-        if (low < high) {
-            int pi = partition(list, low, high);
-            quickSort(list, low, pi - 1);
-            quickSort(list, pi + 1, high);
+    // Sorted views are read straight from the ordered indices: O(n) walk, no sorting
+    /**
+     * Visits every student in the given order without copying the roster.
+     * Insertion order walks the current {@link RosterSnapshot}, so it is a consistent view. The sorted orders
+     * walk the ordered indices a page at a time, holding the read lock only while a page is filled and
+     * running the action outside it; edits made during the walk may show up in later pages.
+     * @param order The order to visit students in
+     * @param action Called once per student, never under the lock
+     * @return The version every page was read at, or -1 if the roster changed during the walk
+     */
+    public long forEachStudent(StudentOrder order, Consumer<Student> action) {
+        if (order == StudentOrder.INSERTION) {
+            RosterSnapshot current = getSnapshot();
+            current.getStudents().forEach(action);
+            return current.getVersion();
         }
+        return walkPages((after, page) -> fillPage(order, after, page), action);
     }
 
-    private int partition(List<Student> list, int low, int high) {
-        Student pivot = list.get(high);
-        int i = low - 1;
+    // Fills a page with the students following after (exclusive; null to start); called under the read lock
+    private interface PageSource {
+        int fill(Student after, Student[] page);
+    }
 
-        for (int j = low; j < high; j++) {
-            if (list.get(j).getScore() >= pivot.getScore()) {
-                i++;
-                Collections.swap(list, i, j);
+    private long walkPages(PageSource source, Consumer<Student> action) {
+        Student[] page = new Student[WALK_PAGE_SIZE];
+        Student after = null;
+        long walkVersion = -2;
+        while (true) {
+            int count;
+            long stamp = lock.readLock();
+            try {
+                count = source.fill(after, page);
+                walkVersion = walkVersion == -2 || walkVersion == version ? version : -1;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(page[i]);
+            }
+            if (count < page.length) {
+                return walkVersion;
             }
+            after = page[count - 1];
         }
-        Collections.swap(list, i + 1, high);
-        return i + 1;
+    }
+
+    // Fills page with the students following after (exclusive; null to start); caller holds the read lock
+    private int fillPage(StudentOrder order, Student after, Student[] page) {
+        if (order == StudentOrder.SCORE_DESCENDING || order == StudentOrder.SCORE_ASCENDING) {
+            return scoreOrder.page(after, order == StudentOrder.SCORE_DESCENDING, page);
+        }
+        Iterable<Student> source = switch (order) {
+            case ID -> (after == null ? idOrder : idOrder.tailMap(after.getId(), false)).values();
+            case NAME_ASCENDING -> after == null ? nameOrder : nameOrder.tailSet(after, false);
+            case NAME_DESCENDING -> after == null ? nameOrder.descendingSet() : nameOrder.headSet(after, false).descendingSet();
+            default -> throw new IllegalArgumentException("Not an index order: " + order);
+        };
+        int count = 0;
+        for (Iterator<Student> it = source.iterator(); count < page.length && it.hasNext(); ) {
+            page[count++] = it.next();
+        }
+        return count;
+    }
+
+    public List<Student> getSortedStudentsByScore() {
+        return readLocked(() -> scoreOrder.descending(Integer.MAX_VALUE));
     }
 
     public List<Student> getSortedStudentsByScoreAscending() {
-        List<Student> sortedList = new ArrayList<>(students);
-        quickSortAscending(sortedList, 0, sortedList.size() - 1, Comparator.comparingDouble(Student::getScore));
-        return sortedList;
+        return readLocked(scoreOrder::ascending);
     }
 
     public List<Student> getSortedStudentsByName(boolean ascending) {
-        List<Student> sortedList = new ArrayList<>(students);
-        Comparator<Student> comparator = Comparator.comparing(Student::getName, String.CASE_INSENSITIVE_ORDER);
-        if (!ascending) {
-            comparator = comparator.reversed();
-        }
-        quickSortAscending(sortedList, 0, sortedList.size() - 1, comparator);
-        return sortedList;
+        return readLocked(() -> new ArrayList<>(ascending ? nameOrder : nameOrder.descendingSet()));
     }
 
     public List<Student> getSortedStudentsById() {
-        List<Student> sortedList = new ArrayList<>(students);
-        quickSortAscending(sortedList, 0, sortedList.size() - 1, Comparator.comparing(Student::getId));
+        return readLocked(() -> new ArrayList<>(idOrder.values()));
+    }
+
+    // Sorts an arbitrary collection of students with the configured sort engine
+    public List<Student> sortStudents(Collection<Student> source, Comparator<Student> comparator) {
+        List<Student> sortedList = new ArrayList<>(source);
+        selectSortEngine(sortedList.size()).sort(sortedList, comparator);
         return sortedList;
     }
 
-    private void quickSortAscending(List<Student> list, int low, int high, Comparator<Student> comparator) {
-        if (low < high) {
-            int pi = partitionAscending(list, low, high, comparator);
-            quickSortAscending(list, low, pi - 1, comparator);
-            quickSortAscending(list, pi + 1, high, comparator);
+    // Sorts an arbitrary collection of students by score using the resolved strategy
+    public List<Student> sortStudentsByScore(Collection<Student> source, boolean descending) {
+        List<Student> sortedList = new ArrayList<>(source);
+        if (resolveScoreSortStrategy(sortedList.size()) == ScoreSortStrategy.COUNTING) {
+            ScoreCountingSort.sort(sortedList, descending);
+        } else {
+            selectSortEngine(sortedList.size()).sort(sortedList, descending ? SCORE_DESCENDING : SCORE_ASCENDING);
         }
+        return sortedList;
     }
 
-    private int partitionAscending(List<Student> list, int low, int high, Comparator<Student> comparator) {
-        Student pivot = list.get(high);
-        int i = low - 1;
-
-        for (int j = low; j < high; j++) {
-            if (comparator.compare(list.get(j), pivot) <= 0) {
-                i++;
-                Collections.swap(list, i, j);
-            }
+    // Returns the strategy actually used for a population of the given size
+    public ScoreSortStrategy resolveScoreSortStrategy(int size) {
+        if (scoreSortStrategy != ScoreSortStrategy.AUTO) {
+            return scoreSortStrategy;
         }
-        Collections.swap(list, i + 1, high);
-        return i + 1;
+        return size >= COUNTING_SORT_THRESHOLD ? ScoreSortStrategy.COUNTING : ScoreSortStrategy.COMPARISON;
+    }
+
+    public ScoreSortStrategy getScoreSortStrategy() {
+        return scoreSortStrategy;
+    }
+
+    public void setScoreSortStrategy(ScoreSortStrategy scoreSortStrategy) {
+        this.scoreSortStrategy = Objects.requireNonNull(scoreSortStrategy);
+    }
+
+    // Returns the comparison engine used for a population of the given size
+    public SortEngine selectSortEngine(int size) {
+        SortEngine parallel = parallelSortEngine;
+        boolean oneWorker = parallel instanceof ParallelMergeSortEngine engine && engine.getParallelism() < 2;
+        return parallelSortEnabled && size >= PARALLEL_SORT_THRESHOLD && !oneWorker ? parallel : sortEngine;
+    }
+
+    public boolean isParallelSortEnabled() {
+        return parallelSortEnabled;
+    }
+
+    public void setParallelSortEnabled(boolean parallelSortEnabled) {
+        this.parallelSortEnabled = parallelSortEnabled;
+    }
+
+    public void setParallelSortEngine(SortEngine parallelSortEngine) {
+        this.parallelSortEngine = Objects.requireNonNull(parallelSortEngine);
+    }
+
+    public SortEngine getSortEngine() {
+        return sortEngine;
+    }
+
+    public void setSortEngine(SortEngine sortEngine) {
+        this.sortEngine = Objects.requireNonNull(sortEngine);
     }
 
     // Efficient search methods using indices
     public Student findStudentById(String id) {
-        return studentMap.get(id);  // O(1) lookup
+        return studentMap.get(id);  // O(1) lookup, lock-free
     }
 
     public Set<Student> findStudentsByName(String name) {
-        String searchTerm = name.toLowerCase();
-        Set<Student> result = new HashSet<>();
-        for (String part : searchTerm.split("\\s+")) {
-            Set<Student> found = nameIndex.get(part);
-            if (found != null) {
-                if (result.isEmpty()) {
-                    result.addAll(found);
-                } else {
-                    result.retainAll(found); // Intersection for multi-word search
+        List<String> searchTerms = nameParts(name);
+        return readLocked(() -> {
+            StudentBitmap result = null;
+            for (String part : searchTerms) {
+                StudentBitmap found = nameIndex.exactMatches(part);
+                if (!found.isEmpty()) {
+                    result = result == null ? found : result.and(found); // Intersection for multi-word search
                 }
             }
+            return studentsFor(result);
+        });
+    }
+
+    /**
+     * Search-as-you-type lookup. Every query term must start a part of the student's name (case-insensitive);
+     * a single term of the form BC plus digits also matches students whose ID starts with it, so {@code bc001}
+     * lists BC00100-BC00199.
+     * @param query Whitespace-separated prefixes
+     * @return The matches, in no particular order
+     */
+    public List<Student> findStudentsByPrefix(String query) {
+        List<String> terms = nameParts(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Scan the longest term's range, which is the narrowest, and check the others per student
+        String longest = terms.get(0);
+        for (String term : terms) {
+            if (term.length() > longest.length()) {
+                longest = term;
+            }
         }
-        return result;
+        String scanned = longest;
+        return readLocked(() -> {
+            Set<Student> matches = new HashSet<>();
+            nameIndex.forEachPrefix(scanned, code -> {
+                Student student = studentForCode(code);
+                if (terms.size() == 1 || matchesPrefixes(student, terms)) {
+                    matches.add(student);
+                }
+            });
+            if (terms.size() == 1 && isIdPrefix(scanned)) {
+                String idPrefix = scanned.toUpperCase();
+                matches.addAll(idOrder.subMap(idPrefix, true, idPrefix + Character.MAX_VALUE, false).values());
+            }
+            return new ArrayList<>(matches);
+        });
     }
 
+    /**
+     * Autocomplete: the k highest-scoring students whose name matches the prefix terms as in
+     * {@link #findStudentsByPrefix(String)} (names only, no IDs), ties by ID. Only the best postings of the
+     * matching name parts are visited, so the cost does not grow with the number of matches.
+     * @param query Whitespace-separated prefixes
+     * @param k The most students to return
+     * @return Best first
+     */
+    public List<Student> completeByPrefix(String query, int k) {
+        List<String> terms = nameParts(query);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String longest = terms.get(0);
+        for (String term : terms) {
+            if (term.length() > longest.length()) {
+                longest = term;
+            }
+        }
+        String scanned = longest;
+        return readLocked(() -> nameIndex.top(scanned, k, this::studentForCode,
+                                              terms.size() == 1 ? null : student -> matchesPrefixes(student, terms)));
+    }
+
+    /**
+     * Typo-tolerant name search: every query term must match a part of the name within a few edits (none
+     * for terms up to 2 letters, one up to 5, two beyond; swapping neighbouring letters is one edit), so
+     * {@code jonh smiht} finds John Smith.
+     * @param query Whitespace-separated name parts, possibly misspelled
+     * @param limit The most students to return
+     * @return Closest first (fewest edits over all terms), then highest score, then ID
+     */
+    public List<Student> findStudentsByFuzzyName(String query, int limit) {
+        List<String> terms = nameParts(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return readLocked(() -> {
+            // Summed distance per student that matched every term so far, kept only for those students;
+            // matches are taken closest first, so the first time a term reaches a student is its best
+            Map<Integer, Integer> edits = null;
+            for (String term : terms) {
+                List<FuzzyNameIndex.Match> matches = fuzzyNameIndex.matches(term, FuzzyNameIndex.maxDistance(term));
+                matches.sort(Comparator.comparingInt(FuzzyNameIndex.Match::distance));
+                Map<Integer, Integer> previous = edits;
+                Map<Integer, Integer> reached = new HashMap<>();
+                for (FuzzyNameIndex.Match match : matches) {
+                    int distance = match.distance();
+                    nameIndex.forEachExact(match.term(), code -> {
+                        if (!reached.containsKey(code)) {
+                            if (previous == null) {
+                                reached.put(code, distance);
+                            } else {
+                                Integer before = previous.get(code);
+                                if (before != null) {
+                                    reached.put(code, before + distance);
+                                }
+                            }
+                        }
+                    });
+                }
+                edits = reached;
+                if (edits.isEmpty()) {
+                    break;
+                }
+            }
+
+            // Fewest edits, then best score, then ID: edits above a name index posting key
+            long[] keys = new long[edits.size()];
+            int found = 0;
+            for (Map.Entry<Integer, Integer> entry : edits.entrySet()) {
+                int code = entry.getKey();
+                keys[found++] = (long) entry.getValue() << 32 | NameIndex.posting(code, studentForCode(code).getScore());
+            }
+            Arrays.sort(keys, 0, found);
+            List<Student> result = new ArrayList<>(Math.min(found, limit));
+            for (int i = 0; i < found && i < limit; i++) {
+                result.add(studentForCode(NameIndex.codeOf((int) keys[i])));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Caps the memory of the typo-tolerant name index's trigram postings. A smaller budget drops the most
+     * common trigrams, trading memory for slower fuzzy searches on names that contain them.
+     * @param bytes The budget, {@link FuzzyNameIndex#DEFAULT_MEMORY_BUDGET} by default
+     */
+    public void setFuzzyIndexBudget(long bytes) {
+        long stamp = lock.writeLock();
+        try {
+            fuzzyNameIndex.setMemoryBudget(bytes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long getFuzzyIndexBudget() {
+        return readLocked(fuzzyNameIndex::getMemoryBudget);
+    }
+
+    /** Estimated bytes of the typo-tolerant name index's trigram postings. */
+    public long getFuzzyIndexBytes() {
+        return readLocked(fuzzyNameIndex::getEstimatedBytes);
+    }
+
+    // "bc" and at least one digit; shorter prefixes would match every ID
+    static boolean isIdPrefix(String term) {
+        if (term.length() < 3 || term.length() > 7 || !term.regionMatches(true, 0, "bc", 0, 2)) {
+            return false;
+        }
+        for (int i = 2; i < term.length(); i++) {
+            if (term.charAt(i) < '0' || term.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True if the student matches the prefix terms the way findStudentsByPrefix does
+    static boolean matchesPrefixes(Student student, List<String> terms) {
+        if (terms.isEmpty()) {
+            return false;
+        }
+        String first = terms.get(0);
+        if (terms.size() == 1 && isIdPrefix(first) && student.getId().regionMatches(true, 0, first, 0, first.length())) {
+            return true;
+        }
+        for (String term : terms) {
+            if (!nameHasPrefix(student.getName(), term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True if a part of the name starts with the term, ignoring case. Compares in place at each word start
+    // rather than splitting the name; this runs per student when narrowing
+    static boolean nameHasPrefix(String name, String term) {
+        for (int i = 0; i + term.length() <= name.length(); i++) {
+            boolean wordStart = i == 0 || Character.isWhitespace(name.charAt(i - 1));
+            if (wordStart && !Character.isWhitespace(name.charAt(i)) && name.regionMatches(true, i, term, 0, term.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Students whose score rounds to the same hundredth, so 7.1 finds a score parsed or computed as 7.1000000001. */
     public Set<Student> findStudentsByScore(double score) {
-        Set<Student> result = scoreIndex.get(score);
-        return result != null ? new HashSet<>(result) : new HashSet<>();
+        int key = ScoreCountingSort.toHundredths(score);
+        return readLocked(() -> {
+            Set<Student> result = new HashSet<>();
+            scoreOrder.forEach(key, key, result::add);
+            return result;
+        });
+    }
+
+    // Score ranges: bounds are inclusive and compared in hundredths, like every score index here; use
+    // Double.NEGATIVE_INFINITY or POSITIVE_INFINITY for an open end ("score >= 9")
+
+    /**
+     * Students scoring from min to max, lowest first (ties by ID). Only the buckets in the range are read,
+     * O(buckets + k).
+     */
+    public List<Student> findStudentsByScoreRange(double min, double max) {
+        int fromKey = lowerKey(min);
+        int toKey = upperKey(max);
+        return readLocked(() -> {
+            List<Student> result = new ArrayList<>(scoreOrder.count(fromKey, toKey));
+            scoreOrder.forEach(fromKey, toKey, result::add);
+            return result;
+        });
+    }
+
+    /** Number of students scoring from min to max, in O(buckets) without visiting them. */
+    public int countStudentsByScoreRange(double min, double max) {
+        int fromKey = lowerKey(min);
+        int toKey = upperKey(max);
+        return readLocked(() -> scoreOrder.count(fromKey, toKey));
+    }
+
+    /**
+     * Visits the students scoring from min to max without copying the range, a page at a time as
+     * {@link #forEachStudent} does.
+     * @return The version every page was read at, or -1 if the roster changed during the walk
+     */
+    public long forEachStudentInScoreRange(double min, double max, boolean descending, Consumer<Student> action) {
+        int fromKey = lowerKey(min);
+        int toKey = upperKey(max);
+        return walkPages((after, page) -> scoreOrder.page(after, descending, fromKey, toKey, page), action);
+    }
+
+    // Lowest key in the range: a bound within rounding error of a hundredth is that hundredth
+    static int lowerKey(double min) {
+        if (Double.isNaN(min)) {
+            throw new IllegalArgumentException("Score bound is not a number");
+        }
+        double scaled = min * 100;
+        double key = Math.abs(scaled - Math.rint(scaled)) < 1e-6 ? Math.rint(scaled) : Math.ceil(scaled);
+        return (int) Math.max(0, Math.min(key, ScoreCountingSort.BUCKET_COUNT));
+    }
+
+    // Highest key in the range; below lowerKey when the range is empty
+    static int upperKey(double max) {
+        if (Double.isNaN(max)) {
+            throw new IllegalArgumentException("Score bound is not a number");
+        }
+        double scaled = max * 100;
+        double key = Math.abs(scaled - Math.rint(scaled)) < 1e-6 ? Math.rint(scaled) : Math.floor(scaled);
+        return (int) Math.max(-1, Math.min(key, ScoreCountingSort.BUCKET_COUNT - 1));
     }
 
     public Set<Student> findStudentsByRank(String rank) {
-        Set<Student> result = rankIndex.get(rank.toLowerCase());
-        return result != null ? new HashSet<>(result) : new HashSet<>();
+        String key = rank.toLowerCase();
+        return readLocked(() -> studentsFor(rankIndex.get(key)));
+    }
+
+    // Bitmap queries: each returns a new bitmap of ID codes, so criteria combine with and/or/andNot
+    // without touching a student; resolve() turns the result into students at the end
+
+    public StudentBitmap matchScore(double score) {
+        int key = ScoreCountingSort.toHundredths(score);
+        return readLocked(() -> codesInScoreRange(key, key));
+    }
+
+    public StudentBitmap matchScoreRange(double min, double max) {
+        int fromKey = lowerKey(min);
+        int toKey = upperKey(max);
+        return readLocked(() -> codesInScoreRange(fromKey, toKey));
+    }
+
+    // Caller holds the read lock; buckets are in ID order, so the codes arrive sorted per bucket
+    private StudentBitmap codesInScoreRange(int fromKey, int toKey) {
+        StudentBitmap codes = new StudentBitmap();
+        scoreOrder.forEach(fromKey, toKey, student -> codes.add(StudentIdCodec.encode(student.getId())));
+        return codes;
+    }
+
+    public StudentBitmap matchRank(String rank) {
+        String key = rank.toLowerCase();
+        return readLocked(() -> copyOf(rankIndex.get(key)));
+    }
+
+    /** Students for whom every term starts a part of their name, as in {@link #findStudentsByPrefix} but without IDs. */
+    public StudentBitmap matchNamePrefix(String query) {
+        List<String> terms = nameParts(query);
+        return readLocked(() -> {
+            StudentBitmap result = null;
+            for (String term : terms) {
+                StudentBitmap found = nameIndex.prefixMatches(term);
+                result = result == null ? found : result.and(found);
+            }
+            return result != null ? result : new StudentBitmap();
+        });
+    }
+
+    private static StudentBitmap copyOf(StudentBitmap codes) {
+        return codes != null ? codes.copy() : new StudentBitmap();
+    }
+
+    /**
+     * The students behind a bitmap query, in ID order. Bitmaps from separate calls may straddle a change;
+     * codes whose student has since been deleted are skipped.
+     */
+    public List<Student> resolve(StudentBitmap codes) {
+        return readLocked(() -> {
+            List<Student> result = new ArrayList<>(codes.cardinality());
+            codes.forEach(code -> {
+                Student student = studentForCode(code);
+                if (student != null) {
+                    result.add(student);
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * Runs a query, letting the planner choose which indices to read; see {@link #explain} for its choice.
+     * @return A new list the caller may keep and modify
+     */
+    public List<Student> query(StudentQuery query) {
+        return readLocked(() -> new QueryPlanner(plannerIndexes).plan(query).run());
+    }
+
+    /** How {@link #query} would run the query against the roster as it is now, with estimated costs. */
+    public String explain(StudentQuery query) {
+        return readLocked(() -> new QueryPlanner(plannerIndexes).plan(query).toString());
+    }
+
+    // The planner's view of the indices; every call happens under the read lock taken by query()
+    private final class PlannerIndexes implements QueryPlanner.Indexes {
+        @Override
+        public int size() {
+            return studentMap.size();
+        }
+
+        @Override
+        public int estimate(StudentQuery.Criterion leaf) {
+            return switch (leaf) {
+                case StudentQuery.IdPrefix id -> estimateIdPrefix(id.prefix());
+                case StudentQuery.NamePrefix name -> nameIndex.estimatePrefix(name.prefix());
+                case StudentQuery.ScoreRange range -> scoreOrder.count(range.fromKey(), range.toKey());
+                case StudentQuery.RankIs rank -> rankCounts[rank.rank().ordinal()];
+                default -> throw new IllegalArgumentException("Not a leaf criterion: " + leaf);
+            };
+        }
+
+        // IDs spread evenly over the code space: a prefix with d digits covers 10^(5-d) codes
+        private int estimateIdPrefix(String prefix) {
+            if ("BC".startsWith(prefix)) {
+                return studentMap.size();
+            }
+            if (!isIdPrefix(prefix)) {
+                return 0;
+            }
+            double covered = Math.pow(10, 7 - prefix.length()) / (StudentIdCodec.MAX_ID + 1);
+            return (int) Math.ceil(Math.min(1, covered) * studentMap.size());
+        }
+
+        @Override
+        public StudentBitmap postings(StudentQuery.Criterion leaf) {
+            return switch (leaf) {
+                case StudentQuery.IdPrefix id -> {
+                    StudentBitmap codes = new StudentBitmap();
+                    for (String studentId : idOrder.subMap(id.prefix(), true, id.prefix() + Character.MAX_VALUE, false).keySet()) {
+                        codes.add(StudentIdCodec.encode(studentId));
+                    }
+                    yield codes;
+                }
+                case StudentQuery.NamePrefix name -> nameIndex.prefixMatches(name.prefix());
+                case StudentQuery.ScoreRange range -> codesInScoreRange(range.fromKey(), range.toKey());
+                case StudentQuery.RankIs rank -> copyOf(rankIndex.get(rank.rank().getLabel().toLowerCase()));
+                default -> throw new IllegalArgumentException("Not a leaf criterion: " + leaf);
+            };
+        }
+
+        @Override
+        public Student student(int code) {
+            return studentForCode(code);
+        }
+
+        @Override
+        public void walk(StudentOrder order, int fromKey, int toKey, Predicate<Student> visitor) {
+            if (order == StudentOrder.SCORE_DESCENDING || order == StudentOrder.SCORE_ASCENDING) {
+                scoreOrder.forEachWhile(fromKey, toKey, order == StudentOrder.SCORE_DESCENDING, visitor);
+                return;
+            }
+            Iterable<Student> walked = switch (order) {
+                case NAME_ASCENDING -> nameOrder;
+                case NAME_DESCENDING -> nameOrder.descendingSet();
+                default -> idOrder.values();
+            };
+            for (Student student : walked) {
+                if (!visitor.test(student)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public List<Student> topByScore(String prefix, int k, Predicate<Student> filter) {
+            return nameIndex.top(prefix, k, StudentManager.this::studentForCode, filter);
+        }
+    }
+
+    // Snapshot publication: one volatile read when nothing changed since the last snapshot
+    public RosterSnapshot getSnapshot() {
+        RosterSnapshot current = snapshot;
+        if (current.getVersion() == version) {
+            return current;
+        }
+        RosterSnapshot rebuilt = readLocked(this::buildSnapshot);
+        if (rebuilt.getVersion() > snapshot.getVersion()) {
+            snapshot = rebuilt; // A racing reader may publish the same version; both are equivalent
+        }
+        return rebuilt;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Caller must hold the read or write lock
+    private RosterSnapshot buildSnapshot() {
+        Student[] all = students.values().toArray(new Student[0]);
+        return new RosterSnapshot(all, scoreOrder.descending(RosterSnapshot.TOP_STUDENT_COUNT), readStatistics());
+    }
+
+    // O(1) statistics: an optimistic read of the running aggregates, retried under the read lock on conflict
+    public ScoreStatistics getStatistics() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            ScoreStatistics statistics = readStatistics();
+            if (lock.validate(stamp)) {
+                return statistics;
+            }
+        }
+        return readLocked(this::readStatistics);
+    }
+
+    // Reads plain fields only, so it cannot throw on the torn state an optimistic read may see
+    private ScoreStatistics readStatistics() {
+        int count = students.size();
+        int passCount = count - rankCounts[Rank.FAIL.ordinal()];
+        return new ScoreStatistics(version, count, scoreSumHundredths,
+                                   Math.max(0, scoreOrder.lowestKey()), Math.max(0, scoreOrder.highestKey()),
+                                   passCount, rankCounts);
+    }
+
+    /**
+     * Score at the given percentile (nearest rank), read from the score histogram in O(buckets).
+     * @param percentile Percentile in [0, 100]
+     * @return The score, or 0 when there are no students
+     */
+    public double getScorePercentile(double percentile) {
+        double clamped = Math.max(0, Math.min(100, percentile));
+        return readLocked(() -> {
+            int count = scoreOrder.size();
+            if (count == 0) {
+                return 0.0;
+            }
+            int position = Math.max(0, (int) Math.ceil(clamped / 100 * count) - 1);
+            return scoreOrder.keyAt(position) / 100.0;
+        });
     }
 
     // Utility methods
+    // Returns the current snapshot's read-only list; copy it before modifying
     public List<Student> getAllStudents() {
-        return new ArrayList<>(students);
+        return getSnapshot().getStudents();
+    }
+
+    // Optimistic read: no blocking unless a writer got in between
+    public int getStudentCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = students.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = students.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
     }
 
     public boolean isValidStudentId(String id) {
-        return id != null && id.matches("BC\\d{5}");
+        return StudentIdCodec.isValid(id);
+    }
+
+    /**
+     * Rounds a score to hundredths, clamped to [0, 10]: the precision the indices, the change log and
+     * roster files keep. Students are stored with rounded scores, so a restart gives back the same values.
+     * @param score The score as entered
+     * @return The score the roster will hold
+     */
+    public static double roundScore(double score) {
+        return ScoreCountingSort.toHundredths(score) / 100.0;
+    }
+
+    private static Student withRoundedScore(Student student) {
+        double score = roundScore(student.getScore());
+        return score == student.getScore() ? student : new Student(student.getId(), student.getName(), score);
     }
 
     public double getAverageScore() {
-        if (students.isEmpty()) return 0.0;
-        return students.stream()
-                      .mapToDouble(Student::getScore)
-                      .average()
-                      .orElse(0.0);
+        return getStatistics().getAverageScore();
     }
 
     public double getHighestScore() {
-        if (students.isEmpty()) return 0.0;
-        return students.stream()
-                      .mapToDouble(Student::getScore)
-                      .max()
-                      .orElse(0.0);
+        return getStatistics().getHighestScore();
     }
 
     public double getLowestScore() {
-        if (students.isEmpty()) return 0.0;
-        return students.stream()
-                      .mapToDouble(Student::getScore)
-                      .min()
-                      .orElse(0.0);
+        return getStatistics().getLowestScore();
     }
 
     public int getPassCount() {
-        return (int) students.stream()
-                           .filter(s -> s.getScore() >= 5.0)
-                           .count();
+        return getStatistics().getPassCount();
     }
 
     public Map<String, Integer> getRankDistribution() {
-        Map<String, Integer> distribution = new HashMap<>();
-        distribution.put("Excellent", 0);
-        distribution.put("Very Good", 0);
-        distribution.put("Good", 0);
-        distribution.put("Medium", 0);
-        distribution.put("Fail", 0);
-        
-        for (Student student : students) {
-            String rank = student.getRank();
-            distribution.put(rank, distribution.get(rank) + 1);
-        }
-        return distribution;
+        return getStatistics().getRankDistribution();
     }
 
     public void addSampleData() {
-        if (students.isEmpty()) {
+        if (getStudentCount() == 0) {
             addStudent(new Student("BC00001", "John Doe", 8.5));
             addStudent(new Student("BC00002", "Jane Smith", 9.2));
             addStudent(new Student("BC00003", "Bob Johnson", 6.8));
@@ -295,10 +1314,6 @@ public class StudentManager {
     }
 
     public List<Student> getTopStudents(int n) {
-        List<Student> sortedList = new ArrayList<>(students);
-        sortedList.sort((s1, s2) -> Double.compare(s2.getScore(), s1.getScore())); // Sort descending
-        return sortedList.stream()
-                        .limit(n)
-                        .collect(Collectors.toList());
+        return readLocked(() -> scoreOrder.descending(Math.max(0, n)));
     }
 }
@@ -0,0 +1,17 @@
+package model;
+
+/**
+ * Orders in which StudentManager can walk the roster without copying it.
+ */
+public enum StudentOrder {
+    // The order students were added in
+    INSERTION,
+    // Student ID, ascending
+    ID,
+    // Name (case-insensitive), ties by ID
+    NAME_ASCENDING,
+    NAME_DESCENDING,
+    // Score, ties by ID
+    SCORE_DESCENDING,
+    SCORE_ASCENDING
+}
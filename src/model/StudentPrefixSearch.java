@@ -0,0 +1,67 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search-as-you-type over a {@link StudentManager}, one instance per search box.
+ * <p>
+ * The first query goes to {@link StudentManager#findStudentsByPrefix(String)}. While the user keeps typing,
+ * each query extends the previous one and so can only match fewer students; as long as the roster has not
+ * changed in between, the previous result is filtered instead of going back to the index. Results are in
+ * score order, highest first.
+ */
+public class StudentPrefixSearch {
+    private final StudentManager manager;
+
+    // The previous query, lower-cased without leading blanks, and its result
+    private String lastQuery;
+    private List<Student> lastResult;
+    private long lastVersion = -1;
+    private boolean lastMatchedIds;
+    private boolean lastNarrowed;
+
+    public StudentPrefixSearch(StudentManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * @param query Whitespace-separated prefixes, as typed
+     * @return A new list the caller may keep and modify
+     */
+    public synchronized List<Student> search(String query) {
+        String normalized = query.toLowerCase().stripLeading();
+        List<String> terms = StudentManager.nameParts(normalized);
+        if (terms.isEmpty()) {
+            lastResult = null;
+            return new ArrayList<>();
+        }
+        // Read the version first: if a change lands during the lookup, the next query starts over
+        long version = manager.getVersion();
+        List<Student> result;
+        // Typing "bc" into "bc0" switches ID matching on, which widens the result instead of narrowing it
+        boolean matchesIds = terms.size() == 1 && StudentManager.isIdPrefix(terms.get(0));
+        lastNarrowed = lastResult != null && version == lastVersion && normalized.startsWith(lastQuery)
+                && (!matchesIds || lastMatchedIds);
+        if (lastNarrowed) {
+            result = new ArrayList<>();
+            for (Student student : lastResult) {
+                if (StudentManager.matchesPrefixes(student, terms)) {
+                    result.add(student);
+                }
+            }
+        } else {
+            result = manager.sortStudentsByScore(manager.findStudentsByPrefix(normalized), true);
+        }
+        lastQuery = normalized;
+        lastResult = result;
+        lastVersion = version;
+        lastMatchedIds = matchesIds;
+        return new ArrayList<>(result);
+    }
+
+    /** True if the last search filtered the one before it rather than querying the index. */
+    public synchronized boolean wasLastNarrowed() {
+        return lastNarrowed;
+    }
+}
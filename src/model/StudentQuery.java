@@ -0,0 +1,377 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A search over the roster: conditions on ID prefix, name prefixes, score range and rank combined with
+ * AND and OR, plus an optional order and limit. {@link StudentManager#query} plans it against the indices,
+ * so callers say what they want rather than which index to use. Queries are immutable; {@link #orderBy}
+ * and {@link #limit} return new ones.
+ * <p>
+ * {@link #parse} reads the search box syntax: bare words are name prefixes ({@code john sm}), a bare
+ * {@code BC} plus digits also matches IDs, a bare number or range is a score, and fields narrow it down:
+ * {@code id:bc001 name:tran score:6.5-7.5 score:>=9 rank:good sort:score limit:10}. Terms are ANDed;
+ * an upper-case {@code OR} between them separates alternatives.
+ */
+public final class StudentQuery {
+    /** A condition on one student. */
+    public sealed interface Criterion permits IdPrefix, NamePrefix, ScoreRange, RankIs, All, Any {
+        boolean test(Student student);
+    }
+
+    /** The ID starts with the prefix, ignoring case. */
+    public record IdPrefix(String prefix) implements Criterion {
+        public IdPrefix {
+            prefix = prefix.toUpperCase(Locale.ROOT);
+        }
+
+        @Override
+        public boolean test(Student student) {
+            return student.getId().startsWith(prefix);
+        }
+
+        @Override
+        public String toString() {
+            return "id^" + prefix;
+        }
+    }
+
+    /** A part of the name starts with the prefix, ignoring case. */
+    public record NamePrefix(String prefix) implements Criterion {
+        public NamePrefix {
+            prefix = prefix.toLowerCase();
+        }
+
+        @Override
+        public boolean test(Student student) {
+            return StudentManager.nameHasPrefix(student.getName(), prefix);
+        }
+
+        @Override
+        public String toString() {
+            return "name^" + prefix;
+        }
+    }
+
+    /** The score, in hundredths of a point, lies from fromKey to toKey inclusive. */
+    public record ScoreRange(int fromKey, int toKey) implements Criterion {
+        @Override
+        public boolean test(Student student) {
+            int key = ScoreCountingSort.toHundredths(student.getScore());
+            return key >= fromKey && key <= toKey;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "score %.2f..%.2f", fromKey / 100.0, toKey / 100.0);
+        }
+    }
+
+    public record RankIs(Rank rank) implements Criterion {
+        @Override
+        public boolean test(Student student) {
+            return student.getRankLevel() == rank;
+        }
+
+        @Override
+        public String toString() {
+            return "rank=" + rank.getLabel();
+        }
+    }
+
+    /** Every criterion holds. */
+    public record All(List<Criterion> criteria) implements Criterion {
+        public All {
+            criteria = List.copyOf(criteria);
+        }
+
+        @Override
+        public boolean test(Student student) {
+            for (Criterion criterion : criteria) {
+                if (!criterion.test(student)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return join(criteria, " AND ");
+        }
+    }
+
+    /** At least one criterion holds. */
+    public record Any(List<Criterion> criteria) implements Criterion {
+        public Any {
+            criteria = List.copyOf(criteria);
+        }
+
+        @Override
+        public boolean test(Student student) {
+            for (Criterion criterion : criteria) {
+                if (criterion.test(student)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return join(criteria, " OR ");
+        }
+    }
+
+    private static String join(List<Criterion> criteria, String separator) {
+        List<String> parts = new ArrayList<>();
+        for (Criterion criterion : criteria) {
+            parts.add(criterion instanceof All || criterion instanceof Any ? "(" + criterion + ")" : criterion.toString());
+        }
+        return String.join(separator, parts);
+    }
+
+    // Criterion factories
+
+    public static Criterion idPrefix(String prefix) {
+        return new IdPrefix(prefix);
+    }
+
+    /** Every whitespace-separated term starts a part of the name. */
+    public static Criterion nameStartsWith(String terms) {
+        List<Criterion> parts = new ArrayList<>();
+        for (String part : StudentManager.nameParts(terms)) {
+            parts.add(new NamePrefix(part));
+        }
+        return and(parts.toArray(new Criterion[0]));
+    }
+
+    /** Score from min to max inclusive, compared in hundredths; infinite bounds leave an end open. */
+    public static Criterion scoreBetween(double min, double max) {
+        return new ScoreRange(StudentManager.lowerKey(min), StudentManager.upperKey(max));
+    }
+
+    public static Criterion rank(Rank rank) {
+        return new RankIs(rank);
+    }
+
+    /** All of the criteria; a single one is returned as is. */
+    public static Criterion and(Criterion... criteria) {
+        return criteria.length == 1 ? criteria[0] : new All(List.of(criteria));
+    }
+
+    /** Any of the criteria; a single one is returned as is. */
+    public static Criterion or(Criterion... criteria) {
+        return criteria.length == 1 ? criteria[0] : new Any(List.of(criteria));
+    }
+
+    private final Criterion criterion; // null matches every student
+    private final StudentOrder order;  // null for no particular order
+    private final int limit;           // Integer.MAX_VALUE for no limit
+
+    private StudentQuery(Criterion criterion, StudentOrder order, int limit) {
+        if (order == StudentOrder.INSERTION) {
+            throw new IllegalArgumentException("Queries cannot be ordered by insertion");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        this.criterion = criterion;
+        this.order = order;
+        this.limit = limit;
+    }
+
+    public static StudentQuery where(Criterion criterion) {
+        return new StudentQuery(criterion, null, Integer.MAX_VALUE);
+    }
+
+    /** Every student. */
+    public static StudentQuery all() {
+        return new StudentQuery(null, null, Integer.MAX_VALUE);
+    }
+
+    public StudentQuery orderBy(StudentOrder order) {
+        return new StudentQuery(criterion, order, limit);
+    }
+
+    public StudentQuery limit(int limit) {
+        return new StudentQuery(criterion, order, limit);
+    }
+
+    /** The condition, or null if every student matches. */
+    public Criterion getCriterion() {
+        return criterion;
+    }
+
+    /** The order, or null if the results may come in any order. */
+    public StudentOrder getOrder() {
+        return order;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Reads a query in the search box syntax described above.
+     * @throws IllegalArgumentException If a field value is malformed, naming the offending term
+     */
+    public static StudentQuery parse(String text) {
+        List<Criterion> alternatives = new ArrayList<>();
+        List<Criterion> terms = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        StudentOrder order = null;
+        int limit = Integer.MAX_VALUE;
+        for (String token : text.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (token.equals("OR")) {
+                addAlternative(alternatives, terms, words);
+                continue;
+            }
+            int colon = token.indexOf(':');
+            String field = colon > 0 ? token.substring(0, colon).toLowerCase(Locale.ROOT) : "";
+            String value = colon > 0 ? token.substring(colon + 1) : token;
+            switch (field) {
+                case "id" -> terms.add(new IdPrefix(value));
+                case "name" -> terms.add(nameStartsWith(value));
+                case "score" -> terms.add(parseScore(value));
+                case "rank" -> terms.add(new RankIs(parseRank(value)));
+                case "sort" -> order = parseOrder(value);
+                case "limit" -> limit = parseLimit(value);
+                default -> {
+                    if (isNumber(token) || token.startsWith(">") || token.startsWith("<") || token.matches("[0-9.]+-[0-9.]+")) {
+                        terms.add(parseScore(token));
+                    } else {
+                        words.add(token);
+                    }
+                }
+            }
+        }
+        addAlternative(alternatives, terms, words);
+        Criterion criterion = alternatives.isEmpty() ? null : or(alternatives.toArray(new Criterion[0]));
+        return new StudentQuery(criterion, order, limit);
+    }
+
+    // Closes one AND group; a lone BC-plus-digits word matches IDs as well as names, like the prefix search
+    private static void addAlternative(List<Criterion> alternatives, List<Criterion> terms, List<String> words) {
+        if (words.size() == 1 && terms.isEmpty() && StudentManager.isIdPrefix(words.get(0))) {
+            alternatives.add(or(new IdPrefix(words.get(0)), new NamePrefix(words.get(0))));
+        } else {
+            for (String word : words) {
+                terms.add(new NamePrefix(word));
+            }
+            if (!terms.isEmpty()) {
+                alternatives.add(and(terms.toArray(new Criterion[0])));
+            }
+        }
+        terms.clear();
+        words.clear();
+    }
+
+    private static boolean isNumber(String token) {
+        try {
+            Double.parseDouble(token);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // 7.5, 6.5-7.5, >=9, >9, <=5, <5
+    private static Criterion parseScore(String value) {
+        try {
+            if (value.startsWith(">=")) {
+                return scoreBetween(checkScore(value.substring(2)), Double.POSITIVE_INFINITY);
+            }
+            if (value.startsWith("<=")) {
+                return scoreBetween(Double.NEGATIVE_INFINITY, checkScore(value.substring(2)));
+            }
+            if (value.startsWith(">")) {
+                return scoreBetween(checkScore(value.substring(1)) + 0.01, Double.POSITIVE_INFINITY);
+            }
+            if (value.startsWith("<")) {
+                return scoreBetween(Double.NEGATIVE_INFINITY, checkScore(value.substring(1)) - 0.01);
+            }
+            int dash = value.indexOf('-', 1);
+            if (dash > 0) {
+                return scoreBetween(checkScore(value.substring(0, dash)), checkScore(value.substring(dash + 1)));
+            }
+            double score = checkScore(value);
+            return scoreBetween(score, score);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid score: " + value);
+        }
+    }
+
+    private static double checkScore(String text) {
+        double score = Double.parseDouble(text);
+        if (score < 0 || score > 10) {
+            throw new IllegalArgumentException("Score must be between 0 and 10");
+        }
+        return score;
+    }
+
+    // Labels without spaces or case: good, verygood, very_good, very-good
+    private static Rank parseRank(String value) {
+        String wanted = value.replaceAll("[\\s_-]", "");
+        for (Rank rank : Rank.values()) {
+            if (rank.getLabel().replace(" ", "").equalsIgnoreCase(wanted)) {
+                return rank;
+            }
+        }
+        throw new IllegalArgumentException("Unknown rank: " + value);
+    }
+
+    private static StudentOrder parseOrder(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "score", "-score", "score-desc" -> StudentOrder.SCORE_DESCENDING;
+            case "+score", "score-asc" -> StudentOrder.SCORE_ASCENDING;
+            case "name", "+name", "name-asc" -> StudentOrder.NAME_ASCENDING;
+            case "-name", "name-desc" -> StudentOrder.NAME_DESCENDING;
+            case "id" -> StudentOrder.ID;
+            default -> throw new IllegalArgumentException("Unknown sort order: " + value);
+        };
+    }
+
+    private static int parseLimit(String value) {
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit >= 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid limit: " + value);
+    }
+
+    /** True if the query is only name or ID prefixes, with no fields, order or limit: what live search handles. */
+    public boolean isPlainPrefixSearch() {
+        return order == null && !hasLimit() && criterion != null && isPrefixOnly(criterion);
+    }
+
+    private static boolean isPrefixOnly(Criterion criterion) {
+        return switch (criterion) {
+            case NamePrefix _ -> true;
+            case All all -> all.criteria().stream().allMatch(c -> c instanceof NamePrefix);
+            case Any any -> any.criteria().size() == 2 && any.criteria().get(0) instanceof IdPrefix
+                            && any.criteria().get(1) instanceof NamePrefix;
+            default -> false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return (criterion == null ? "all" : criterion.toString())
+                + (order != null ? " sort " + order : "")
+                + (hasLimit() ? " limit " + limit : "");
+    }
+}
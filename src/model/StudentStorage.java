@@ -0,0 +1,61 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The roster operations shared by every student storage layout, so the object-based
+ * StudentManager and the compact stores can be swapped and compared behind one API.
+ * The application itself always runs on StudentManager; the compact stores are only
+ * measured against it by the performance panel.
+ */
+public interface StudentStorage {
+
+    /**
+     * Adds a student.
+     * @param student The student to add
+     * @return false if the ID is invalid or already present
+     */
+    boolean addStudent(Student student);
+
+    /**
+     * Replaces the name and score of an existing student.
+     * @param student The new values, matched by ID
+     * @return false if no student has that ID
+     */
+    boolean updateStudent(Student student);
+
+    /**
+     * Removes a student.
+     * @param id The ID of the student to remove
+     * @return false if no student has that ID
+     */
+    boolean deleteStudent(String id);
+
+    /**
+     * Looks up a student by ID.
+     * @param id The ID to look up
+     * @return The student, or null if absent
+     */
+    Student findStudentById(String id);
+
+    int getStudentCount();
+
+    /**
+     * Returns the best students by score, ties by ID.
+     * @param n Maximum number of students to return
+     * @return Up to n students, highest score first
+     */
+    List<Student> getTopStudents(int n);
+
+    /**
+     * Returns all students by score, highest first, ties by ID.
+     * @return A new list of all students
+     */
+    List<Student> getSortedStudentsByScore();
+
+    /**
+     * Returns the aggregate statistics, maintained incrementally.
+     * @return Count, average, min/max, pass count and rank histogram
+     */
+    ScoreStatistics getStatistics();
+}
@@ -0,0 +1,437 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Columnar (struct-of-arrays) student storage.
+ * Each student occupies one slot across primitive columns: the ID as an int code, the score as
+ * short hundredths, the rank as a byte ordinal, and the name as an offset/length into a shared
+ * char arena. No per-student objects exist unless a caller asks for one; {@link View} is a
+ * reusable flyweight over a slot. IDs map to slots through a direct table indexed by ID code.
+ * <p>
+ * This store is a layout for comparison, not the application's roster: the application goes through
+ * StudentManager, which keeps its own objects along with the search indices, change log and events the
+ * store lacks. It is only exercised by the performance panel, through {@link StudentStorage}.
+ */
+public class StudentStore implements StudentStorage {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MIN_ARENA_TO_COMPACT = 1 << 12;
+    private static final Rank[] RANKS = Rank.values();
+
+    // Columns, indexed by slot
+    private int[] ids;
+    private short[] scores;
+    private byte[] ranks;
+    private int[] nameOffsets;
+    private int[] nameLengths;
+
+    // Name arena: names are appended; space left behind by updates/deletes is reclaimed by compaction
+    private char[] names;
+    private int namesUsed;
+    private int namesLive;
+
+    // ID code -> slot, EMPTY when absent
+    private final int[] slotById;
+
+    // Deleted slots are reused before the high-water mark grows
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    private int size;
+
+    // Running aggregates
+    private final int[] histogram = new int[ScoreCountingSort.BUCKET_COUNT];
+    private final int[] rankCounts = new int[RANKS.length];
+    private long scoreSumHundredths;
+    private long version;
+
+    private final StampedLock lock = new StampedLock();
+
+    public StudentStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public StudentStore(int initialCapacity) {
+        int capacity = Math.max(INITIAL_CAPACITY, initialCapacity);
+        ids = new int[capacity];
+        scores = new short[capacity];
+        ranks = new byte[capacity];
+        nameOffsets = new int[capacity];
+        nameLengths = new int[capacity];
+        names = new char[capacity * 8];
+        freeSlots = new int[INITIAL_CAPACITY];
+        slotById = new int[StudentIdCodec.MAX_ID + 1];
+        Arrays.fill(slotById, EMPTY);
+    }
+
+    /**
+     * Flyweight over one slot. A view is only meaningful until the store is next modified;
+     * use {@link #toStudent()} to keep a detached copy.
+     */
+    public final class View {
+        private int slot = EMPTY;
+
+        private View() {
+        }
+
+        public int getIdCode() {
+            return ids[slot];
+        }
+
+        public String getId() {
+            return StudentIdCodec.decode(ids[slot]);
+        }
+
+        public String getName() {
+            return new String(names, nameOffsets[slot], nameLengths[slot]);
+        }
+
+        public int getScoreHundredths() {
+            return scores[slot];
+        }
+
+        public double getScore() {
+            return scores[slot] / 100.0;
+        }
+
+        public Rank getRank() {
+            return RANKS[ranks[slot]];
+        }
+
+        public Student toStudent() {
+            return new Student(getId(), getName(), getScore());
+        }
+    }
+
+    public boolean addStudent(Student student) {
+        int code = StudentIdCodec.encode(student.getId());
+        if (code == StudentIdCodec.INVALID) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (slotById[code] != EMPTY) {
+                return false;
+            }
+            int slot = allocateSlot();
+            ids[slot] = code;
+            slotById[code] = slot;
+            writeName(slot, student.getName(), false);
+            writeScore(slot, student.getScore());
+            size++;
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean updateStudent(Student student) {
+        int code = StudentIdCodec.encode(student.getId());
+        long stamp = lock.writeLock();
+        try {
+            int slot = code == StudentIdCodec.INVALID ? EMPTY : slotById[code];
+            if (slot == EMPTY) {
+                return false;
+            }
+            clearScore(slot);
+            writeName(slot, student.getName(), true);
+            writeScore(slot, student.getScore());
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean deleteStudent(String id) {
+        int code = StudentIdCodec.encode(id);
+        long stamp = lock.writeLock();
+        try {
+            int slot = code == StudentIdCodec.INVALID ? EMPTY : slotById[code];
+            if (slot == EMPTY) {
+                return false;
+            }
+            clearScore(slot);
+            namesLive -= nameLengths[slot];
+            nameLengths[slot] = 0;
+            ids[slot] = EMPTY;
+            slotById[code] = EMPTY;
+            releaseSlot(slot);
+            size--;
+            version++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Student findStudentById(String id) {
+        int code = StudentIdCodec.encode(id);
+        if (code == StudentIdCodec.INVALID) {
+            return null;
+        }
+        long stamp = lock.readLock();
+        try {
+            int slot = slotById[code];
+            if (slot == EMPTY) {
+                return null;
+            }
+            View view = new View();
+            view.slot = slot;
+            return view.toStudent();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Runs the action for the student with the given ID without materializing a Student.
+     * @param id The ID to look up
+     * @param action Receives a flyweight view, valid only during the call
+     * @return false if no student has that ID
+     */
+    public boolean withStudent(String id, Consumer<View> action) {
+        int code = StudentIdCodec.encode(id);
+        if (code == StudentIdCodec.INVALID) {
+            return false;
+        }
+        long stamp = lock.readLock();
+        try {
+            int slot = slotById[code];
+            if (slot == EMPTY) {
+                return false;
+            }
+            View view = new View();
+            view.slot = slot;
+            action.accept(view);
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getStudentCount() {
+        long stamp = lock.tryOptimisticRead();
+        int count = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                count = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits every student in slot order through a single reused view.
+     * The action must not modify the store.
+     * @param action Receives the flyweight view, repositioned for each student
+     */
+    public void forEach(Consumer<View> action) {
+        long stamp = lock.readLock();
+        try {
+            View view = new View();
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != EMPTY) {
+                    view.slot = slot;
+                    action.accept(view);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Visits students in score order (ties by ID) through a single reused view.
+     * Ordering is a counting sort over the score histogram, O(n + 1001) with no comparisons.
+     * @param descending true for highest score first
+     * @param limit Maximum number of students to visit
+     * @param action Receives the flyweight view; must not modify the store
+     */
+    public void forEachByScore(boolean descending, int limit, Consumer<View> action) {
+        long stamp = lock.readLock();
+        try {
+            int[] order = slotsByScore(descending);
+            View view = new View();
+            for (int i = 0, n = Math.min(Math.max(0, limit), order.length); i < n; i++) {
+                view.slot = order[i];
+                action.accept(view);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Student> getTopStudents(int n) {
+        List<Student> result = new ArrayList<>(Math.max(0, Math.min(n, getStudentCount())));
+        forEachByScore(true, n, view -> result.add(view.toStudent()));
+        return result;
+    }
+
+    public List<Student> getSortedStudentsByScore() {
+        return getTopStudents(Integer.MAX_VALUE);
+    }
+
+    public ScoreStatistics getStatistics() {
+        long stamp = lock.readLock();
+        try {
+            int lowest = 0;
+            while (lowest < histogram.length - 1 && histogram[lowest] == 0) {
+                lowest++;
+            }
+            int highest = histogram.length - 1;
+            while (highest > 0 && histogram[highest] == 0) {
+                highest--;
+            }
+            int passCount = size - rankCounts[Rank.FAIL.ordinal()];
+            return new ScoreStatistics(version, size, scoreSumHundredths, lowest, highest, passCount, rankCounts);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Approximate retained heap of the columns, the arena and the lookup tables, in bytes.
+     * @return The footprint in bytes
+     */
+    public long getFootprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            long perSlot = Integer.BYTES * 3L + Short.BYTES + Byte.BYTES;
+            return ids.length * perSlot
+                   + (long) names.length * Character.BYTES
+                   + (long) slotById.length * Integer.BYTES
+                   + (long) freeSlots.length * Integer.BYTES
+                   + (long) (histogram.length + rankCounts.length) * Integer.BYTES;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Counting sort of live slots by score; visiting IDs in ascending order keeps ties ordered by ID
+    private int[] slotsByScore(boolean descending) {
+        int[] start = new int[histogram.length];
+        int position = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            int key = descending ? histogram.length - 1 - i : i;
+            start[key] = position;
+            position += histogram[key];
+        }
+        int[] order = new int[size];
+        if (size < slotById.length / 8) {
+            // Sparse store: sort the live slots by ID code instead of scanning the whole ID table
+            long[] byId = new long[size];
+            int count = 0;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != EMPTY) {
+                    byId[count++] = ((long) ids[slot] << 32) | slot;
+                }
+            }
+            Arrays.sort(byId);
+            for (long packed : byId) {
+                int slot = (int) packed;
+                order[start[scores[slot]]++] = slot;
+            }
+        } else {
+            for (int slot : slotById) {
+                if (slot != EMPTY) {
+                    order[start[scores[slot]]++] = slot;
+                }
+            }
+        }
+        return order;
+    }
+
+    private void writeScore(int slot, double score) {
+        int hundredths = ScoreCountingSort.toHundredths(score);
+        Rank rank = Rank.fromScore(hundredths / 100.0);
+        scores[slot] = (short) hundredths;
+        ranks[slot] = (byte) rank.ordinal();
+        histogram[hundredths]++;
+        rankCounts[rank.ordinal()]++;
+        scoreSumHundredths += hundredths;
+    }
+
+    private void clearScore(int slot) {
+        histogram[scores[slot]]--;
+        rankCounts[ranks[slot]]--;
+        scoreSumHundredths -= scores[slot];
+    }
+
+    private void writeName(int slot, String name, boolean replacing) {
+        int length = name.length();
+        if (replacing) {
+            namesLive -= nameLengths[slot];
+            if (length <= nameLengths[slot]) {
+                // Overwrite in place; the unused tail becomes garbage until the next compaction
+                name.getChars(0, length, names, nameOffsets[slot]);
+                nameLengths[slot] = length;
+                namesLive += length;
+                return;
+            }
+            nameLengths[slot] = 0;
+        }
+        if (namesUsed + length > names.length) {
+            compactNames(length);
+        }
+        name.getChars(0, length, names, namesUsed);
+        nameOffsets[slot] = namesUsed;
+        nameLengths[slot] = length;
+        namesUsed += length;
+        namesLive += length;
+    }
+
+    // Packs live names into a fresh arena: same size when enough garbage is reclaimed, otherwise doubled
+    private void compactNames(int needed) {
+        int garbage = namesUsed - namesLive;
+        boolean reclaims = garbage >= MIN_ARENA_TO_COMPACT && garbage >= namesLive / 2
+                           && namesLive + needed <= names.length;
+        char[] target = new char[reclaims ? names.length : Math.max(names.length * 2, namesLive + needed)];
+        namesUsed = packNames(names, target);
+        names = target;
+    }
+
+    private int packNames(char[] source, char[] target) {
+        int offset = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != EMPTY) {
+                int length = nameLengths[slot];
+                System.arraycopy(source, nameOffsets[slot], target, offset, length);
+                nameOffsets[slot] = offset;
+                offset += length;
+            }
+        }
+        return offset;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            ranks = Arrays.copyOf(ranks, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+}
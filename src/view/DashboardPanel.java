@@ -5,15 +5,24 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.RoundRectangle2D;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
+import model.Rank;
+import model.ScoreCountingSort;
+import model.ScoreStatistics;
 import model.Student;
+import model.StudentChangeEvent;
+import model.StudentChangeListener;
+import model.StudentEventBus;
 import model.StudentManager;
 import util.*;
 
@@ -24,12 +33,32 @@ public class DashboardPanel extends JPanel {
     private CircularProgressBar averageScoreChart;
     private CircularProgressBar passRateChart;
     private BarChart rankDistributionChart;
-    private Timer autoUpdateTimer;
     private JPanel summaryPanel;
     private Map<String, Integer> lastRankDistribution = new HashMap<>();
+    private long lastRenderedVersion = -1;
+    private final StudentEventBus eventBus;
+    private final StudentChangeListener changeListener = this::applyChange;
 
-    public DashboardPanel(StudentManager studentManager) {
+    private static final int TOP_STUDENT_COUNT = 10;
+    // Orders the top-students table the way StudentManager.getTopStudents does
+    private static final Comparator<Student> TOP_ORDER =
+            Comparator.comparingInt((Student student) -> ScoreCountingSort.toHundredths(student.getScore())).reversed()
+                      .thenComparing(Student::getId);
+
+    // What each card and chart currently shows, so an update only touches the ones that differ
+    private final String[] cardTexts = new String[4];
+    private String averageChartText;
+    private String passRateChartText;
+
+    // Instrumentation, read and written on the EDT
+    private long framesRendered;
+    private long updatesSkipped;
+    private long renderNanos;
+    private long lastRenderNanos;
+
+    public DashboardPanel(StudentManager studentManager, StudentEventBus eventBus) {
         this.studentManager = studentManager;
+        this.eventBus = eventBus;
         setLayout(new BorderLayout());
         setOpaque(false);
 
@@ -49,20 +78,15 @@ public class DashboardPanel extends JPanel {
         this.summaryPanel = createSummaryPanel();
         
         initComponents();
-        setupAutoUpdate();
     }
 
     @Override
     public void addNotify() {
         super.addNotify();
+        eventBus.subscribe(changeListener, SwingUtilities::invokeLater);
         updateDashboard(); // Move initial update here
     }
 
-    private void setupAutoUpdate() {
-        autoUpdateTimer = new Timer(500, _ -> updateDashboard());
-        autoUpdateTimer.start();
-    }
-
     private void initComponents() {
         // Main panel with grid layout
         JPanel mainPanel = new JPanel(new GridBagLayout());
@@ -375,66 +399,131 @@ public class DashboardPanel extends JPanel {
         return panel;
     }
     
+    /** Brings the dashboard up to the manager's current version; does nothing if it is already there. */
     public void updateDashboard() {
+        render(null);
+    }
+
+    // Runs on the EDT for each coalesced change from the event bus
+    private void applyChange(StudentChangeEvent event) {
+        if (event.getToVersion() <= lastRenderedVersion) {
+            updatesSkipped++;
+            return;
+        }
+        render(event);
+    }
+
+    // Renders the current version; the event, if any, lets the top table be skipped when it cannot have changed
+    private void render(StudentChangeEvent event) {
         if (studentManager == null) return;
 
-        List<Student> students = studentManager.getAllStudents();
+        // O(1) statistics from the running aggregates; nothing to do if the roster hasn't changed
+        ScoreStatistics statistics = studentManager.getStatistics();
+        if (statistics.getVersion() == lastRenderedVersion) {
+            updatesSkipped++;
+            return;
+        }
+        long startTime = System.nanoTime();
+        // The event must describe exactly the step from what is shown to what was just read
+        boolean refreshTopStudents = event == null || event.isReset() || event.getFromVersion() != lastRenderedVersion
+                || event.getToVersion() != statistics.getVersion() || mayChangeTopStudents(event);
+        lastRenderedVersion = statistics.getVersion();
         
         // Update summary stats
-        int totalStudents = students.size();
-        double averageScore = studentManager.getAverageScore();
-        int passCount = studentManager.getPassCount();
-        double passRate = totalStudents > 0 ? (double) passCount / totalStudents * 100 : 0;
+        int totalStudents = statistics.getStudentCount();
+        double averageScore = statistics.getAverageScore();
+        double passRate = statistics.getPassRate();
         
-        // Update components
-        updateSummaryCards(totalStudents, averageScore, passRate);
+        // Update components; each one repaints itself only if what it shows changed
+        updateSummaryCards(totalStudents, averageScore, passRate, statistics.getRankCount(Rank.EXCELLENT));
         updateCharts(averageScore, passRate);
-        updateRankDistribution();
-        updateTopStudentsTable();
+        updateRankDistribution(statistics.getRankDistribution());
+        if (refreshTopStudents) {
+            updateTopStudentsTable(studentManager.getTopStudents(TOP_STUDENT_COUNT));
+        }
         
-        revalidate();
-        repaint();
+        framesRendered++;
+        lastRenderNanos = System.nanoTime() - startTime;
+        renderNanos += lastRenderNanos;
     }
 
-    private void updateSummaryCards(int totalStudents, double averageScore, double passRate) {
-        JPanel totalStudentsCard = (JPanel) summaryPanel.getComponent(0);
-        JPanel totalStudentsContent = (JPanel) totalStudentsCard.getComponent(0);
-        JLabel totalStudentsValue = (JLabel) totalStudentsContent.getComponent(1);
-        totalStudentsValue.setText(String.valueOf(totalStudents));
-        
-        JPanel avgScoreCard = (JPanel) summaryPanel.getComponent(1);
-        JPanel avgScoreContent = (JPanel) avgScoreCard.getComponent(0);
-        JLabel avgScoreValue = (JLabel) avgScoreContent.getComponent(1);
-        avgScoreValue.setText(String.format("%.2f", averageScore));
-        
-        JPanel passRateCard = (JPanel) summaryPanel.getComponent(2);
-        JPanel passRateContent = (JPanel) passRateCard.getComponent(0);
-        JLabel passRateValue = (JLabel) passRateContent.getComponent(1);
-        passRateValue.setText(String.format("%.1f%%", passRate));
-        
-        int excellentCount = 0;
-        for (Student student : studentManager.getAllStudents()) {
-            if ("Excellent".equals(student.getRank())) {
-                excellentCount++;
+    // The top table can only change if a shown student changed or a changed student now sorts above the last one shown
+    private boolean mayChangeTopStudents(StudentChangeEvent event) {
+        int rows = tableModel.getRowCount();
+        if (rows < TOP_STUDENT_COUNT) {
+            return true;
+        }
+        Set<String> shownIds = new HashSet<>();
+        for (int row = 0; row < rows; row++) {
+            shownIds.add((String) tableModel.getValueAt(row, 0));
+        }
+        Student lastShown = new Student((String) tableModel.getValueAt(rows - 1, 0), (String) tableModel.getValueAt(rows - 1, 1),
+                                        (Double) tableModel.getValueAt(rows - 1, 2));
+        for (List<Student> changed : List.of(event.getAdded(), event.getUpdated(), event.getRemoved())) {
+            for (Student student : changed) {
+                if (shownIds.contains(student.getId()) || TOP_ORDER.compare(student, lastShown) < 0) {
+                    return true;
+                }
             }
         }
-        JPanel excellentCard = (JPanel) summaryPanel.getComponent(3);
-        JPanel excellentContent = (JPanel) excellentCard.getComponent(0);
-        JLabel excellentValue = (JLabel) excellentContent.getComponent(1);
-        excellentValue.setText(String.valueOf(excellentCount));
+        return false;
+    }
+
+    /** Dashboard renders that did work since the panel was created. */
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /** Updates that found the dashboard already current and did nothing. */
+    public long getUpdatesSkipped() {
+        return updatesSkipped;
+    }
+
+    /** Total EDT time spent rendering, in nanoseconds. */
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+
+    public long getLastRenderNanos() {
+        return lastRenderNanos;
+    }
+
+    private void updateSummaryCards(int totalStudents, double averageScore, double passRate, int excellentCount) {
+        setCardText(0, String.valueOf(totalStudents));
+        setCardText(1, String.format("%.2f", averageScore));
+        setCardText(2, String.format("%.1f%%", passRate));
+        setCardText(3, String.valueOf(excellentCount));
+    }
+
+    private void setCardText(int card, String text) {
+        if (text.equals(cardTexts[card])) {
+            return;
+        }
+        cardTexts[card] = text;
+        JPanel cardPanel = (JPanel) summaryPanel.getComponent(card);
+        JPanel content = (JPanel) cardPanel.getComponent(0);
+        JLabel value = (JLabel) content.getComponent(1);
+        value.setText(text);
     }
 
     private void updateCharts(double averageScore, double passRate) {
-        averageScoreChart.setValue(averageScore);
-        averageScoreChart.setText(String.format("%.2f", averageScore));
+        // setValue restarts the chart animation, so only call it when the shown value moves
+        String averageText = String.format("%.2f", averageScore);
+        if (!averageText.equals(averageChartText)) {
+            averageChartText = averageText;
+            averageScoreChart.setValue(averageScore);
+            averageScoreChart.setText(averageText);
+        }
         
-        passRateChart.setValue(passRate);
-        passRateChart.setText(String.format("%.1f%%", passRate));
+        String passRateText = String.format("%.1f%%", passRate);
+        if (!passRateText.equals(passRateChartText)) {
+            passRateChartText = passRateText;
+            passRateChart.setValue(passRate);
+            passRateChart.setText(passRateText);
+        }
     }
 
-    private void updateRankDistribution() {
-        Map<String, Integer> currentRankCounts = studentManager.getRankDistribution();
-
+    private void updateRankDistribution(Map<String, Integer> currentRankCounts) {
         // Check if the data has changed
         if (!currentRankCounts.equals(lastRankDistribution)) {
             lastRankDistribution = new HashMap<>(currentRankCounts);
@@ -458,13 +547,23 @@ public class DashboardPanel extends JPanel {
         }
     }
 
-    private void updateTopStudentsTable() {
-        tableModel.setRowCount(0);
-        List<Student> topStudents = studentManager.getTopStudents(10);
-        
-        for (Student student : topStudents) {
-            Object[] row = {student.getId(), student.getName(), student.getScore(), student.getRank()};
-            tableModel.addRow(row);
+    // Rewrites only the cells that differ, so unchanged rows are not repainted
+    private void updateTopStudentsTable(List<Student> topStudents) {
+        if (tableModel.getRowCount() > topStudents.size()) {
+            tableModel.setRowCount(topStudents.size());
+        }
+        for (int row = 0; row < topStudents.size(); row++) {
+            Student student = topStudents.get(row);
+            Object[] values = {student.getId(), student.getName(), student.getScore(), student.getRank()};
+            if (row >= tableModel.getRowCount()) {
+                tableModel.addRow(values);
+                continue;
+            }
+            for (int column = 0; column < values.length; column++) {
+                if (!values[column].equals(tableModel.getValueAt(row, column))) {
+                    tableModel.setValueAt(values[column], row, column);
+                }
+            }
         }
     }
 
@@ -482,8 +581,6 @@ public class DashboardPanel extends JPanel {
     @Override
     public void removeNotify() {
         super.removeNotify();
-        if (autoUpdateTimer != null) {
-            autoUpdateTimer.stop();
-        }
+        eventBus.unsubscribe(changeListener);
     }
 }
@@ -1,13 +1,26 @@
 package view;
 
+import dao.Checkpointer;
+import dao.WriteAheadLog;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.geom.RoundRectangle2D;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.*;
+import model.StudentEventBus;
 import model.StudentManager;
 import util.ColorScheme;
 
 public class MainFrame extends JFrame {
+    // Roster data lives under this directory; override with -Dstudent.data.dir=...
+    private static final Path DATA_DIRECTORY = Paths.get(System.getProperty("student.data.dir", "data"));
+    
     private StudentManager studentManager;
+    private Checkpointer persistence;
+    private StudentEventBus eventBus;
     private DashboardPanel dashboardPanel;
     private StudentFormPanel studentFormPanel;
     private PerformanceTestPanel performanceTestPanel;
@@ -25,8 +38,11 @@ public class MainFrame extends JFrame {
         setMinimumSize(new Dimension(1200, 800));
         setPreferredSize(new Dimension(1400, 900));
         
-        // Initialize student manager
+        // Initialize student manager and restore the persisted roster before any view reads it
         studentManager = new StudentManager();
+        openPersistence();
+        // Views hear about changes through the bus, coalesced and off the writer's thread
+        eventBus = new StudentEventBus(studentManager);
         
         initComponents();
         
@@ -38,6 +54,30 @@ public class MainFrame extends JFrame {
         setVisible(true);
     }
     
+    private void openPersistence() {
+        try {
+            persistence = Checkpointer.open(DATA_DIRECTORY, studentManager, WriteAheadLog.Durability.GROUP);
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                "Could not open the saved roster in " + DATA_DIRECTORY.toAbsolutePath() + ": " + e.getMessage() +
+                "\nChanges will not be saved in this session.",
+                "Persistence Unavailable", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    persistence.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        });
+    }
+    
     private void initComponents() {
         // Set look and feel
         try {
@@ -106,11 +146,11 @@ public class MainFrame extends JFrame {
         contentPanel.setOpaque(false);
         
         // Create dashboard panel
-        dashboardPanel = new DashboardPanel(studentManager);
+        dashboardPanel = new DashboardPanel(studentManager, eventBus);
         contentPanel.add(dashboardPanel, "dashboard");
         
         // Create student form panel
-        studentFormPanel = new StudentFormPanel(studentManager, dashboardPanel);
+        studentFormPanel = new StudentFormPanel(studentManager, dashboardPanel, eventBus);
         contentPanel.add(studentFormPanel, "studentForm");
         
         // Create performance test panel
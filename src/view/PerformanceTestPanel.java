@@ -1,7 +1,26 @@
 package view;
 
+import dao.Checkpointer;
+import dao.StudentCsvImporter;
+import dao.StudentDAO;
+import dao.StudentExporter;
+import dao.WriteAheadLog;
+import model.FuzzyNameIndex;
+import model.IntroSortEngine;
+import model.Mutation;
+import model.NameIndex;
+import model.OffHeapStudentStore;
+import model.ParallelMergeSortEngine;
+import model.ScoreCountingSort;
 import model.Student;
+import model.StudentBitmap;
+import model.StudentEventBus;
+import model.StudentIdCodec;
 import model.StudentManager;
+import model.StudentOrder;
+import model.StudentQuery;
+import model.StudentStorage;
+import model.StudentStore;
 import util.*;
 import util.MaxHeapPriorityQueue;
 
@@ -31,14 +50,19 @@ import javax.management.NotificationEmitter;
 import javax.management.NotificationListener;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 // Thêm import cho việc xuất báo cáo
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import javax.swing.JFileChooser;
@@ -69,6 +93,11 @@ public class PerformanceTestPanel extends JPanel {
     // Hệ số nhân cho số lượng hoạt động, tỷ lệ với kích thước dữ liệu
     private static final int OPERATION_MULTIPLIER = 10;
 
+    // Sort engine under test, compared against the legacy quickSort below
+    private final IntroSortEngine introSortEngine = new IntroSortEngine();
+    private static final Comparator<Student> SCORE_ONLY_DESCENDING =
+            Comparator.comparingDouble(Student::getScore).reversed();
+
     // Thêm biến thành viên mới để theo dõi GC
     private boolean gcCompleted = false;
     private CountDownLatch gcLatch;
@@ -178,7 +207,25 @@ public class PerformanceTestPanel extends JPanel {
             "Quick Sort (Score Sorting)",
             "Hash-based Search (ID)",
             "Search Indexing (Name/Score/Rank)",
-            "Max-Heap Priority Queue" // Add this new option
+            "Max-Heap Priority Queue", // Add this new option
+            "Introsort (Score Sorting)",
+            "Counting Sort (Score Sorting)",
+            "Parallel Merge Sort (Fork/Join)",
+            "Concurrent Reads (StampedLock)",
+            "Columnar Store (Memory Footprint)",
+            "Off-Heap Store (GC Pauses)",
+            "Binary Roster File (mmap Load)",
+            "Write-Ahead Log (Durability)",
+            "Checkpoint Recovery",
+            "Bulk CSV Import",
+            "Streaming Export",
+            "Batch Mutations",
+            "Change Event Bus",
+            "Name Index (Prefix Search)",
+            "Bitmap Postings (Rank AND Name)",
+            "Score Range Queries",
+            "Query Planner",
+            "Fuzzy Name Search"
         };
         algorithmComboBox = new JComboBox<>(algorithms);
         algorithmComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -199,7 +246,8 @@ public class PerformanceTestPanel extends JPanel {
         dataSizeLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         dataSizeLabel.setForeground(ColorScheme.TEXT);
         
-        Integer[] dataSizes = {100, 500, 1000, 5000, 10000, 50000};
+        // Capped at the roster limit: an ID is BC plus five digits, so larger sets would not load in full
+        Integer[] dataSizes = {100, 500, 1000, 5000, 10000, 50000, StudentIdCodec.MAX_ID + 1};
         dataSizeComboBox = new JComboBox<>(dataSizes);
         dataSizeComboBox.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         dataSizeComboBox.setBackground(ColorScheme.CARD_BG_ACCENT);
@@ -314,6 +362,78 @@ public class PerformanceTestPanel extends JPanel {
                 description = "Max-Heap Priority Queue: A tree-based data structure that efficiently maintains the maximum element at the root. " +
                               "Provides O(log n) time complexity for insertions and extractions, and O(1) for finding the maximum element.";
                 break;
+            case "Introsort (Score Sorting)":
+                description = "Introsort: Quick sort with median-of-three pivots and three-way partitioning, insertion sort for small ranges " +
+                              "and a heapsort fallback, guaranteeing O(n log n). Also compared with Quick Sort on duplicate-heavy scores.";
+                break;
+            case "Counting Sort (Score Sorting)":
+                description = "Counting Sort: Scores have two decimals in [0, 10], so students are bucketed by hundredths (1001 keys) " +
+                              "and sorted in O(n + 1001) without comparisons. StudentManager uses it automatically for large populations.";
+                break;
+            case "Parallel Merge Sort (Fork/Join)":
+                description = "Parallel Merge Sort: Splits the data across a ForkJoinPool, sorts leaves with a stable merge sort and merges runs in parallel. " +
+                              "Runs once per thread count (1, 2, 4, ... up to the available cores) and reports the speedup over one thread.";
+                break;
+            case "Columnar Store (Memory Footprint)":
+                description = "Columnar Store: Loads the same students into StudentManager (one object per student plus index entries) " +
+                              "and into StudentStore (int IDs, short scores, byte ranks, shared name arena) and compares retained heap.";
+                break;
+            case "Off-Heap Store (GC Pauses)":
+                description = "Off-Heap Store: Loads the students into each storage layout, runs a burst of score updates and two full GCs, " +
+                              "and reports total GC time (ms column) and retained heap. Off-heap records are never traced by the collector.";
+                break;
+            case "Binary Roster File (mmap Load)":
+                description = "Binary Roster File: Saves the students through StudentDAO in the fixed-width binary format (header, 16-byte records, " +
+                              "UTF-8 name table), then loads it back with a single memory mapping. Memory column shows the file size in MB.";
+                break;
+            case "Batch Mutations":
+                description = "Batch Mutations: Updates half the roster and deletes a quarter of it, one call per student (an index update " +
+                              "and a listener notification each) versus a single atomic applyBatch with net-change index maintenance and one event. Memory column shows listener notifications.";
+                break;
+            case "Change Event Bus":
+                description = "Change Event Bus: Updates every student one call at a time while a view-style listener reads the top ten and the statistics " +
+                              "on each change, synchronously on the writer versus through the coalescing StudentEventBus. Memory column shows listener deliveries.";
+                break;
+            case "Name Index (Prefix Search)":
+                description = "Name Index: Builds the former name index (a sorted map of name parts to HashSets of students) and NameIndex " +
+                              "(sorted part array with packed score/ID int postings), then runs prefix lookups and top-10 completions on both. Memory column shows the heap each index holds in MB.";
+                break;
+            case "Bitmap Postings (Rank AND Name)":
+                description = "Bitmap Postings: Indexes score and rank as HashSets of students and as compressed StudentBitmaps of ID codes, " +
+                              "then answers rank AND name-prefix queries by retainAll on copied sets versus a bitmap intersection. Memory column shows the heap each pair of indices holds in MB.";
+                break;
+            case "Score Range Queries":
+                description = "Score Range Queries: Answers random score ranges (and their counts) by filtering and sorting the whole roster, " +
+                              "then with findStudentsByScoreRange and countStudentsByScoreRange over the hundredth-of-a-point score buckets. Memory column shows average matches per range.";
+                break;
+            case "Query Planner":
+                description = "Query Planner: Runs mixed queries (name prefixes, score ranges, ranks, ID prefixes, OR, sort and limit) by testing every student, " +
+                              "sorting and cutting to the limit, then with StudentManager.query choosing postings, ordered walks or top-k merges by estimated cost. Memory column shows average results per query.";
+                break;
+            case "Fuzzy Name Search":
+                description = "Fuzzy Name Search: Looks up misspelled names (swapped, dropped or changed letters) by computing the edit distance to every student's name parts, " +
+                              "then with findStudentsByFuzzyName over the trigram index, at the default and at a 64 KB memory budget. Memory column shows the trigram postings in MB.";
+                break;
+            case "Streaming Export":
+                description = "Streaming Export: Writes the roster in score order as CSV by copying the sorted list and building each row as a String, " +
+                              "then with StudentExporter (CSV, JSON Lines, binary) streaming pages through one reusable buffer. Memory column shows heap growth in MB.";
+                break;
+            case "Bulk CSV Import":
+                description = "Bulk CSV Import: Writes the test data to a CSV file, then loads it row by row with addStudent " +
+                              "and with the chunked, parallel StudentCsvImporter (one batch insert and one notification per file).";
+                break;
+            case "Checkpoint Recovery":
+                description = "Checkpoint Recovery: Logs an add and an update per student, then restarts from the log alone " +
+                              "and from a checkpoint plus a short log tail. Memory column shows the data on disk in MB.";
+                break;
+            case "Write-Ahead Log (Durability)":
+                description = "Write-Ahead Log: Four threads add and update students through a logged StudentManager at each durability level " +
+                              "(NONE, GROUP commit, SYNC), then the log is replayed into an empty manager. Memory column shows the log size in MB.";
+                break;
+            case "Concurrent Reads (StampedLock)":
+                description = "Concurrent Reads: One writer keeps updating scores while 1, 2, 4 and 8 reader threads query StudentManager " +
+                              "(ID lookups, counts, top 10). Reads use optimistic or shared StampedLock stamps, so throughput should grow with readers.";
+                break;
         }
         
         algorithmDescriptionArea.setText(description);
@@ -1189,7 +1309,7 @@ public class PerformanceTestPanel extends JPanel {
                 
                 Thread.sleep(500); // Hiển thị thông tin bộ nhớ trong 0.5 giây
                 
-                int progressStep = selectedAlgorithm.equals("All Algorithms") ? 10 : 70;
+                int progressStep = selectedAlgorithm.equals("All Algorithms") ? 70 / (algorithmComboBox.getItemCount() - 1) : 70;
                 final int[] progress = {20}; // Use an array to hold the progress value
                 
                 // Thiết lập theo dõi GC
@@ -1279,6 +1399,343 @@ public class PerformanceTestPanel extends JPanel {
                     Thread.sleep(300);
                 }
                 
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Introsort (Score Sorting)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing Introsort engine with " + students.size() + " students...", 
+                                            progress[0], "Testing Introsort..."));
+                    
+                    TestResult introSortResult = runBenchmark("Introsort (Score Sorting)", students, 
+                                                            s -> testIntroSort(s));
+                    publish(introSortResult);
+                    
+                    // Duplicate-heavy scores: the last-element pivot of Quick Sort degrades to O(n^2) here
+                    List<Student> duplicateScores = withDuplicateScores(students);
+                    publish(runBenchmark("Introsort (Duplicate Scores)", duplicateScores, s -> testIntroSort(s)));
+                    try {
+                        publish(runBenchmark("Quick Sort (Duplicate Scores)", duplicateScores, s -> testQuickSort(s)));
+                    } catch (StackOverflowError e) {
+                        publish(new StatusUpdate("Quick Sort overflowed the stack on " + duplicateScores.size() + 
+                                                " duplicate-heavy scores", progress[0], "Quick Sort failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Counting Sort (Score Sorting)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing Counting Sort with " + students.size() + " students (StudentManager would use " + 
+                                            studentManager.resolveScoreSortStrategy(students.size()) + ")...", 
+                                            progress[0], "Testing Counting Sort..."));
+                    
+                    TestResult countingSortResult = runBenchmark("Counting Sort (Score Sorting)", students, 
+                                                               s -> testCountingSort(s));
+                    publish(countingSortResult);
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Parallel Merge Sort (Fork/Join)")) {
+                    progress[0] += progressStep;
+                    int cores = Runtime.getRuntime().availableProcessors();
+                    double singleThreadTime = 0;
+                    StringBuilder speedups = new StringBuilder("Fork/Join speedup:");
+                    
+                    // 1, 2, 4, ... threads, always ending with every available core
+                    List<Integer> threadCounts = new ArrayList<>();
+                    for (int threads = 1; threads < cores; threads *= 2) {
+                        threadCounts.add(threads);
+                    }
+                    threadCounts.add(cores);
+                    
+                    for (int threads : threadCounts) {
+                        publish(new StatusUpdate("Testing Parallel Merge Sort on " + threads + " of " + cores + " cores with " + 
+                                                students.size() + " students...", progress[0], "Testing Fork/Join..."));
+                        
+                        ParallelMergeSortEngine engine = new ParallelMergeSortEngine(threads);
+                        try {
+                            TestResult parallelResult = runBenchmark("Parallel Merge Sort (" + threads + " cores)", students, 
+                                                                    s -> testSortAlgorithm(s, list -> engine.sort(list, SCORE_ONLY_DESCENDING)));
+                            publish(parallelResult);
+                            
+                            if (threads == 1) {
+                                singleThreadTime = parallelResult.executionTime;
+                            }
+                            speedups.append(String.format(" %d cores = %.2fx", threads, 
+                                                          singleThreadTime / Math.max(parallelResult.executionTime, 1e-6)));
+                        } finally {
+                            engine.shutdown();
+                        }
+                    }
+                    publish(new StatusUpdate(speedups.toString(), progress[0], "Fork/Join done"));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Concurrent Reads (StampedLock)")) {
+                    progress[0] += progressStep;
+                    double singleReaderOps = 0;
+                    StringBuilder scaling = new StringBuilder("Read scaling:");
+                    
+                    for (int readers : new int[] {1, 2, 4, 8}) {
+                        publish(new StatusUpdate("Testing concurrent reads with " + readers + " reader(s) and 1 writer on " + 
+                                                students.size() + " students...", progress[0], "Testing concurrency..."));
+                        
+                        BenchmarkResult concurrentResult = testConcurrentReads(students, readers);
+                        publish(new TestResult("Concurrent Reads (" + readers + " readers)", students.size(), 
+                                               concurrentResult.executionTime, concurrentResult.memoryUsage, 
+                                               concurrentResult.operationsPerSecond));
+                        
+                        if (readers == 1) {
+                            singleReaderOps = concurrentResult.operationsPerSecond;
+                        }
+                        scaling.append(String.format(" %d readers = %.2fx", readers, 
+                                                     concurrentResult.operationsPerSecond / Math.max(singleReaderOps, 1e-6)));
+                    }
+                    publish(new StatusUpdate(scaling.toString(), progress[0], "Concurrency done"));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Columnar Store (Memory Footprint)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Comparing object and columnar layouts with " + students.size() + " students...", 
+                                            progress[0], "Testing layouts..."));
+                    
+                    BenchmarkResult objectLayout = testStorageLayout(students, new StudentManager());
+                    publish(new TestResult("Object Layout (StudentManager)", students.size(), 
+                                           objectLayout.executionTime, objectLayout.memoryUsage, objectLayout.operationsPerSecond));
+                    
+                    BenchmarkResult columnarLayout = testStorageLayout(students, new StudentStore(students.size()));
+                    publish(new TestResult("Columnar Layout (StudentStore)", students.size(), 
+                                           columnarLayout.executionTime, columnarLayout.memoryUsage, columnarLayout.operationsPerSecond));
+                    
+                    publish(new StatusUpdate(String.format("Heap: objects %.2f MB, columnar %.2f MB (%.1fx smaller)", 
+                                                           objectLayout.memoryUsage, columnarLayout.memoryUsage, 
+                                                           objectLayout.memoryUsage / Math.max(columnarLayout.memoryUsage, 1e-6)), 
+                                            progress[0], "Layouts done"));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Off-Heap Store (GC Pauses)")) {
+                    progress[0] += progressStep;
+                    StringBuilder pauses = new StringBuilder("GC time:");
+                    Map<String, StudentStorage> layouts = new LinkedHashMap<>();
+                    layouts.put("GC Pauses (Object Layout)", new StudentManager());
+                    layouts.put("GC Pauses (Columnar)", new StudentStore(students.size()));
+                    layouts.put("GC Pauses (Off-Heap)", new OffHeapStudentStore(students.size()));
+                    
+                    for (Map.Entry<String, StudentStorage> layout : layouts.entrySet()) {
+                        publish(new StatusUpdate("Measuring " + layout.getKey() + " with " + students.size() + " students...", 
+                                                progress[0], "Testing GC pauses..."));
+                        
+                        BenchmarkResult gcResult = testGcPauses(students, layout.getValue());
+                        layout.setValue(null); // Let the next layout start from a clean heap
+                        publish(new TestResult(layout.getKey(), students.size(), 
+                                               gcResult.executionTime, gcResult.memoryUsage, gcResult.operationsPerSecond));
+                        pauses.append(String.format(" %s = %.1f ms", getShortName(layout.getKey()), gcResult.executionTime));
+                    }
+                    publish(new StatusUpdate(pauses.toString(), progress[0], "GC pauses done"));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Binary Roster File (mmap Load)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Writing and mapping a roster file with " + students.size() + " students...", 
+                                            progress[0], "Testing roster file..."));
+                    
+                    try {
+                        BenchmarkResult[] fileResults = testRosterFile(students);
+                        publish(new TestResult("Roster File Write", students.size(), 
+                                               fileResults[0].executionTime, fileResults[0].memoryUsage, fileResults[0].operationsPerSecond));
+                        publish(new TestResult("Roster File Load (mmap)", students.size(), 
+                                               fileResults[1].executionTime, fileResults[1].memoryUsage, fileResults[1].operationsPerSecond));
+                    } catch (IOException e) {
+                        publish(new StatusUpdate("Roster file test failed: " + e.getMessage(), progress[0], "Roster file failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Write-Ahead Log (Durability)")) {
+                    progress[0] += progressStep;
+                    try {
+                        for (WriteAheadLog.Durability durability : WriteAheadLog.Durability.values()) {
+                            publish(new StatusUpdate("Testing write-ahead log (" + durability + ") with " + students.size() + " students...", 
+                                                    progress[0], "Testing WAL..."));
+                            
+                            BenchmarkResult[] walResults = testWriteAheadLog(students, durability);
+                            publish(new TestResult("WAL Writes (" + durability + ")", students.size(), 
+                                                   walResults[0].executionTime, walResults[0].memoryUsage, walResults[0].operationsPerSecond));
+                            if (durability == WriteAheadLog.Durability.GROUP) {
+                                publish(new TestResult("WAL Replay", students.size(), 
+                                                       walResults[1].executionTime, walResults[1].memoryUsage, walResults[1].operationsPerSecond));
+                            }
+                        }
+                    } catch (IOException e) {
+                        publish(new StatusUpdate("Write-ahead log test failed: " + e.getMessage(), progress[0], "WAL failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Batch Mutations")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing batch mutations with " + students.size() + " students...", 
+                                            progress[0], "Testing batches..."));
+                    
+                    BenchmarkResult[] batchResults = testBatchMutations(students);
+                    publish(new TestResult("Mutations (One by One)", students.size(), 
+                                           batchResults[0].executionTime, batchResults[0].memoryUsage, batchResults[0].operationsPerSecond));
+                    publish(new TestResult("Mutations (applyBatch)", students.size(), 
+                                           batchResults[1].executionTime, batchResults[1].memoryUsage, batchResults[1].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Change Event Bus")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing change delivery with " + students.size() + " students...", 
+                                            progress[0], "Testing events..."));
+                    
+                    BenchmarkResult[] eventResults = testChangeEventBus(students);
+                    publish(new TestResult("Change Events (Synchronous)", students.size(), 
+                                           eventResults[0].executionTime, eventResults[0].memoryUsage, eventResults[0].operationsPerSecond));
+                    publish(new TestResult("Change Events (Event Bus)", students.size(), 
+                                           eventResults[1].executionTime, eventResults[1].memoryUsage, eventResults[1].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Name Index (Prefix Search)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing name indices with " + students.size() + " students...", 
+                                            progress[0], "Testing name index..."));
+                    
+                    BenchmarkResult[] indexResults = testNameIndex(students);
+                    String[] indexNames = {"Name Prefix (Object Sets)", "Name Prefix (Postings)", "Name Top-10 (Collect + Sort)", "Name Top-10 (Posting Merge)"};
+                    for (int i = 0; i < indexNames.length; i++) {
+                        publish(new TestResult(indexNames[i], students.size(), 
+                                               indexResults[i].executionTime, indexResults[i].memoryUsage, indexResults[i].operationsPerSecond));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Bitmap Postings (Rank AND Name)")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing bitmap postings with " + students.size() + " students...", 
+                                            progress[0], "Testing bitmaps..."));
+                    
+                    BenchmarkResult[] bitmapResults = testBitmapPostings(students);
+                    publish(new TestResult("Rank AND Name (HashSets)", students.size(), 
+                                           bitmapResults[0].executionTime, bitmapResults[0].memoryUsage, bitmapResults[0].operationsPerSecond));
+                    publish(new TestResult("Rank AND Name (Bitmaps)", students.size(), 
+                                           bitmapResults[1].executionTime, bitmapResults[1].memoryUsage, bitmapResults[1].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Score Range Queries")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing score ranges with " + students.size() + " students...", 
+                                            progress[0], "Testing ranges..."));
+                    
+                    BenchmarkResult[] rangeResults = testScoreRanges(students);
+                    publish(new TestResult("Score Range (Scan + Sort)", students.size(), 
+                                           rangeResults[0].executionTime, rangeResults[0].memoryUsage, rangeResults[0].operationsPerSecond));
+                    publish(new TestResult("Score Range (Buckets)", students.size(), 
+                                           rangeResults[1].executionTime, rangeResults[1].memoryUsage, rangeResults[1].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Query Planner")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing query planner with " + students.size() + " students...", 
+                                            progress[0], "Testing queries..."));
+                    
+                    BenchmarkResult[] queryResults = testQueryPlanner(students);
+                    publish(new TestResult("Queries (Full Scan)", students.size(), 
+                                           queryResults[0].executionTime, queryResults[0].memoryUsage, queryResults[0].operationsPerSecond));
+                    publish(new TestResult("Queries (Planner)", students.size(), 
+                                           queryResults[1].executionTime, queryResults[1].memoryUsage, queryResults[1].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Fuzzy Name Search")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing fuzzy name search with " + students.size() + " students...", 
+                                            progress[0], "Testing fuzzy search..."));
+                    
+                    BenchmarkResult[] fuzzyResults = testFuzzyNames(students);
+                    publish(new TestResult("Fuzzy Name (Full Scan)", students.size(), 
+                                           fuzzyResults[0].executionTime, fuzzyResults[0].memoryUsage, fuzzyResults[0].operationsPerSecond));
+                    publish(new TestResult("Fuzzy Name (Trigrams)", students.size(), 
+                                           fuzzyResults[1].executionTime, fuzzyResults[1].memoryUsage, fuzzyResults[1].operationsPerSecond));
+                    publish(new TestResult("Fuzzy Name (Trigrams, 64 KB)", students.size(), 
+                                           fuzzyResults[2].executionTime, fuzzyResults[2].memoryUsage, fuzzyResults[2].operationsPerSecond));
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Streaming Export")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing export with " + students.size() + " students...", 
+                                            progress[0], "Testing export..."));
+                    
+                    try {
+                        BenchmarkResult[] exportResults = testExport(students);
+                        String[] exportNames = {"Export (List + Strings)", "Export (Stream CSV)", "Export (Stream JSONL)", "Export (Stream Binary)"};
+                        for (int i = 0; i < exportNames.length; i++) {
+                            publish(new TestResult(exportNames[i], students.size(), 
+                                                   exportResults[i].executionTime, exportResults[i].memoryUsage, exportResults[i].operationsPerSecond));
+                        }
+                    } catch (IOException e) {
+                        publish(new StatusUpdate("Export test failed: " + e.getMessage(), progress[0], "Export failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Bulk CSV Import")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing CSV import with " + students.size() + " students...", 
+                                            progress[0], "Testing CSV import..."));
+                    
+                    try {
+                        BenchmarkResult[] importResults = testCsvImport(students);
+                        publish(new TestResult("CSV Import (Row by Row)", students.size(), 
+                                               importResults[0].executionTime, importResults[0].memoryUsage, importResults[0].operationsPerSecond));
+                        publish(new TestResult("CSV Import (Bulk)", students.size(), 
+                                               importResults[1].executionTime, importResults[1].memoryUsage, importResults[1].operationsPerSecond));
+                    } catch (IOException e) {
+                        publish(new StatusUpdate("CSV import test failed: " + e.getMessage(), progress[0], "CSV import failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
+                if (selectedAlgorithm.equals("All Algorithms") || selectedAlgorithm.equals("Checkpoint Recovery")) {
+                    progress[0] += progressStep;
+                    publish(new StatusUpdate("Testing checkpoint recovery with " + students.size() + " students...", 
+                                            progress[0], "Testing checkpoints..."));
+                    
+                    try {
+                        BenchmarkResult[] recoveryResults = testCheckpointRecovery(students);
+                        publish(new TestResult("Recovery (Log Only)", students.size(), 
+                                               recoveryResults[0].executionTime, recoveryResults[0].memoryUsage, recoveryResults[0].operationsPerSecond));
+                        publish(new TestResult("Recovery (Checkpoint)", students.size(), 
+                                               recoveryResults[1].executionTime, recoveryResults[1].memoryUsage, recoveryResults[1].operationsPerSecond));
+                    } catch (IOException e) {
+                        publish(new StatusUpdate("Checkpoint test failed: " + e.getMessage(), progress[0], "Checkpoint failed"));
+                    }
+                    
+                    Thread.sleep(300);
+                }
+                
                 return null;
             }
         
@@ -1361,6 +1818,44 @@ public class PerformanceTestPanel extends JPanel {
         if (algorithm.startsWith("Hash-based")) return "HashSearch";
         if (algorithm.startsWith("Search Indexing")) return "Indexing";
         if (algorithm.startsWith("Max-Heap")) return "MaxHeap";
+        if (algorithm.equals("Quick Sort (Duplicate Scores)")) return "QuickSort (dup)";
+        if (algorithm.equals("Introsort (Duplicate Scores)")) return "Introsort (dup)";
+        if (algorithm.startsWith("Introsort")) return "Introsort";
+        if (algorithm.startsWith("Counting Sort")) return "CountingSort";
+        if (algorithm.startsWith("Parallel Merge Sort")) return "ForkJoin-" + algorithm.replaceAll("\\D", "");
+        if (algorithm.startsWith("Concurrent Reads")) return "Readers-" + algorithm.replaceAll("\\D", "");
+        if (algorithm.equals("GC Pauses (Object Layout)")) return "GC-Objects";
+        if (algorithm.equals("GC Pauses (Columnar)")) return "GC-Columnar";
+        if (algorithm.equals("GC Pauses (Off-Heap)")) return "GC-OffHeap";
+        if (algorithm.startsWith("WAL Writes")) return "WAL-" + algorithm.substring(algorithm.indexOf('(') + 1, algorithm.indexOf(')'));
+        if (algorithm.equals("WAL Replay")) return "WAL-Replay";
+        if (algorithm.equals("Mutations (One by One)")) return "Mut-Each";
+        if (algorithm.equals("Mutations (applyBatch)")) return "Mut-Batch";
+        if (algorithm.equals("Change Events (Synchronous)")) return "Evt-Sync";
+        if (algorithm.equals("Change Events (Event Bus)")) return "Evt-Bus";
+        if (algorithm.equals("Name Prefix (Object Sets)")) return "Pfx-Sets";
+        if (algorithm.equals("Name Prefix (Postings)")) return "Pfx-Postings";
+        if (algorithm.equals("Name Top-10 (Collect + Sort)")) return "Top10-Sort";
+        if (algorithm.equals("Name Top-10 (Posting Merge)")) return "Top10-Merge";
+        if (algorithm.equals("Rank AND Name (HashSets)")) return "And-Sets";
+        if (algorithm.equals("Rank AND Name (Bitmaps)")) return "And-Bitmaps";
+        if (algorithm.equals("Score Range (Scan + Sort)")) return "Range-Scan";
+        if (algorithm.equals("Score Range (Buckets)")) return "Range-Buckets";
+        if (algorithm.equals("Queries (Full Scan)")) return "Query-Scan";
+        if (algorithm.equals("Queries (Planner)")) return "Query-Plan";
+        if (algorithm.equals("Fuzzy Name (Full Scan)")) return "Fuzzy-Scan";
+        if (algorithm.equals("Fuzzy Name (Trigrams)")) return "Fuzzy-Trigram";
+        if (algorithm.equals("Fuzzy Name (Trigrams, 64 KB)")) return "Fuzzy-64KB";
+        if (algorithm.equals("Export (List + Strings)")) return "Exp-List";
+        if (algorithm.startsWith("Export (Stream ")) return "Exp-" + algorithm.substring("Export (Stream ".length(), algorithm.length() - 1);
+        if (algorithm.equals("CSV Import (Row by Row)")) return "CSV-Rows";
+        if (algorithm.equals("CSV Import (Bulk)")) return "CSV-Bulk";
+        if (algorithm.equals("Recovery (Log Only)")) return "Rec-Log";
+        if (algorithm.equals("Recovery (Checkpoint)")) return "Rec-Ckpt";
+        if (algorithm.equals("Roster File Write")) return "FileWrite";
+        if (algorithm.startsWith("Roster File Load")) return "FileLoad";
+        if (algorithm.startsWith("Object Layout")) return "Objects";
+        if (algorithm.startsWith("Columnar Layout")) return "Columnar";
         return algorithm;
     }
     
@@ -1372,6 +1867,25 @@ public class PerformanceTestPanel extends JPanel {
         if (algorithm.startsWith("Hash-based")) return new Color(17, 205, 239); // Cyan
         if (algorithm.startsWith("Search Indexing")) return new Color(251, 189, 8); // Yellow
         if (algorithm.startsWith("Max-Heap")) return new Color(142, 68, 173); // Dark Purple
+        if (algorithm.startsWith("Introsort")) return new Color(231, 76, 60); // Red
+        if (algorithm.startsWith("Counting Sort")) return new Color(22, 160, 133); // Teal
+        if (algorithm.startsWith("Parallel Merge Sort")) return new Color(52, 73, 94); // Slate
+        if (algorithm.startsWith("Concurrent Reads")) return new Color(211, 84, 0); // Pumpkin
+        if (algorithm.startsWith("GC Pauses")) return new Color(192, 57, 43); // Dark Red
+        if (algorithm.startsWith("Roster File")) return new Color(41, 128, 185); // Belize Blue
+        if (algorithm.startsWith("WAL")) return new Color(243, 156, 18); // Amber
+        if (algorithm.startsWith("Recovery")) return new Color(22, 160, 133); // Green Sea
+        if (algorithm.startsWith("CSV Import")) return new Color(211, 84, 0); // Pumpkin
+        if (algorithm.startsWith("Export")) return new Color(127, 140, 141); // Asbestos
+        if (algorithm.startsWith("Mutations")) return new Color(192, 57, 43); // Pomegranate
+        if (algorithm.startsWith("Change Events")) return new Color(142, 68, 173); // Wisteria
+        if (algorithm.startsWith("Name Prefix") || algorithm.startsWith("Name Top-10")) return new Color(41, 128, 185); // Belize Blue
+        if (algorithm.startsWith("Rank AND Name")) return new Color(39, 174, 96); // Nephritis
+        if (algorithm.startsWith("Score Range")) return new Color(230, 126, 34); // Carrot
+        if (algorithm.startsWith("Queries")) return new Color(22, 160, 133); // Green Sea
+        if (algorithm.startsWith("Fuzzy Name")) return new Color(211, 84, 0); // Pumpkin
+        if (algorithm.startsWith("Object Layout")) return new Color(127, 140, 141); // Gray
+        if (algorithm.startsWith("Columnar Layout")) return new Color(39, 174, 96); // Emerald
         return ColorScheme.INFO;
     }
     
@@ -1734,6 +2248,19 @@ public class PerformanceTestPanel extends JPanel {
     }
     
     private BenchmarkResult testQuickSort(List<Student> students) {
+        return testSortAlgorithm(students, list -> quickSort(list, 0, list.size() - 1));
+    }
+    
+    private BenchmarkResult testIntroSort(List<Student> students) {
+        return testSortAlgorithm(students, list -> introSortEngine.sort(list, SCORE_ONLY_DESCENDING));
+    }
+    
+    private BenchmarkResult testCountingSort(List<Student> students) {
+        return testSortAlgorithm(students, list -> ScoreCountingSort.sort(list, true));
+    }
+    
+    // Shared harness for the sort benchmarks so every engine sees the same workload
+    private BenchmarkResult testSortAlgorithm(List<Student> students, Consumer<List<Student>> sorter) {
         // Tạo nhiều bản sao của danh sách để sắp xếp, tỷ lệ với kích thước dữ liệu
         int copies = Math.max(1, Math.min(10, 10000 / students.size()));
         List<List<Student>> listsToBeSorted = new ArrayList<>();
@@ -1761,7 +2288,7 @@ public class PerformanceTestPanel extends JPanel {
         
         // Sort all copies
         for (List<Student> listToSort : listsToBeSorted) {
-            quickSort(listToSort, 0, listToSort.size() - 1);
+            sorter.accept(listToSort);
             
             // Thực hiện một số hoạt động để tránh tối ưu hóa JIT
             double sum = 0;
@@ -1799,6 +2326,928 @@ public class PerformanceTestPanel extends JPanel {
         return new BenchmarkResult(executionTime, memoryUsage, operationsPerSecond);
     }
     
+    // Time-boxed stress run: one writer mutates scores while the readers hammer the read paths
+    private BenchmarkResult testConcurrentReads(List<Student> students, int readers) {
+        StudentManager manager = new StudentManager();
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            Student copy = new Student(student.getId(), student.getName(), student.getScore());
+            if (manager.addStudent(copy)) {
+                ids.add(copy.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return new BenchmarkResult(0, 0.1, 0);
+        }
+        
+        forceGarbageCollection();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        long usedMemoryBefore = memoryBean.getHeapMemoryUsage().getUsed();
+        
+        final long durationNanos = TimeUnit.MILLISECONDS.toNanos(500);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final LongAdder readOps = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        
+        Thread writer = new Thread(() -> {
+            Random random = new Random(42);
+            awaitQuietly(start);
+            while (running.get()) {
+                String id = ids.get(random.nextInt(ids.size()));
+                Student current = manager.findStudentById(id);
+                if (current != null) {
+                    manager.updateStudent(new Student(id, current.getName(), random.nextInt(1001) / 100.0));
+                }
+            }
+        }, "stress-writer");
+        threads.add(writer);
+        
+        for (int r = 0; r < readers; r++) {
+            final long seed = r;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                long local = 0;
+                double sink = 0;
+                awaitQuietly(start);
+                while (running.get()) {
+                    Student found = manager.findStudentById(ids.get(random.nextInt(ids.size())));
+                    if (found != null) {
+                        sink += found.getScore();
+                    }
+                    sink += manager.getStudentCount();
+                    if ((local & 63) == 0) {
+                        sink += manager.getTopStudents(10).size();
+                    }
+                    local += 2;
+                }
+                readOps.add(local + (sink < 0 ? 1 : 0));
+            }, "stress-reader-" + r));
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        try {
+            TimeUnit.NANOSECONDS.sleep(durationNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        double executionTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long usedMemoryAfter = memoryBean.getHeapMemoryUsage().getUsed();
+        double memoryUsage = Math.max(0.1, (usedMemoryAfter - usedMemoryBefore) / (1024.0 * 1024.0));
+        double operationsPerSecond = readOps.sum() / executionTime * 1000;
+        
+        return new BenchmarkResult(executionTime, memoryUsage, operationsPerSecond);
+    }
+    
+    // Loads private copies of the students (fresh strings, so nothing is shared with the input list)
+    // and reports the heap retained by the storage; students with IDs outside BC00000-BC99999 are rejected
+    private BenchmarkResult testStorageLayout(List<Student> students, StudentStorage storage) {
+        List<Student> copies = new ArrayList<>(students.size());
+        for (Student student : students) {
+            copies.add(new Student(new String(student.getId()), new String(student.getName()), student.getScore()));
+        }
+        
+        forceGarbageCollection();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        long usedMemoryBefore = memoryBean.getHeapMemoryUsage().getUsed();
+        
+        long startTime = System.nanoTime();
+        int loaded = 0;
+        for (int i = 0; i < copies.size(); i++) {
+            if (storage.addStudent(copies.get(i))) {
+                loaded++;
+            }
+            copies.set(i, null); // The storage alone must keep what it needs
+        }
+        double executionTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        copies = null;
+        
+        forceGarbageCollection();
+        long usedMemoryAfter = memoryBean.getHeapMemoryUsage().getUsed();
+        double memoryUsage = Math.max(0.01, (usedMemoryAfter - usedMemoryBefore) / (1024.0 * 1024.0));
+        double operationsPerSecond = loaded / Math.max(executionTime, 1e-6) * 1000;
+        
+        // Keep the storage reachable until the measurement above is done
+        if (storage.getStudentCount() != loaded) {
+            System.err.println("Unexpected student count in " + storage.getClass().getSimpleName());
+        }
+        return new BenchmarkResult(executionTime, memoryUsage, operationsPerSecond);
+    }
+    
+    // Loads the storage, then measures collector time over an update burst and two full GCs.
+    // Execution time is the total GC time in ms; memory is the heap retained after loading.
+    private BenchmarkResult testGcPauses(List<Student> students, StudentStorage storage) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            if (storage.addStudent(new Student(student.getId(), student.getName(), student.getScore()))) {
+                ids.add(student.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return new BenchmarkResult(0, 0.1, 0);
+        }
+        
+        forceGarbageCollection();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        double memoryUsage = Math.max(0.01, memoryBean.getHeapMemoryUsage().getUsed() / (1024.0 * 1024.0));
+        long gcTimeBefore = totalGcTimeMillis();
+        
+        Random random = new Random(7);
+        int updates = Math.max(50_000, ids.size());
+        long startTime = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            storage.updateStudent(new Student(id, "Updated Student " + i, random.nextInt(1001) / 100.0));
+        }
+        double updateTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        // Full collections trace every live heap object, so their cost tracks the on-heap roster
+        System.gc();
+        System.gc();
+        double gcTime = totalGcTimeMillis() - gcTimeBefore;
+        double operationsPerSecond = updates / Math.max(updateTime, 1e-6) * 1000;
+        
+        if (storage.getStudentCount() != ids.size()) {
+            System.err.println("Unexpected student count in " + storage.getClass().getSimpleName());
+        }
+        return new BenchmarkResult(gcTime, memoryUsage, operationsPerSecond);
+    }
+    
+    // Saves through StudentDAO to a temporary file and maps it back; returns {write, load}
+    private BenchmarkResult[] testRosterFile(List<Student> students) throws IOException {
+        StudentDAO source = new StudentDAO();
+        for (Student student : students) {
+            if (StudentIdCodec.isValid(student.getId())) {
+                source.addStudent(student);
+            }
+        }
+        int records = source.getAllStudents().size();
+        Path file = Files.createTempFile("roster-benchmark", ".bin");
+        try {
+            long startTime = System.nanoTime();
+            source.save(file);
+            double writeTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            double fileSize = Math.max(0.01, Files.size(file) / (1024.0 * 1024.0));
+            
+            StudentDAO target = new StudentDAO();
+            startTime = System.nanoTime();
+            int loaded = target.load(file);
+            double loadTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            if (loaded != records) {
+                System.err.println("Roster file round trip lost students: " + loaded + " of " + records);
+            }
+            
+            return new BenchmarkResult[] {
+                new BenchmarkResult(writeTime, fileSize, records / Math.max(writeTime, 1e-6) * 1000),
+                new BenchmarkResult(loadTime, fileSize, loaded / Math.max(loadTime, 1e-6) * 1000)
+            };
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    // Sustained logged edits from four threads, then a full replay; returns {writes, replay}
+    private BenchmarkResult[] testWriteAheadLog(List<Student> students, WriteAheadLog.Durability durability) throws IOException {
+        List<Student> valid = new ArrayList<>();
+        for (Student student : students) {
+            if (StudentIdCodec.isValid(student.getId())) {
+                valid.add(student);
+            }
+        }
+        Path directory = Files.createTempDirectory("wal-benchmark");
+        try {
+            StudentManager manager = new StudentManager();
+            WriteAheadLog log = WriteAheadLog.recover(directory, manager, durability);
+            int writers = 4;
+            // Each student is added once, then updated once, split across the writer threads
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                final int offset = w;
+                threads.add(new Thread(() -> {
+                    for (int i = offset; i < valid.size(); i += writers) {
+                        manager.addStudent(new Student(valid.get(i).getId(), valid.get(i).getName(), valid.get(i).getScore()));
+                    }
+                    for (int i = offset; i < valid.size(); i += writers) {
+                        Student student = valid.get(i);
+                        manager.updateStudent(new Student(student.getId(), student.getName(), 10.0 - student.getScore()));
+                    }
+                }, "wal-writer-" + w));
+            }
+            long startTime = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            log.close();
+            double writeTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            long mutations = manager.getVersion();
+            
+            double logSize = 0;
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    logSize += Files.size(file);
+                }
+            }
+            logSize = Math.max(0.01, logSize / (1024.0 * 1024.0));
+            
+            StudentManager recovered = new StudentManager();
+            startTime = System.nanoTime();
+            int replayed = WriteAheadLog.replay(directory, recovered);
+            double replayTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            if (recovered.getStudentCount() != manager.getStudentCount()) {
+                System.err.println("WAL replay restored " + recovered.getStudentCount() + " of " + manager.getStudentCount() + " students");
+            }
+            
+            return new BenchmarkResult[] {
+                new BenchmarkResult(writeTime, logSize, mutations / Math.max(writeTime, 1e-6) * 1000),
+                new BenchmarkResult(replayTime, logSize, replayed / Math.max(replayTime, 1e-6) * 1000)
+            };
+        } finally {
+            try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+    
+    // Restart time from the full log versus from a checkpoint plus a tail; returns {log only, checkpoint}
+    private BenchmarkResult[] testCheckpointRecovery(List<Student> students) throws IOException {
+        List<Student> valid = new ArrayList<>();
+        for (Student student : students) {
+            if (StudentIdCodec.isValid(student.getId())) {
+                valid.add(student);
+            }
+        }
+        Path directory = Files.createTempDirectory("checkpoint-benchmark");
+        try {
+            // History: every student added, then updated; no checkpoint yet
+            StudentManager manager = new StudentManager();
+            Checkpointer persistence = Checkpointer.open(directory, manager, WriteAheadLog.Durability.NONE, 0, 0);
+            for (Student student : valid) {
+                manager.addStudent(new Student(student.getId(), student.getName(), student.getScore()));
+            }
+            for (Student student : valid) {
+                manager.updateStudent(new Student(student.getId(), student.getName(), 10.0 - student.getScore()));
+            }
+            persistence.getLog().close();
+            double logSize = directorySizeMB(directory);
+            
+            long startTime = System.nanoTime();
+            StudentManager fromLog = new StudentManager();
+            Checkpointer reopened = Checkpointer.open(directory, fromLog, WriteAheadLog.Durability.NONE, 0, 0);
+            double logOnlyTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            
+            // Checkpoint, then a small tail of edits on top
+            reopened.checkpoint();
+            int tail = Math.min(1_000, valid.size());
+            for (int i = 0; i < tail; i++) {
+                Student student = valid.get(i);
+                fromLog.updateStudent(new Student(student.getId(), student.getName(), student.getScore()));
+            }
+            reopened.getLog().close();
+            double checkpointSize = directorySizeMB(directory);
+            
+            startTime = System.nanoTime();
+            StudentManager fromCheckpoint = new StudentManager();
+            Checkpointer restored = Checkpointer.open(directory, fromCheckpoint, WriteAheadLog.Durability.NONE, 0, 0);
+            double checkpointTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            restored.getLog().close();
+            if (fromCheckpoint.getVersion() != fromLog.getVersion()) {
+                System.err.println("Checkpoint recovery reached version " + fromCheckpoint.getVersion() + " instead of " + fromLog.getVersion());
+            }
+            
+            return new BenchmarkResult[] {
+                new BenchmarkResult(logOnlyTime, logSize, valid.size() / Math.max(logOnlyTime, 1e-6) * 1000),
+                new BenchmarkResult(checkpointTime, checkpointSize, valid.size() / Math.max(checkpointTime, 1e-6) * 1000)
+            };
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+    
+    // Same edits as individual calls and as one batch; memory column counts listener notifications
+    private BenchmarkResult[] testBatchMutations(List<Student> students) {
+        List<Mutation> mutations = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int index = 0;
+        for (Student student : students) {
+            if (!StudentIdCodec.isValid(student.getId()) || !seen.add(student.getId())) {
+                continue;
+            }
+            if (index % 4 == 0) {
+                mutations.add(Mutation.delete(student.getId()));
+            } else if (index % 2 == 0) {
+                mutations.add(Mutation.update(new Student(student.getId(), student.getName(), 10.0 - student.getScore())));
+            }
+            index++;
+        }
+        
+        StudentManager oneByOne = new StudentManager();
+        oneByOne.addStudents(students);
+        LongAdder singleNotifications = new LongAdder();
+        oneByOne.addStudentChangeListener(_ -> singleNotifications.increment());
+        long startTime = System.nanoTime();
+        for (Mutation mutation : mutations) {
+            if (mutation.getType() == Mutation.Type.DELETE) {
+                oneByOne.deleteStudent(mutation.getId());
+            } else {
+                oneByOne.updateStudent(mutation.toStudent());
+            }
+        }
+        double singleTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        StudentManager batched = new StudentManager();
+        batched.addStudents(students);
+        LongAdder batchNotifications = new LongAdder();
+        batched.addStudentChangeListener(_ -> batchNotifications.increment());
+        startTime = System.nanoTime();
+        batched.applyBatch(mutations);
+        double batchTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        return new BenchmarkResult[] {
+            new BenchmarkResult(singleTime, singleNotifications.sum(), mutations.size() / Math.max(singleTime, 1e-6) * 1000),
+            new BenchmarkResult(batchTime, batchNotifications.sum(), mutations.size() / Math.max(batchTime, 1e-6) * 1000)
+        };
+    }
+    
+    // One update per student with a view-style listener; time runs until the listener has seen the last change
+    private BenchmarkResult[] testChangeEventBus(List<Student> students) throws InterruptedException {
+        List<Student> updates = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Student student : students) {
+            if (StudentIdCodec.isValid(student.getId()) && seen.add(student.getId())) {
+                updates.add(new Student(student.getId(), student.getName(), 10.0 - student.getScore()));
+            }
+        }
+        
+        StudentManager synchronous = new StudentManager();
+        synchronous.addStudents(students);
+        LongAdder syncDeliveries = new LongAdder();
+        synchronous.addStudentChangeListener(_ -> {
+            synchronous.getTopStudents(10);
+            synchronous.getStatistics();
+            syncDeliveries.increment();
+        });
+        long startTime = System.nanoTime();
+        for (Student student : updates) {
+            synchronous.updateStudent(student);
+        }
+        double syncTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        StudentManager coalesced = new StudentManager();
+        coalesced.addStudents(students);
+        LongAdder busDeliveries = new LongAdder();
+        CountDownLatch caughtUp = new CountDownLatch(1);
+        double busTime;
+        try (StudentEventBus bus = new StudentEventBus(coalesced)) {
+            long finalVersion = coalesced.getVersion() + updates.size();
+            bus.subscribe(event -> {
+                coalesced.getTopStudents(10);
+                coalesced.getStatistics();
+                busDeliveries.increment();
+                if (event.getToVersion() >= finalVersion) {
+                    caughtUp.countDown();
+                }
+            });
+            startTime = System.nanoTime();
+            for (Student student : updates) {
+                coalesced.updateStudent(student);
+            }
+            if (!updates.isEmpty()) {
+                caughtUp.await(10, TimeUnit.SECONDS);
+            }
+            busTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        }
+        
+        return new BenchmarkResult[] {
+            new BenchmarkResult(syncTime, syncDeliveries.sum(), updates.size() / Math.max(syncTime, 1e-6) * 1000),
+            new BenchmarkResult(busTime, busDeliveries.sum(), updates.size() / Math.max(busTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Name parts to HashSets of students versus NameIndex: heap held, prefix lookups, then top-10 completions;
+    // returns {sets, postings, sets top-10, postings top-10}
+    private BenchmarkResult[] testNameIndex(List<Student> students) {
+        List<Student> roster = new ArrayList<>();
+        Student[] byCode = new Student[StudentIdCodec.MAX_ID + 1];
+        for (Student student : students) {
+            int code = StudentIdCodec.encode(student.getId());
+            if (code != StudentIdCodec.INVALID && byCode[code] == null) {
+                byCode[code] = student;
+                roster.add(student);
+            }
+        }
+        // Prefixes of one to four letters of name parts, as typed into the search box
+        Random random = new Random(11);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 200 && !roster.isEmpty(); i++) {
+            String[] parts = roster.get(random.nextInt(roster.size())).getName().toLowerCase().split("\\s+");
+            String part = parts[random.nextInt(parts.length)];
+            prefixes.add(part.substring(0, Math.min(part.length(), 1 + random.nextInt(4))));
+        }
+        
+        forceGarbageCollection();
+        long memoryBefore = getDetailedMemoryUsage().getUsed();
+        NavigableMap<String, Set<Student>> sets = new TreeMap<>();
+        for (Student student : roster) {
+            for (String part : student.getName().toLowerCase().split("\\s+")) {
+                sets.computeIfAbsent(part, _ -> new HashSet<>()).add(student);
+            }
+        }
+        forceGarbageCollection();
+        double setsMemory = Math.max(0.01, (getDetailedMemoryUsage().getUsed() - memoryBefore) / (1024.0 * 1024.0));
+        memoryBefore = getDetailedMemoryUsage().getUsed();
+        NameIndex index = NameIndex.of(roster);
+        forceGarbageCollection();
+        double indexMemory = Math.max(0.01, (getDetailedMemoryUsage().getUsed() - memoryBefore) / (1024.0 * 1024.0));
+        
+        long setMatches = 0;
+        long startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            Set<Student> matches = new HashSet<>();
+            for (Set<Student> bucket : sets.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                matches.addAll(bucket);
+            }
+            setMatches += matches.size();
+        }
+        double setsTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long indexMatches = 0;
+        startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            BitSet matches = new BitSet();
+            index.forEachPrefix(prefix, matches::set);
+            indexMatches += matches.cardinality();
+        }
+        double indexTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        if (setMatches != indexMatches) {
+            System.err.println("Prefix lookups disagree: " + setMatches + " object-set matches, " + indexMatches + " posting matches");
+        }
+        
+        long sortedTop = 0;
+        startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            Set<Student> matches = new HashSet<>();
+            for (Set<Student> bucket : sets.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                matches.addAll(bucket);
+            }
+            List<Student> sorted = new ArrayList<>(matches);
+            sorted.sort(StudentManager.SCORE_DESCENDING);
+            sortedTop += sorted.subList(0, Math.min(10, sorted.size())).size();
+        }
+        double sortTopTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long mergedTop = 0;
+        startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            mergedTop += index.top(prefix, 10, code -> byCode[code], null).size();
+        }
+        double mergeTopTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        if (sortedTop != mergedTop) {
+            System.err.println("Top-10 completions disagree: " + sortedTop + " sorted, " + mergedTop + " merged");
+        }
+        
+        int queries = prefixes.size();
+        return new BenchmarkResult[] {
+            new BenchmarkResult(setsTime, setsMemory, queries / Math.max(setsTime, 1e-6) * 1000),
+            new BenchmarkResult(indexTime, indexMemory, queries / Math.max(indexTime, 1e-6) * 1000),
+            new BenchmarkResult(sortTopTime, setsMemory, queries / Math.max(sortTopTime, 1e-6) * 1000),
+            new BenchmarkResult(mergeTopTime, indexMemory, queries / Math.max(mergeTopTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Score and rank indices as HashSets of students versus StudentBitmaps, then rank AND name-prefix queries:
+    // copied sets with retainAll versus bitmap intersections through the manager; returns {sets, bitmaps}
+    private BenchmarkResult[] testBitmapPostings(List<Student> students) {
+        List<Student> roster = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Student student : students) {
+            if (StudentIdCodec.isValid(student.getId()) && seen.add(student.getId())) {
+                roster.add(student);
+            }
+        }
+        
+        forceGarbageCollection();
+        long memoryBefore = getDetailedMemoryUsage().getUsed();
+        Map<Double, Set<Student>> scoreSets = new HashMap<>();
+        Map<String, Set<Student>> rankSets = new HashMap<>();
+        for (Student student : roster) {
+            scoreSets.computeIfAbsent(student.getScore(), _ -> new HashSet<>()).add(student);
+            rankSets.computeIfAbsent(student.getRank().toLowerCase(), _ -> new HashSet<>()).add(student);
+        }
+        forceGarbageCollection();
+        double setsMemory = Math.max(0.01, (getDetailedMemoryUsage().getUsed() - memoryBefore) / (1024.0 * 1024.0));
+        memoryBefore = getDetailedMemoryUsage().getUsed();
+        Map<Double, StudentBitmap> scoreBitmaps = new HashMap<>();
+        Map<String, StudentBitmap> rankBitmaps = new HashMap<>();
+        for (Student student : roster) {
+            int code = StudentIdCodec.encode(student.getId());
+            scoreBitmaps.computeIfAbsent(student.getScore(), _ -> new StudentBitmap()).add(code);
+            rankBitmaps.computeIfAbsent(student.getRank().toLowerCase(), _ -> new StudentBitmap()).add(code);
+        }
+        forceGarbageCollection();
+        double bitmapMemory = Math.max(0.01, (getDetailedMemoryUsage().getUsed() - memoryBefore) / (1024.0 * 1024.0));
+        NavigableMap<String, Set<Student>> nameSets = new TreeMap<>();
+        for (Student student : roster) {
+            for (String part : student.getName().toLowerCase().split("\\s+")) {
+                nameSets.computeIfAbsent(part, _ -> new HashSet<>()).add(student);
+            }
+        }
+        StudentManager manager = new StudentManager();
+        manager.addStudents(roster);
+        
+        // One or two letters of a name part, combined with each rank
+        Random random = new Random(13);
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < 100 && !roster.isEmpty(); i++) {
+            String[] parts = roster.get(random.nextInt(roster.size())).getName().toLowerCase().split("\\s+");
+            String part = parts[random.nextInt(parts.length)];
+            prefixes.add(part.substring(0, Math.min(part.length(), 1 + random.nextInt(2))));
+        }
+        String[] ranks = {"fail", "medium", "good", "very good", "excellent"};
+        
+        long setMatches = 0;
+        long startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            for (String rank : ranks) {
+                Set<Student> matches = new HashSet<>(rankSets.getOrDefault(rank, Set.of()));
+                Set<Student> named = new HashSet<>();
+                for (Set<Student> bucket : nameSets.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                    named.addAll(bucket);
+                }
+                matches.retainAll(named);
+                setMatches += matches.size();
+            }
+        }
+        double setsTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long bitmapMatches = 0;
+        startTime = System.nanoTime();
+        for (String prefix : prefixes) {
+            StudentBitmap named = manager.matchNamePrefix(prefix);
+            for (String rank : ranks) {
+                bitmapMatches += manager.matchRank(rank).and(named).cardinality();
+            }
+        }
+        double bitmapTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        if (setMatches != bitmapMatches) {
+            System.err.println("Rank AND name queries disagree: " + setMatches + " set matches, " + bitmapMatches + " bitmap matches");
+        }
+        
+        int queries = prefixes.size() * ranks.length;
+        return new BenchmarkResult[] {
+            new BenchmarkResult(setsTime, setsMemory, queries / Math.max(setsTime, 1e-6) * 1000),
+            new BenchmarkResult(bitmapTime, bitmapMemory, queries / Math.max(bitmapTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Random score ranges, half a point to two points wide, each listed and counted by a full scan and by the
+    // score buckets; returns {scan, buckets}
+    private BenchmarkResult[] testScoreRanges(List<Student> students) {
+        StudentManager manager = new StudentManager();
+        manager.addStudents(students);
+        List<Student> roster = manager.getAllStudents();
+        Random random = new Random(17);
+        int queries = 200;
+        // Bounds in hundredths, as the index compares them; summing doubles would put 7.21 just below 7.21
+        int[] lows = new int[queries];
+        int[] highs = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            lows[i] = random.nextInt(900);
+            highs[i] = Math.min(1000, lows[i] + 50 + random.nextInt(151));
+        }
+        
+        long scanMatches = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            List<Student> matches = new ArrayList<>();
+            for (Student student : roster) {
+                int key = ScoreCountingSort.toHundredths(student.getScore());
+                if (key >= lows[i] && key <= highs[i]) {
+                    matches.add(student);
+                }
+            }
+            matches.sort(StudentManager.SCORE_ASCENDING);
+            scanMatches += matches.size();
+            int count = 0;
+            for (Student student : roster) {
+                int key = ScoreCountingSort.toHundredths(student.getScore());
+                if (key >= lows[i] && key <= highs[i]) {
+                    count++;
+                }
+            }
+            scanMatches += count;
+        }
+        double scanTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long bucketMatches = 0;
+        startTime = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            bucketMatches += manager.findStudentsByScoreRange(lows[i] / 100.0, highs[i] / 100.0).size();
+            bucketMatches += manager.countStudentsByScoreRange(lows[i] / 100.0, highs[i] / 100.0);
+        }
+        double bucketTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        if (scanMatches != bucketMatches) {
+            System.err.println("Score ranges disagree: " + scanMatches + " scanned, " + bucketMatches + " from buckets");
+        }
+        
+        double averageMatches = Math.max(0.01, bucketMatches / 2.0 / queries);
+        return new BenchmarkResult[] {
+            new BenchmarkResult(scanTime, averageMatches, queries / Math.max(scanTime, 1e-6) * 1000),
+            new BenchmarkResult(bucketTime, averageMatches, queries / Math.max(bucketTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Mixed queries over name prefixes taken from the roster, answered by testing every student, sorting and
+    // cutting to the limit, and by the planner; returns {scan, planner}
+    private BenchmarkResult[] testQueryPlanner(List<Student> students) {
+        StudentManager manager = new StudentManager();
+        manager.addStudents(students);
+        List<Student> roster = manager.getAllStudents();
+        Random random = new Random(19);
+        String[] templates = {
+            "%s sort:score limit:10",
+            "rank:good score:6.5-7.5 sort:score limit:20",
+            "%s rank:excellent",
+            "score:>=9 sort:name limit:50",
+            "id:BC0%d OR %s sort:id limit:25",
+            "%s score:<5 sort:-name"
+        };
+        int queries = 120;
+        List<StudentQuery> workload = new ArrayList<>();
+        for (int i = 0; i < queries; i++) {
+            String name = roster.get(random.nextInt(roster.size())).getName().trim();
+            String prefix = name.substring(0, Math.min(2, name.length())).replaceAll("\\s", "");
+            String template = templates[i % templates.length];
+            String text = template.startsWith("id:") ? String.format(template, random.nextInt(10), prefix)
+                                                     : String.format(template, prefix);
+            workload.add(StudentQuery.parse(text));
+        }
+        
+        long scanResults = 0;
+        long startTime = System.nanoTime();
+        for (StudentQuery query : workload) {
+            List<Student> matches = new ArrayList<>();
+            for (Student student : roster) {
+                if (query.getCriterion().test(student)) {
+                    matches.add(student);
+                }
+            }
+            if (query.getOrder() != null) {
+                matches.sort(switch (query.getOrder()) {
+                    case SCORE_DESCENDING -> StudentManager.SCORE_DESCENDING;
+                    case NAME_ASCENDING -> StudentManager.NAME_ASCENDING;
+                    case NAME_DESCENDING -> StudentManager.NAME_ASCENDING.reversed();
+                    default -> Comparator.comparing(Student::getId);
+                });
+            }
+            scanResults += Math.min(matches.size(), query.getLimit());
+        }
+        double scanTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long plannerResults = 0;
+        startTime = System.nanoTime();
+        for (StudentQuery query : workload) {
+            plannerResults += manager.query(query).size();
+        }
+        double plannerTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        if (scanResults != plannerResults) {
+            System.err.println("Queries disagree: " + scanResults + " scanned, " + plannerResults + " planned");
+        }
+        
+        double averageResults = Math.max(0.01, plannerResults / (double) queries);
+        return new BenchmarkResult[] {
+            new BenchmarkResult(scanTime, averageResults, queries / Math.max(scanTime, 1e-6) * 1000),
+            new BenchmarkResult(plannerTime, averageResults, queries / Math.max(plannerTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Misspelled names taken from the roster (one or two letters swapped, dropped or changed), answered by the
+    // edit distance to every name part and by the trigram index at the default and a small budget;
+    // returns {scan, trigrams, small budget}
+    private BenchmarkResult[] testFuzzyNames(List<Student> students) {
+        StudentManager manager = new StudentManager();
+        manager.addStudents(students);
+        List<Student> roster = manager.getAllStudents();
+        Random random = new Random(23);
+        int queries = 100;
+        String[] workload = new String[queries];
+        for (int i = 0; i < queries; i++) {
+            StringBuilder name = new StringBuilder(roster.get(random.nextInt(roster.size())).getName().trim().toLowerCase());
+            for (int edits = 1 + random.nextInt(2); edits > 0 && name.length() > 2; edits--) {
+                int at = random.nextInt(name.length() - 1);
+                switch (random.nextInt(3)) {
+                    case 0 -> {
+                        char swapped = name.charAt(at);
+                        name.setCharAt(at, name.charAt(at + 1));
+                        name.setCharAt(at + 1, swapped);
+                    }
+                    case 1 -> name.deleteCharAt(at);
+                    default -> name.setCharAt(at, (char) ('a' + random.nextInt(26)));
+                }
+            }
+            workload[i] = name.toString();
+        }
+        
+        long scanMatches = 0;
+        long startTime = System.nanoTime();
+        for (String query : workload) {
+            String[] terms = query.trim().split("\\s+");
+            for (Student student : roster) {
+                String[] parts = student.getName().toLowerCase().trim().split("\\s+");
+                boolean matches = true;
+                for (String term : terms) {
+                    int allowed = FuzzyNameIndex.maxDistance(term);
+                    boolean close = false;
+                    for (String part : parts) {
+                        close |= FuzzyNameIndex.distance(term, part, allowed) <= allowed;
+                    }
+                    matches &= close;
+                }
+                if (matches) {
+                    scanMatches++;
+                }
+            }
+        }
+        double scanTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        
+        long indexMatches = 0;
+        startTime = System.nanoTime();
+        for (String query : workload) {
+            indexMatches += manager.findStudentsByFuzzyName(query, Integer.MAX_VALUE).size();
+        }
+        double indexTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        double indexMemory = manager.getFuzzyIndexBytes() / (1024.0 * 1024.0);
+        
+        manager.setFuzzyIndexBudget(64 * 1024);
+        long budgetMatches = 0;
+        startTime = System.nanoTime();
+        for (String query : workload) {
+            budgetMatches += manager.findStudentsByFuzzyName(query, Integer.MAX_VALUE).size();
+        }
+        double budgetTime = (System.nanoTime() - startTime) / 1_000_000.0;
+        double budgetMemory = manager.getFuzzyIndexBytes() / (1024.0 * 1024.0);
+        if (scanMatches != indexMatches || scanMatches != budgetMatches) {
+            System.err.println("Fuzzy searches disagree: " + scanMatches + " scanned, " + indexMatches + " indexed, "
+                               + budgetMatches + " within budget");
+        }
+        
+        return new BenchmarkResult[] {
+            new BenchmarkResult(scanTime, 0.01, queries / Math.max(scanTime, 1e-6) * 1000),
+            new BenchmarkResult(indexTime, Math.max(0.01, indexMemory), queries / Math.max(indexTime, 1e-6) * 1000),
+            new BenchmarkResult(budgetTime, Math.max(0.01, budgetMemory), queries / Math.max(budgetTime, 1e-6) * 1000)
+        };
+    }
+    
+    // Score-ordered export: copied list plus String rows, then the streaming exporter per format
+    private BenchmarkResult[] testExport(List<Student> students) throws IOException {
+        StudentManager manager = new StudentManager();
+        manager.addStudents(students);
+        Path file = Files.createTempFile("students", ".export");
+        BenchmarkResult[] results = new BenchmarkResult[4];
+        try {
+            System.gc();
+            long memoryBefore = getDetailedMemoryUsage().getUsed();
+            long startTime = System.nanoTime();
+            long peak = memoryBefore;
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+                List<Student> sorted = manager.getSortedStudentsByScore();
+                peak = Math.max(peak, getDetailedMemoryUsage().getUsed());
+                writer.println("id,name,score");
+                for (Student student : sorted) {
+                    writer.println(student.getId() + "," + student.getName() + "," + student.getScore());
+                }
+                peak = Math.max(peak, getDetailedMemoryUsage().getUsed());
+            }
+            double time = (System.nanoTime() - startTime) / 1_000_000.0;
+            results[0] = new BenchmarkResult(time, Math.max(0.01, (peak - memoryBefore) / (1024.0 * 1024.0)),
+                                             manager.getStudentCount() / Math.max(time, 1e-6) * 1000);
+            
+            StudentExporter.Format[] formats = StudentExporter.Format.values();
+            for (int i = 0; i < formats.length; i++) {
+                System.gc();
+                memoryBefore = getDetailedMemoryUsage().getUsed();
+                startTime = System.nanoTime();
+                long written;
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    written = new StudentExporter(formats[i]).export(manager, StudentOrder.SCORE_DESCENDING, null, channel);
+                }
+                time = (System.nanoTime() - startTime) / 1_000_000.0;
+                long used = getDetailedMemoryUsage().getUsed() - memoryBefore;
+                results[i + 1] = new BenchmarkResult(time, Math.max(0.01, used / (1024.0 * 1024.0)),
+                                                     written / Math.max(time, 1e-6) * 1000);
+            }
+            return results;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    // Loads the same CSV file row by row (split, addStudent, a notification per row) and in bulk; returns {rows, bulk}
+    private BenchmarkResult[] testCsvImport(List<Student> students) throws IOException {
+        Path file = Files.createTempFile("students", ".csv");
+        try {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+                writer.println("id,name,score");
+                for (Student student : students) {
+                    writer.println(student.getId() + "," + student.getName() + "," + student.getScore());
+                }
+            }
+            double fileSize = Math.max(0.01, Files.size(file) / (1024.0 * 1024.0));
+            
+            StudentManager rowByRow = new StudentManager();
+            LongAdder notifications = new LongAdder();
+            rowByRow.addStudentChangeListener(_ -> notifications.increment());
+            long startTime = System.nanoTime();
+            try (java.io.BufferedReader reader = Files.newBufferedReader(file)) {
+                reader.readLine(); // Header
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(",");
+                    if (fields.length == 3 && fields[0].matches("BC\\d{5}")) {
+                        rowByRow.addStudent(new Student(fields[0], fields[1], Double.parseDouble(fields[2])));
+                    }
+                }
+            }
+            double rowTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            
+            StudentManager bulk = new StudentManager();
+            startTime = System.nanoTime();
+            StudentCsvImporter.Result result = new StudentCsvImporter().importFile(file, bulk, null);
+            double bulkTime = (System.nanoTime() - startTime) / 1_000_000.0;
+            if (bulk.getStudentCount() != rowByRow.getStudentCount()) {
+                System.err.println("Bulk import loaded " + bulk.getStudentCount() + " students, row by row " + rowByRow.getStudentCount());
+            }
+            
+            return new BenchmarkResult[] {
+                new BenchmarkResult(rowTime, fileSize, students.size() / Math.max(rowTime, 1e-6) * 1000),
+                new BenchmarkResult(bulkTime, fileSize, result.getRows() / Math.max(bulkTime, 1e-6) * 1000)
+            };
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private static double directorySizeMB(Path directory) throws IOException {
+        long bytes = 0;
+        try (java.util.stream.Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.isRegularFile(file)) {
+                    bytes += Files.size(file);
+                }
+            }
+        }
+        return Math.max(0.01, bytes / (1024.0 * 1024.0));
+    }
+    
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.walk(directory)) {
+            List<Path> paths = new ArrayList<>();
+            files.forEach(paths::add);
+            // Children before their parents
+            for (int i = paths.size() - 1; i >= 0; i--) {
+                Files.deleteIfExists(paths.get(i));
+            }
+        }
+    }
+    
+    private static long totalGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gcBean.getCollectionTime());
+        }
+        return total;
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
     private BenchmarkResult testHashSearch(List<Student> students) {
         // Create a HashMap for searching
         HashMap<String, Student> studentMap = new HashMap<>(students.size());
@@ -2069,8 +3518,8 @@ public class PerformanceTestPanel extends JPanel {
         int nameComplexity = Math.min(firstNames.length, Math.max(5, count / 1000));
         
         for (int i = 0; i < count; i++) {
-            // Generate ID in format BC00000
-            String id = String.format("BC%05d", i + 1);
+            // Generate ID in format BC00000; from BC00000 so a full roster of MAX_ID + 1 students fits
+            String id = String.format("BC%05d", i);
             
             // Tạo tên với độ phức tạp tỷ lệ với kích thước dữ liệu
             StringBuilder nameBuilder = new StringBuilder();
@@ -2098,6 +3547,15 @@ public class PerformanceTestPanel extends JPanel {
         return students;
     }
     
+    // Same data with scores rounded to whole numbers: only 11 distinct keys
+    private List<Student> withDuplicateScores(List<Student> students) {
+        List<Student> duplicates = new ArrayList<>(students.size());
+        for (Student student : students) {
+            duplicates.add(new Student(student.getId(), student.getName(), Math.rint(student.getScore())));
+        }
+        return duplicates;
+    }
+    
     private void quickSort(List<Student> arr, int low, int high) {
         if (low < high) {
             int pi = partition(arr, low, high);
@@ -0,0 +1,131 @@
+package view;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs a view's sorts and searches on a background thread and hands the result back on the EDT.
+ * <p>
+ * Only the latest query counts: submitting a new one cancels the one in flight (interrupting it if it is
+ * running), and a result that arrives after it was superseded is dropped, so a view never flickers through
+ * stale answers. The result callback should swap it into the table in one step. Time spent in callbacks on
+ * the EDT is measured so regressions show up.
+ */
+public class QueryExecutor implements AutoCloseable {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final ExecutorService pool;
+    private Future<?> inFlight; // EDT only
+    private long generation;    // EDT only, bumped by each submit
+
+    // EDT only
+    private long completed;
+    private long superseded;
+    private long edtNanos;
+    private long maxEdtNanos;
+    private long lastQueryNanos;
+
+    public QueryExecutor(String name) {
+        pool = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, name + "-query-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a query in the background, superseding any query still in flight. Call on the EDT.
+     * @param query Runs off the EDT; must not touch Swing components
+     * @param onResult Runs on the EDT with the result, unless a later query was submitted meanwhile
+     * @param onError Runs on the EDT if the query throws, unless superseded; may be null to print the error
+     */
+    public <T> void submit(Callable<T> query, Consumer<T> onResult, Consumer<Exception> onError) {
+        long queryGeneration = ++generation;
+        if (inFlight != null && !inFlight.isDone()) {
+            inFlight.cancel(true);
+            superseded++;
+        }
+        inFlight = pool.submit(() -> {
+            long startTime = System.nanoTime();
+            T result;
+            try {
+                result = query.call();
+            } catch (Exception e) {
+                if (!(e instanceof InterruptedException)) {
+                    deliver(queryGeneration, () -> {
+                        if (onError != null) {
+                            onError.accept(e);
+                        } else {
+                            e.printStackTrace();
+                        }
+                    });
+                }
+                return;
+            }
+            long queryNanos = System.nanoTime() - startTime;
+            deliver(queryGeneration, () -> {
+                lastQueryNanos = queryNanos;
+                onResult.accept(result);
+            });
+        });
+    }
+
+    private void deliver(long queryGeneration, Runnable callback) {
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (queryGeneration != generation) {
+                return; // Superseded while the result was on its way
+            }
+            inFlight = null;
+            long startTime = System.nanoTime();
+            callback.run();
+            long blocked = System.nanoTime() - startTime;
+            completed++;
+            edtNanos += blocked;
+            maxEdtNanos = Math.max(maxEdtNanos, blocked);
+        });
+    }
+
+    /** True while a query's result has not been delivered yet. Call on the EDT. */
+    public boolean isBusy() {
+        return inFlight != null;
+    }
+
+    /** Queries whose result was delivered. */
+    public long getCompletedCount() {
+        return completed;
+    }
+
+    /** Queries cancelled because a newer one was submitted before they finished. */
+    public long getSupersededCount() {
+        return superseded;
+    }
+
+    /** Total time result callbacks blocked the EDT, in nanoseconds. */
+    public long getEdtNanos() {
+        return edtNanos;
+    }
+
+    /** Longest single callback on the EDT, in nanoseconds. */
+    public long getMaxEdtNanos() {
+        return maxEdtNanos;
+    }
+
+    /** Background time of the last delivered query, in nanoseconds. */
+    public long getLastQueryNanos() {
+        return lastQueryNanos;
+    }
+
+    @Override
+    public void close() {
+        generation++;
+        pool.shutdownNow();
+    }
+}
@@ -1,22 +1,39 @@
 package view;
 
+import dao.StudentCsvImporter;
+import dao.StudentExporter;
 import java.awt.*;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.RoundRectangle2D;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
+import model.Mutation;
 import model.Student;
+import model.StudentChangeEvent;
+import model.StudentChangeListener;
+import model.StudentEventBus;
+import model.StudentIdCodec;
 import model.StudentManager;
+import model.StudentOrder;
+import model.StudentPrefixSearch;
+import model.StudentQuery;
 import util.*;
 
 public class StudentFormPanel extends JPanel {
@@ -27,33 +44,47 @@ public class StudentFormPanel extends JPanel {
     private final RoundedTextField scoreField; 
     private final RoundedTextField searchField;
     private final JTable studentTable;
-    private final DefaultTableModel tableModel;
+    private final StudentTableModel tableModel;
     private final JLabel statusLabel;
-    private Timer autoUpdateTimer;
+    private final StudentEventBus eventBus;
+    private final StudentChangeListener changeListener = this::applyChange;
     private boolean isEditing = false;
+    // Roster version the table reflects, and whether it shows search results rather than the whole roster
+    private long lastSeenVersion = -1;
+    private boolean showingSearchResults;
+
+    // Each changed row costs a shift of the rows below it, so a change is applied row by row only while
+    // changes x rows stays under this; about 5 ms on the EDT, beyond which a reload off the EDT is cheaper
+    private static final long MAX_DELTA_WORK = 20_000_000;
+
+    // Sorts and searches run here; a newer one cancels the one in flight
+    private final QueryExecutor queries = new QueryExecutor("student-table");
+    // Newest change dropped while a query was in flight; its result is stale if older than this
+    private long missedVersion;
+    private String lastSearchKeyword;
+
+    // Live search: runs this long after the last keystroke, narrowing the previous result while the query grows
+    private static final int SEARCH_DEBOUNCE_MILLIS = 150;
+    // Closest names listed when nothing matches as typed
+    private static final int FUZZY_RESULT_LIMIT = 50;
+    private final StudentPrefixSearch prefixSearch;
+    private final Timer searchDebounce;
+
+    private record TableQuery(long version, List<Student> students, String message, boolean found) {
+    }
     
     // Fields for drag-and-drop functionality
     private int dragStartRow = -1;
     private int dragEndRow = -1;
     private boolean isDragging = false;
 
-    public StudentFormPanel(StudentManager studentManager, DashboardPanel dashboardPanel) {
+    public StudentFormPanel(StudentManager studentManager, DashboardPanel dashboardPanel, StudentEventBus eventBus) {
         this.studentManager = studentManager;
         this.dashboardPanel = dashboardPanel;
+        this.eventBus = eventBus;
         
         // Initialize all final fields
-        String[] columns = {"", "ID", "Name", "Score", "Rank"};
-        this.tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 0;
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                return columnIndex == 0 ? Boolean.class : Object.class;
-            }
-        };
+        this.tableModel = new StudentTableModel(true);
         
         this.studentTable = new JTable(this.tableModel);
         this.idField = new RoundedTextField(20);
@@ -61,17 +92,14 @@ public class StudentFormPanel extends JPanel {
         this.scoreField = new RoundedTextField(20);
         this.searchField = new RoundedTextField(20);
         this.statusLabel = new JLabel(" ");
-        this.autoUpdateTimer = new Timer(500, _ -> {
-            if (!isEditing) {
-                updateFromModel();
-            }
-        });
+        this.prefixSearch = new StudentPrefixSearch(studentManager);
+        this.searchDebounce = new Timer(SEARCH_DEBOUNCE_MILLIS, _ -> searchStudent());
+        this.searchDebounce.setRepeats(false);
         
         setLayout(new BorderLayout());
         setOpaque(false);
         
         initComponents();
-        setupAutoUpdate();
         setupEditingListeners();
         refreshTable();
     }
@@ -228,7 +256,7 @@ public class StudentFormPanel extends JPanel {
         addButton.addActionListener(_ -> addStudent());
         updateButton.addActionListener(_ -> updateStudent());
         deleteButton.addActionListener(_ -> deleteStudent());
-        clearButton.addActionListener(_ -> clearFields());
+        clearButton.addActionListener(_ -> clearAll());
         
         buttonPanel.add(addButton);
         buttonPanel.add(updateButton);
@@ -377,9 +405,10 @@ public class StudentFormPanel extends JPanel {
         studentTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && studentTable.getSelectedRow() != -1) {
                 int row = studentTable.getSelectedRow();
-                idField.setText(tableModel.getValueAt(row, 1).toString());
-                nameField.setText(tableModel.getValueAt(row, 2).toString());
-                scoreField.setText(tableModel.getValueAt(row, 3).toString());
+                Student student = tableModel.getStudentAt(row);
+                idField.setText(student.getId());
+                nameField.setText(student.getName());
+                scoreField.setText(String.valueOf(student.getScore()));
             }
         });
 
@@ -409,11 +438,10 @@ public class StudentFormPanel extends JPanel {
                         
                         // If clicking on checkbox column, toggle its state
                         if (studentTable.columnAtPoint(e.getPoint()) == 0) {
-                            boolean currentValue = (Boolean) tableModel.getValueAt(row, 0);
-                            tableModel.setValueAt(!currentValue, row, 0);
+                            tableModel.setChecked(row, !tableModel.isChecked(row));
                         } else {
                             // If clicking on row (not checkbox), also select checkbox
-                            tableModel.setValueAt(true, row, 0);
+                            tableModel.setChecked(row, true);
                         }
                     }
                 }
@@ -428,9 +456,7 @@ public class StudentFormPanel extends JPanel {
                         int startRow = Math.min(dragStartRow, dragEndRow);
                         int endRow = Math.max(dragStartRow, dragEndRow);
                         
-                        for (int i = startRow; i <= endRow; i++) {
-                            tableModel.setValueAt(true, i, 0);
-                        }
+                        tableModel.setChecked(startRow, endRow, true);
                     }
                 }
                 
@@ -470,9 +496,7 @@ public class StudentFormPanel extends JPanel {
                             studentTable.setRowSelectionInterval(startRow, endRow);
                             
                             // Mark checkboxes for all rows in range
-                            for (int i = startRow; i <= endRow; i++) {
-                                tableModel.setValueAt(true, i, 0);
-                            }
+                            tableModel.setChecked(startRow, endRow, true);
                         }
                         
                         studentTable.repaint();
@@ -505,6 +529,12 @@ public class StudentFormPanel extends JPanel {
         CustomButton refreshButton = CustomButton.createGlassButton("Refresh");
         refreshButton.addActionListener(_ -> refreshTable());
 
+        CustomButton importButton = CustomButton.createSecondaryButton("Import CSV");
+        importButton.addActionListener(_ -> importStudents());
+
+        CustomButton exportButton = CustomButton.createSecondaryButton("Export");
+        exportButton.addActionListener(_ -> exportStudents());
+
         JLabel hintLabel = new JLabel("Tip: Hold Shift and drag to select multiple rows");
         hintLabel.setFont(new Font("Segoe UI", Font.ITALIC, 12));
         hintLabel.setForeground(ColorScheme.TEXT_SECONDARY);
@@ -519,6 +549,8 @@ public class StudentFormPanel extends JPanel {
         rightPanel.add(deselectAllButton);
         rightPanel.add(deleteSelectedButton);
         rightPanel.add(refreshButton);
+        rightPanel.add(importButton);
+        rightPanel.add(exportButton);
 
         buttonPanel.setLayout(new BorderLayout());
         buttonPanel.add(leftPanel, BorderLayout.WEST);
@@ -531,10 +563,6 @@ public class StudentFormPanel extends JPanel {
         return panel;
     }
     
-    private void setupAutoUpdate() {
-        autoUpdateTimer.start();
-    }
-
     private void setupEditingListeners() {
         // Add focus listeners to all text fields
         idField.addFocusListener(new FocusAdapter() {
@@ -589,6 +617,22 @@ public class StudentFormPanel extends JPanel {
             }
         });
 
+        // Search as you type; each keystroke pushes the search back until typing pauses
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchDebounce.restart();
+            }
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only
+            }
+        });
+
         // Add action listeners with ActionEvent parameter
         CustomButton searchButton = CustomButton.createPrimaryButton("Search");
         searchButton.addActionListener(_ -> searchStudent());
@@ -599,7 +643,7 @@ public class StudentFormPanel extends JPanel {
         CustomButton deleteButton = CustomButton.createDangerButton("Delete");
         deleteButton.addActionListener(_ -> deleteStudent());
         CustomButton clearButton = CustomButton.createGlassButton("Clear");
-        clearButton.addActionListener(_ -> clearFields());
+        clearButton.addActionListener(_ -> clearAll());
         CustomButton selectAllButton = CustomButton.createGlassButton("Select All");
         selectAllButton.addActionListener(_ -> selectAllStudents());
         CustomButton deselectAllButton = CustomButton.createGlassButton("Deselect All");
@@ -615,71 +659,136 @@ public class StudentFormPanel extends JPanel {
             sortStudents(selected);
         });
 
-        this.autoUpdateTimer = new Timer(500, _ -> {
-            if (!isEditing) {
-                updateFromModel();
-            }
-        });
-
         // Add selection listener
         studentTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && studentTable.getSelectedRow() != -1 && !isEditing) {
                 int row = studentTable.getSelectedRow();
                 isEditing = true;
-                idField.setText(tableModel.getValueAt(row, 1).toString());
-                nameField.setText(tableModel.getValueAt(row, 2).toString());
-                scoreField.setText(tableModel.getValueAt(row, 3).toString());
+                Student student = tableModel.getStudentAt(row);
+                idField.setText(student.getId());
+                nameField.setText(student.getName());
+                scoreField.setText(String.valueOf(student.getScore()));
                 isEditing = false;
             }
         });
     }
 
-    private void updateFromModel() {
-        if (studentManager != null) {
-            List<Student> currentStudents = studentManager.getAllStudents();
-            
-            // Compare current table data with model data
-            boolean needsUpdate = false;
-            if (tableModel.getRowCount() != currentStudents.size()) {
-                needsUpdate = true;
-            } else {
-                for (int i = 0; i < currentStudents.size(); i++) {
-                    Student student = currentStudents.get(i);
-                    if (tableModel.getValueAt(i, 1) == null || 
-                        !student.getId().equals(tableModel.getValueAt(i, 1).toString())) {
-                        needsUpdate = true;
-                        break;
-                    }
+    // Applies a coalesced change from the event bus; runs on the EDT
+    private void applyChange(StudentChangeEvent event) {
+        if (event.getToVersion() <= lastSeenVersion) {
+            return; // Already reflected by a reload
+        }
+        if (queries.isBusy()) {
+            // The query in flight will replace every row; just note how far the roster has moved
+            missedVersion = Math.max(missedVersion, event.getToVersion());
+            return;
+        }
+        if (event.isReset() || event.getFromVersion() != lastSeenVersion
+                || (long) event.getChangeCount() * tableModel.getRowCount() > MAX_DELTA_WORK) {
+            reloadKeepingView();
+            return;
+        }
+        lastSeenVersion = event.getToVersion();
+
+        if (showingSearchResults) {
+            // Search results keep their rows; only update or drop the ones shown. Rows are looked up by ID
+            // before any is removed, then removed bottom up, so the lookup map is built once.
+            for (Student student : event.getUpdated()) {
+                int row = tableModel.indexOf(student.getId());
+                if (row >= 0) {
+                    tableModel.replaceStudent(row, student);
                 }
             }
-            
-            // Only update if there are changes
-            if (needsUpdate) {
-                SwingUtilities.invokeLater(() -> {
-                    // Store selection and scroll state
-                    int[] selectedRows = studentTable.getSelectedRows();
-                    Rectangle visibleRect = studentTable.getVisibleRect();
-                    
-                    // Refresh with current sorting
-                    refreshTable();
-                    
-                    // Restore selection and scroll state
-                    for (int row : selectedRows) {
-                        if (row < tableModel.getRowCount()) {
-                            studentTable.addRowSelectionInterval(row, row);
-                        }
-                    }
-                    studentTable.scrollRectToVisible(visibleRect);
-                });
+            int[] removedRows = event.getRemoved().stream().mapToInt(student -> tableModel.indexOf(student.getId()))
+                                     .filter(row -> row >= 0).sorted().toArray();
+            for (int i = removedRows.length - 1; i >= 0; i--) {
+                tableModel.removeStudent(removedRows[i]);
             }
+            return;
+        }
+
+        Comparator<Student> order = currentRowOrder();
+        Set<String> changedIds = new HashSet<>();
+        event.getAdded().forEach(student -> changedIds.add(student.getId()));
+        event.getUpdated().forEach(student -> changedIds.add(student.getId()));
+        event.getRemoved().forEach(student -> changedIds.add(student.getId()));
+        // The rows stay sorted throughout, so each one is found by binary search on the value it shows:
+        // the value before the change, which the event carries
+        for (Student student : event.getRemoved()) {
+            int row = tableModel.indexOf(student, order);
+            if (row >= 0) {
+                tableModel.removeStudent(row);
+            }
+        }
+        // Rows whose order still holds are updated in place; the rest are taken out, keeping their checkbox.
+        // An added student a racing reload already shows is treated like an update.
+        List<Student> moved = new ArrayList<>();
+        Map<String, Boolean> checked = new HashMap<>();
+        List<Student> updated = event.getUpdated();
+        List<Student> added = event.getAdded();
+        for (int i = 0; i < updated.size() + added.size(); i++) {
+            Student student = i < updated.size() ? updated.get(i) : added.get(i - updated.size());
+            Student shown = i < updated.size() ? event.getPrevious().get(i) : student;
+            int row = tableModel.indexOf(shown, order);
+            if (row >= 0 && staysInPlace(row, student, order, changedIds)) {
+                tableModel.replaceStudent(row, student);
+                continue;
+            }
+            if (row >= 0) {
+                checked.put(student.getId(), tableModel.isChecked(row));
+                tableModel.removeStudent(row);
+            }
+            moved.add(student);
+        }
+        // The remaining rows are sorted, so each one goes in by binary search
+        for (Student student : moved) {
+            tableModel.insertStudent(tableModel.insertionPoint(student, order), student, checked.getOrDefault(student.getId(), false));
         }
     }
+
+    // Only neighbours outside this change are trusted to be in their final order
+    private boolean staysInPlace(int row, Student student, Comparator<Student> order, Set<String> changedIds) {
+        Student above = row > 0 ? tableModel.getStudentAt(row - 1) : null;
+        Student below = row < tableModel.getRowCount() - 1 ? tableModel.getStudentAt(row + 1) : null;
+        return (above == null || !changedIds.contains(above.getId()) && order.compare(above, student) < 0)
+                && (below == null || !changedIds.contains(below.getId()) && order.compare(student, below) < 0);
+    }
+
+    // The order sortedStudents returns rows in, as the indices walk it
+    private Comparator<Student> currentRowOrder() {
+        return StudentManager.comparator(switch (currentSortOption) {
+            case "Score (Low to High)" -> StudentOrder.SCORE_ASCENDING;
+            case "Name (A-Z)" -> StudentOrder.NAME_ASCENDING;
+            case "Name (Z-A)" -> StudentOrder.NAME_DESCENDING;
+            case "ID" -> StudentOrder.ID;
+            default -> StudentOrder.SCORE_DESCENDING;
+        });
+    }
+
+    // Reloads what the table shows, the whole roster or the last search, keeping selection and scroll position
+    private void reloadKeepingView() {
+        if (showingSearchResults && lastSearchKeyword != null) {
+            runSearch(lastSearchKeyword, false);
+        } else {
+            refreshTable(true);
+        }
+    }
+
     private String currentSortOption = "Score (High to Low)"; // Default sorting
 
     private void sortStudents(String sortOption) {
-        autoUpdateTimer.stop(); // Pause timer
         currentSortOption = sortOption; // Store the selected sorting option
-        List<Student> sortedStudents = switch (sortOption) {
+        queries.submit(() -> new TableQuery(studentManager.getVersion(), sortedStudents(sortOption), null, true), result -> {
+            swapRows(result, false, false);
+            showStatus(String.format("Sorted %d students by %s in %.1f ms (UI thread max %.1f ms)",
+                                     result.students().size(), sortOption, queries.getLastQueryNanos() / 1e6,
+                                     queries.getMaxEdtNanos() / 1e6), true);
+        }, e -> showStatus("Sort failed: " + e.getMessage(), false));
+    }
+
+    // Runs off the EDT
+    private List<Student> sortedStudents(String sortOption) {
+        return switch (sortOption) {
             case "Score (High to Low)" -> studentManager.getSortedStudentsByScore();
             case "Score (Low to High)" -> studentManager.getSortedStudentsByScoreAscending();
             case "Name (A-Z)" -> studentManager.getSortedStudentsByName(true);
@@ -687,18 +796,30 @@ public class StudentFormPanel extends JPanel {
             case "ID" -> studentManager.getSortedStudentsById();
             default -> studentManager.getSortedStudentsByScore();
         };
-        
-        updateTableWithStudents(sortedStudents);
-        autoUpdateTimer.restart(); // Resume timer
     }
-    
-    private void updateTableWithStudents(List<Student> students) {
-        tableModel.setRowCount(0);
-        for (Student student : students) {
-            Object[] row = {false, student.getId(), student.getName(), student.getScore(), student.getRank()};
-            tableModel.addRow(row);
+
+    // Puts a query result into the table in one step; reloads again if changes were dropped meanwhile
+    private void swapRows(TableQuery result, boolean searchResults, boolean keepView) {
+        int[] selectedRows = keepView ? studentTable.getSelectedRows() : new int[0];
+        Rectangle visibleRect = studentTable.getVisibleRect();
+
+        boolean stale = missedVersion > result.version();
+        missedVersion = 0;
+        lastSeenVersion = result.version();
+        showingSearchResults = searchResults;
+        tableModel.setStudents(result.students());
+
+        if (keepView) {
+            for (int row : selectedRows) {
+                if (row < tableModel.getRowCount()) {
+                    studentTable.addRowSelectionInterval(row, row);
+                }
+            }
+            studentTable.scrollRectToVisible(visibleRect);
+        }
+        if (stale) {
+            reloadKeepingView();
         }
-        studentTable.repaint();
     }
     
     private void addStudent() {
@@ -719,17 +840,16 @@ public class StudentFormPanel extends JPanel {
             }
 
             // Check ID format
-            if (!id.matches("BC\\d{5}")) {
+            if (!StudentIdCodec.isValid(id)) {
                 showStatus("ID must be in format BC00000 (BC + 5 digits)", false);
                 return;
             }
 
-            Student student = new Student(id, name, score);
+            Student student = new Student(id, name, StudentManager.roundScore(score));
             boolean added = studentManager.addStudent(student);
 
             if (added) {
                 clearFields();
-                refreshTable();
                 showStatus("Student added successfully", true);
                 dashboardPanel.updateDashboard();
             } else {
@@ -759,12 +879,11 @@ public class StudentFormPanel extends JPanel {
                 return;
             }
             
-            Student student = new Student(id, name, score);
+            Student student = new Student(id, name, StudentManager.roundScore(score));
             boolean updated = studentManager.updateStudent(student);
             
             if (updated) {
                 clearFields();
-                refreshTable();
                 showStatus("Student updated successfully", true);
                 dashboardPanel.updateDashboard();
             } else {
@@ -796,7 +915,6 @@ public class StudentFormPanel extends JPanel {
                 
                 if (deleted) {
                     clearFields();
-                    refreshTable();
                     showStatus("Student deleted successfully", true);
                     dashboardPanel.updateDashboard();
                 } else {
@@ -809,68 +927,87 @@ public class StudentFormPanel extends JPanel {
     }
     
     private void searchStudent() {
+        searchDebounce.stop();
         String keyword = searchField.getText().trim();
         
         if (keyword.isEmpty()) {
+            lastSearchKeyword = null;
             refreshTable();
             return;
         }
-        
-        // Try to parse as score first
-        try {
-            double score = Double.parseDouble(keyword);
-            if (score >= 0 && score <= 10) {
-                Set<Student> foundStudents = studentManager.findStudentsByScore(score);
-                updateTableWithStudents(new ArrayList<>(foundStudents));
-                showStatus("Found " + foundStudents.size() + " student(s) with score " + score, true);
-                return;
+        lastSearchKeyword = keyword;
+        runSearch(keyword, true);
+    }
+
+    // Looks the keyword up off the EDT
+    private void runSearch(String keyword, boolean report) {
+        queries.submit(() -> findStudents(keyword), result -> {
+            swapRows(result, true, !report);
+            if (report) {
+                showStatus(String.format("%s (%.1f ms)", result.message(), queries.getLastQueryNanos() / 1e6), result.found());
             }
-        } catch (NumberFormatException e) {
-            // Not a number, continue with name/ID search
-        }
+        }, e -> showStatus("Search failed: " + e.getMessage(), false));
+    }
 
-        // Try exact ID match
-        Student student = studentManager.findStudentById(keyword);
-        if (student != null) {
-            List<Student> result = new ArrayList<>();
-            result.add(student);
-            updateTableWithStudents(result);
-            showStatus("Found student with ID: " + keyword, true);
-            return;
+    // Runs off the EDT: plain words go to the incremental prefix search, anything with fields, scores
+    // or OR to the query planner, best score first unless the query sorts otherwise
+    private TableQuery findStudents(String keyword) {
+        long version = studentManager.getVersion();
+        StudentQuery query;
+        try {
+            query = StudentQuery.parse(keyword);
+        } catch (IllegalArgumentException e) {
+            return new TableQuery(version, new ArrayList<>(), e.getMessage(), false);
         }
 
-        // Search by name
-        Set<Student> nameResults = studentManager.findStudentsByName(keyword);
-        if (!nameResults.isEmpty()) {
-            List<Student> sortedResults = new ArrayList<>(nameResults);
-            sortedResults.sort((s1, s2) -> Double.compare(s2.getScore(), s1.getScore()));
-            updateTableWithStudents(sortedResults);
-            showStatus("Found " + nameResults.size() + " student(s) matching: " + keyword, true);
+        List<Student> matches;
+        if (query.isPlainPrefixSearch()) {
+            matches = prefixSearch.search(keyword);
         } else {
-            showStatus("No students found matching: " + keyword, false);
-            refreshTable();
+            if (query.getOrder() == null) {
+                query = query.orderBy(StudentOrder.SCORE_DESCENDING);
+            }
+            matches = studentManager.query(query);
         }
+        if (!matches.isEmpty()) {
+            return new TableQuery(version, matches, "Found " + matches.size() + " student(s) matching: " + keyword, true);
+        }
+        // Nothing starts with the words as typed: they may be misspelled
+        if (query.isPlainPrefixSearch()) {
+            matches = studentManager.findStudentsByFuzzyName(keyword, FUZZY_RESULT_LIMIT);
+            if (!matches.isEmpty()) {
+                return new TableQuery(version, matches, "No exact match; " + matches.size() + " similar name(s) to: " + keyword, true);
+            }
+        }
+        return new TableQuery(version, matches, "No students found matching: " + keyword, false);
     }
     
+    // Resets the form only; the search stays, so an edit does not reload the table
     private void clearFields() {
         idField.setText("");
         nameField.setText("");
         scoreField.setText("");
-        searchField.setText("");
         studentTable.clearSelection();
         statusLabel.setText(" ");
     }
+
+    // The Clear button: form and search, which brings back the whole roster
+    private void clearAll() {
+        clearFields();
+        searchField.setText("");
+    }
     
     private void refreshTable() {
-        List<Student> sortedStudents = switch (currentSortOption) {
-            case "Score (High to Low)" -> studentManager.getSortedStudentsByScore();
-            case "Score (Low to High)" -> studentManager.getSortedStudentsByScoreAscending();
-            case "Name (A-Z)" -> studentManager.getSortedStudentsByName(true);
-            case "Name (Z-A)" -> studentManager.getSortedStudentsByName(false);
-            case "ID" -> studentManager.getSortedStudentsById();
-            default -> studentManager.getSortedStudentsByScore();
-        };
-        updateTableWithStudents(sortedStudents);
+        refreshTable(false);
+    }
+
+    // Reads the whole roster in the current order off the EDT
+    private void refreshTable(boolean keepView) {
+        String sortOption = currentSortOption;
+        // Read the version first: a change that lands during the read is then applied again, which is harmless
+        queries.submit(() -> new TableQuery(studentManager.getVersion(), sortedStudents(sortOption), null, true),
+                       result -> swapRows(result, false, keepView),
+                       e -> showStatus("Could not load students: " + e.getMessage(), false));
     }
     
     private void showStatus(String message, boolean isSuccess) {
@@ -883,16 +1020,11 @@ public class StudentFormPanel extends JPanel {
     }
 
     private void deleteSelectedStudents() {
-        int totalRows = tableModel.getRowCount();
         List<String> idsToDelete = new ArrayList<>();
 
         // Collect all selected student IDs
-        for (int i = 0; i < totalRows; i++) {
-            Boolean isSelected = (Boolean) tableModel.getValueAt(i, 0);
-            if (isSelected != null && isSelected) {
-                String id = (String) tableModel.getValueAt(i, 1);
-                idsToDelete.add(id);
-            }
+        for (Student student : tableModel.getCheckedStudents()) {
+            idsToDelete.add(student.getId());
         }
 
         if (idsToDelete.isEmpty()) {
@@ -905,16 +1037,21 @@ public class StudentFormPanel extends JPanel {
                 "Confirm Delete", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            int successCount = 0;
-
+            // One atomic batch: one version bump, one notification, one table refresh
+            List<Mutation> deletes = new ArrayList<>(idsToDelete.size());
             for (String id : idsToDelete) {
-                boolean deleted = studentManager.deleteStudent(id);
-                if (deleted) {
-                    successCount++;
-                }
+                deletes.add(Mutation.delete(id));
+            }
+            int successCount;
+            try {
+                successCount = studentManager.applyBatch(deletes).getRemoved().size();
+            } catch (IllegalArgumentException e) {
+                // Nothing was deleted; most likely another edit removed one of them first
+                showStatus("Failed to delete students: " + e.getMessage(), false);
+                return;
             }
 
-            refreshTable();
+            // The rows go when the bus delivers the removal
             clearFields();
 
             if (successCount > 0) {
@@ -926,26 +1063,112 @@ public class StudentFormPanel extends JPanel {
         }
     }
 
-    private void selectAllStudents() {
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            tableModel.setValueAt(true, i, 0);
+    private void importStudents() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files (id,name,score)", "csv", "txt"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
-        studentTable.repaint();
+        File file = chooser.getSelectedFile();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + file.getName(), "", 0, 1000);
+        monitor.setMillisToDecideToPopup(200);
+
+        // Parse and insert off the EDT; the manager notifies views once when the whole file is in
+        new SwingWorker<StudentCsvImporter.Result, Integer>() {
+            @Override
+            protected StudentCsvImporter.Result doInBackground() throws Exception {
+                return new StudentCsvImporter().importFile(file.toPath(), studentManager, (done, total, imported) -> {
+                    setProgress((int) (done * 100 / Math.max(1, total)));
+                    publish(imported);
+                });
+            }
+
+            @Override
+            protected void process(List<Integer> chunks) {
+                monitor.setProgress(getProgress() * 10);
+                monitor.setNote(chunks.get(chunks.size() - 1) + " students imported");
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    StudentCsvImporter.Result result = get();
+                    showStatus("Imported " + result.getImported() + " of " + result.getRows() + " rows (" +
+                               result.getDuplicates() + " duplicate, " + result.getInvalid() + " invalid)",
+                               result.getImported() > 0);
+                    dashboardPanel.updateDashboard();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    showStatus("Import failed: " + cause.getMessage(), false);
+                }
+            }
+        }.execute();
+    }
+
+    private void exportStudents() {
+        JFileChooser chooser = new JFileChooser();
+        FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV (*.csv)", "csv");
+        FileNameExtensionFilter jsonFilter = new FileNameExtensionFilter("JSON Lines (*.jsonl)", "jsonl");
+        FileNameExtensionFilter binaryFilter = new FileNameExtensionFilter("Binary roster (*.roster)", "roster");
+        chooser.addChoosableFileFilter(csvFilter);
+        chooser.addChoosableFileFilter(jsonFilter);
+        chooser.addChoosableFileFilter(binaryFilter);
+        chooser.setAcceptAllFileFilterUsed(false);
+        chooser.setFileFilter(csvFilter);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        FileNameExtensionFilter chosen = (FileNameExtensionFilter) chooser.getFileFilter();
+        StudentExporter.Format format = chosen == jsonFilter ? StudentExporter.Format.JSON_LINES
+                                      : chosen == binaryFilter ? StudentExporter.Format.BINARY
+                                      : StudentExporter.Format.CSV;
+        File selected = chooser.getSelectedFile();
+        String extension = "." + chosen.getExtensions()[0];
+        File file = selected.getName().toLowerCase().endsWith(extension) ? selected
+                  : new File(selected.getParentFile(), selected.getName() + extension);
+
+        // Streams from the current snapshot; nothing is copied, so the EDT only waits for the disk
+        new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                // Goes through a temporary file, so a failed export leaves an existing file untouched
+                return new StudentExporter(format).export(studentManager, StudentOrder.INSERTION, null, file.toPath());
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showStatus("Exported " + get() + " students to " + file.getName(), true);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    showStatus("Export failed: " + cause.getMessage(), false);
+                }
+            }
+        }.execute();
+    }
+
+    private void selectAllStudents() {
+        tableModel.setAllChecked(true);
     }
 
     private void deselectAllStudents() {
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            tableModel.setValueAt(false, i, 0);
+        tableModel.setAllChecked(false);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        eventBus.subscribe(changeListener, SwingUtilities::invokeLater);
+        if (studentManager.getVersion() != lastSeenVersion && !queries.isBusy()) {
+            reloadKeepingView(); // Catch up on changes made while hidden
         }
-        studentTable.repaint();
     }
 
     @Override
     public void removeNotify() {
         super.removeNotify();
-        if (autoUpdateTimer != null) {
-            autoUpdateTimer.stop();
-        }
+        eventBus.unsubscribe(changeListener);
     }
 }
 
@@ -11,22 +11,22 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Set;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import model.Student;
+import model.StudentIdCodec;
 import model.StudentManager;
+import model.StudentOrder;
+import model.StudentQuery;
 import util.*;
 
 public class StudentPanel extends JPanel {
     private final StudentManager studentManager;
     private RoundedTextField idField, nameField, scoreField, searchField;
     private JTable studentTable;
-    private DefaultTableModel tableModel;
+    private StudentTableModel tableModel;
     private GlassPanel formPanel, tablePanel, actionPanel, searchPanel;
     private JLabel statusLabel;
 
@@ -159,13 +159,7 @@ public class StudentPanel extends JPanel {
         tableTitle.setBorder(new EmptyBorder(0, 0, 10, 0));
         tablePanel.add(tableTitle, BorderLayout.NORTH);
         
-        String[] columns = {"ID", "Name", "Score", "Rank"};
-        tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new StudentTableModel(false);
         
         studentTable = new JTable(tableModel);
         studentTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -230,9 +224,10 @@ public class StudentPanel extends JPanel {
         studentTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting() && studentTable.getSelectedRow() != -1) {
                 int row = studentTable.getSelectedRow();
-                idField.setText(tableModel.getValueAt(row, 0).toString());
-                nameField.setText(tableModel.getValueAt(row, 1).toString());
-                scoreField.setText(tableModel.getValueAt(row, 2).toString());
+                Student student = tableModel.getStudentAt(row);
+                idField.setText(student.getId());
+                nameField.setText(student.getName());
+                scoreField.setText(String.valueOf(student.getScore()));
             }
         });
         
@@ -312,12 +307,12 @@ public class StudentPanel extends JPanel {
             }
 
             // Kiểm tra định dạng ID
-            if (!id.matches("BC\\d{5}")) {
+            if (!StudentIdCodec.isValid(id)) {
                 showStatus("ID must be in format BC00000 (BC + 5 digits)", false);
                 return;
             }
 
-            Student student = new Student(id, name, score);
+            Student student = new Student(id, name, StudentManager.roundScore(score));
             boolean added = studentManager.addStudent(student);
 
             if (added) {
@@ -348,7 +343,7 @@ public class StudentPanel extends JPanel {
                 return;
             }
             
-            Student student = new Student(id, name, score);
+            Student student = new Student(id, name, StudentManager.roundScore(score));
             boolean updated = studentManager.updateStudent(student);
             
             if (updated) {
@@ -392,68 +387,53 @@ public class StudentPanel extends JPanel {
         String searchText = searchField.getText().trim();
         
         if (searchText.isEmpty()) {
-            showStatus("Please enter an ID or score to search", false);
+            showStatus("Please enter an ID, name or score to search", false);
             refreshTable();
             return;
         }
         
-        // Try to parse as score first
-        try {
-            double score = Double.parseDouble(searchText);
-            if (score < 0 || score > 10) {
-                showStatus("Score must be between 0 and 10", false);
-                return;
-            }
-            
-            Set<Student> foundStudents = studentManager.findStudentsByScore(score);
-            
-            if (!foundStudents.isEmpty()) {
-                tableModel.setRowCount(0);
-                java.util.List<Student> sortedResults = new ArrayList<>(foundStudents);
-                sortedResults.sort((s1, s2) -> Double.compare(s2.getScore(), s1.getScore()));
-                
-                for (Student s : sortedResults) {
-                    Object[] row = {s.getId(), s.getName(), s.getScore(), s.getRank()};
-                    tableModel.addRow(row);
-                }
-                showStatus("Found " + foundStudents.size() + " student(s) with score " + score, true);
-            } else {
-                showStatus("No students found with score " + score, false);
-                refreshTable();
-            }
-        } catch (NumberFormatException e) {
-            // Try ID search first
-            Student student = studentManager.findStudentById(searchText);
-            
-            if (student != null) {
-                tableModel.setRowCount(0);
-                Object[] row = {student.getId(), student.getName(), student.getScore(), student.getRank()};
-                tableModel.addRow(row);
-                
-                // Select the found student
-                idField.setText(student.getId());
-                nameField.setText(student.getName());
-                scoreField.setText(String.valueOf(student.getScore()));
-                showStatus("Student found", true);
-                return;
-            }
+        // An exact ID fills the form for editing
+        Student student = studentManager.findStudentById(searchText);
+        if (student != null) {
+            tableModel.setStudents(java.util.List.of(student));
             
-            // Try name search
-            Set<Student> nameResults = studentManager.findStudentsByName(searchText);
-            if (!nameResults.isEmpty()) {
-                tableModel.setRowCount(0);
-                java.util.List<Student> sortedResults = new ArrayList<>(nameResults);
-                sortedResults.sort((s1, s2) -> Double.compare(s2.getScore(), s1.getScore()));
-                
-                for (Student s : sortedResults) {
-                    Object[] row = {s.getId(), s.getName(), s.getScore(), s.getRank()};
-                    tableModel.addRow(row);
-                }
-                showStatus("Found " + nameResults.size() + " student(s) matching name: " + searchText, true);
-            } else {
-                showStatus("No students found", false);
-                refreshTable();
-            }
+            // Select the found student
+            idField.setText(student.getId());
+            nameField.setText(student.getName());
+            scoreField.setText(String.valueOf(student.getScore()));
+            showStatus("Student found", true);
+            return;
+        }
+        
+        // Anything else is a query: names, scores, ranks, fields
+        StudentQuery query;
+        try {
+            query = StudentQuery.parse(searchText);
+        } catch (IllegalArgumentException e) {
+            showStatus(e.getMessage(), false);
+            return;
+        }
+        boolean plainWords = query.isPlainPrefixSearch();
+        if (query.getOrder() == null) {
+            query = query.orderBy(StudentOrder.SCORE_DESCENDING);
+        }
+        java.util.List<Student> results = studentManager.query(query);
+        if (!results.isEmpty()) {
+            tableModel.setStudents(results);
+            showStatus("Found " + results.size() + " student(s) matching: " + searchText, true);
+            return;
+        }
+        
+        // Plain words that match nothing may be misspelled names
+        if (plainWords) {
+            results = studentManager.findStudentsByFuzzyName(searchText, 50);
+        }
+        if (!results.isEmpty()) {
+            tableModel.setStudents(results);
+            showStatus("No exact match; " + results.size() + " similar name(s) to: " + searchText, true);
+        } else {
+            showStatus("No students found", false);
+            refreshTable();
         }
     }
 
@@ -466,13 +446,7 @@ public class StudentPanel extends JPanel {
     }
 
     private void refreshTable() {
-        tableModel.setRowCount(0);
-        java.util.List<Student> sortedStudents = studentManager.getSortedStudentsByScore();
-        
-        for (Student s : sortedStudents) {
-            Object[] row = {s.getId(), s.getName(), s.getScore(), s.getRank()};
-            tableModel.addRow(row);
-        }
+        tableModel.setStudents(studentManager.getSortedStudentsByScore());
     }
     
     private void showStatus(String message, boolean isSuccess) {
@@ -0,0 +1,232 @@
+package view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+import model.Student;
+
+/**
+ * Table model that reads cells straight from a list of students instead of copying each one into an
+ * {@code Object[]} row. The table only asks for the cells it paints, so a reload costs one list reference
+ * and one table event whatever the roster size. Edits come in as row-level inserts, updates and deletes.
+ * Rows are found by binary search when they are sorted, or through an ID map built on first use and
+ * dropped when rows shift.
+ * <p>
+ * With a checkbox column, the check state is kept in a {@link BitSet} indexed by row.
+ */
+public class StudentTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {"ID", "Name", "Score", "Rank"};
+
+    private final boolean checkboxColumn;
+    private List<Student> students = new ArrayList<>();
+    private BitSet checked = new BitSet();
+    private Map<String, Integer> rowById; // Built on demand; null once an insert or delete shifts rows
+
+    /**
+     * @param checkboxColumn Whether column 0 is an editable selection checkbox ahead of ID, Name, Score and Rank
+     */
+    public StudentTableModel(boolean checkboxColumn) {
+        this.checkboxColumn = checkboxColumn;
+    }
+
+    /** Shows these students in this order, with nothing checked. The model takes ownership of the list. */
+    public void setStudents(List<Student> students) {
+        this.students = students instanceof ArrayList<Student> ? students : new ArrayList<>(students);
+        rowById = null;
+        checked.clear();
+        fireTableDataChanged();
+    }
+
+    public Student getStudentAt(int row) {
+        return students.get(row);
+    }
+
+    /** Row showing the student with this ID, or -1. The first call after rows shift indexes every row. */
+    public int indexOf(String id) {
+        if (rowById == null) {
+            rowById = new HashMap<>(students.size() * 2);
+            for (int row = 0; row < students.size(); row++) {
+                rowById.put(students.get(row).getId(), row);
+            }
+        }
+        return rowById.getOrDefault(id, -1);
+    }
+
+    /**
+     * Row showing this student, found by binary search when the rows are sorted by the comparator.
+     * @param shown The student as the row shows it, e.g. the value before a change
+     * @param order A total order the rows are sorted by
+     * @return The row, or -1
+     */
+    public int indexOf(Student shown, Comparator<? super Student> order) {
+        int row = insertionPoint(shown, order);
+        if (row < students.size() && students.get(row).getId().equals(shown.getId())) {
+            return row;
+        }
+        return -1;
+    }
+
+    /** Row at which the student belongs if the rows are sorted by the comparator. */
+    public int insertionPoint(Student student, Comparator<? super Student> order) {
+        int low = 0;
+        int high = students.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(students.get(mid), student) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public void insertStudent(int row, Student student, boolean isChecked) {
+        students.add(row, student);
+        rowById = null;
+        shiftChecks(row, 1);
+        checked.set(row, isChecked);
+        fireTableRowsInserted(row, row);
+    }
+
+    public void replaceStudent(int row, Student student) {
+        Student replaced = students.set(row, student);
+        if (rowById != null && !replaced.getId().equals(student.getId())) {
+            rowById = null;
+        }
+        fireTableRowsUpdated(row, row);
+    }
+
+    public void removeStudent(int row) {
+        students.remove(row);
+        rowById = null;
+        shiftChecks(row + 1, -1);
+        fireTableRowsDeleted(row, row);
+    }
+
+    // Moves the check bits from row onwards by delta (+1 or -1) after an insert or delete,
+    // a word at a time so the cost does not grow with the number of checked rows
+    private void shiftChecks(int row, int delta) {
+        int size = checked.length();
+        if (row >= size) {
+            if (delta < 0) {
+                checked.clear(row - 1);
+            }
+            return;
+        }
+        long[] words = checked.toLongArray();
+        if (delta > 0) {
+            words = Arrays.copyOf(words, words.length + 1);
+            int first = row >>> 6;
+            for (int i = words.length - 1; i > first; i--) {
+                words[i] = words[i] << 1 | words[i - 1] >>> 63;
+            }
+            long below = (1L << (row & 63)) - 1;
+            words[first] = words[first] & below | (words[first] & ~below) << 1;
+        } else {
+            // The bit just below row belongs to the deleted row and is dropped
+            int gone = row - 1;
+            int first = gone >>> 6;
+            long below = (1L << (gone & 63)) - 1;
+            words[first] = words[first] & below | words[first] >>> 1 & ~below;
+            for (int i = first; i < words.length; i++) {
+                if (i > first) {
+                    words[i] >>>= 1;
+                }
+                if (i + 1 < words.length) {
+                    words[i] |= words[i + 1] << 63;
+                }
+            }
+        }
+        checked = BitSet.valueOf(words);
+    }
+
+    public boolean isChecked(int row) {
+        return checked.get(row);
+    }
+
+    public void setChecked(int row, boolean isChecked) {
+        if (checked.get(row) != isChecked) {
+            checked.set(row, isChecked);
+            fireTableCellUpdated(row, 0);
+        }
+    }
+
+    /** Checks or unchecks rows from first to last inclusive, with one table event. */
+    public void setChecked(int first, int last, boolean isChecked) {
+        if (first > last) {
+            return;
+        }
+        checked.set(first, last + 1, isChecked);
+        fireTableRowsUpdated(first, last);
+    }
+
+    public void setAllChecked(boolean isChecked) {
+        setChecked(0, students.size() - 1, isChecked);
+    }
+
+    public List<Student> getCheckedStudents() {
+        List<Student> result = new ArrayList<>(checked.cardinality());
+        for (int row = checked.nextSetBit(0); row >= 0 && row < students.size(); row = checked.nextSetBit(row + 1)) {
+            result.add(students.get(row));
+        }
+        return result;
+    }
+
+    @Override
+    public int getRowCount() {
+        return students.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length + (checkboxColumn ? 1 : 0);
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (checkboxColumn) {
+            return column == 0 ? "" : COLUMNS[column - 1];
+        }
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return checkboxColumn && column == 0 ? Boolean.class : Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return checkboxColumn && column == 0;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (checkboxColumn) {
+            if (column == 0) {
+                return checked.get(row);
+            }
+            column--;
+        }
+        Student student = students.get(row);
+        return switch (column) {
+            case 0 -> student.getId();
+            case 1 -> student.getName();
+            case 2 -> student.getScore();
+            default -> student.getRank();
+        };
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (checkboxColumn && column == 0) {
+            setChecked(row, Boolean.TRUE.equals(value));
+        }
+    }
+}